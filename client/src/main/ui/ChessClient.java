@@ -3,6 +3,7 @@ package ui;
 import chess.*;
 import models.AuthToken;
 import models.Game;
+import webSocketMessages.serverMessages.MoveMessage;
 import webSocketMessages.userCommands.*;
 
 import java.util.*;
@@ -13,6 +14,7 @@ public class ChessClient {
     private static AuthToken authToken;
     private static Game currentGame;
     private static int gameID;
+    private static long moveSequence;   // sequence number of the last MOVE applied to currentGame
     public static boolean running;
     private final PreLoginFacade preLoginFacade;
     private final PostLoginFacade postLoginFacade;
@@ -438,6 +440,48 @@ public class ChessClient {
         }
     }
 
+    // A full LOAD_GAME from the server, the sequence number is there when the server will follow up with MOVE messages
+    public void load(Game game, Long sequence) {
+        if (sequence != null) {
+            moveSequence = sequence;
+        }
+        load(game);
+    }
+
+    // A MOVE from the server: play it on our copy of the game and check we ended up where the server did.
+    // Anything that doesn't line up asks the server for the whole game again.
+    public void applyMove(MoveMessage moveMessage) {
+        if (currentGame == null || currentGame.game() == null || currentGame.gameID() != moveMessage.getGameID()) {
+            return;     // not the game we are in
+        }
+        ChessGame game = currentGame.game();
+        if (moveMessage.getSequence() != moveSequence + 1) {
+            requestResync();
+            return;
+        }
+        try {
+            game.makeMove(moveMessage.getMove());
+        } catch (InvalidMoveException e) {
+            requestResync();
+            return;
+        }
+        if (Zobrist.keyOf(game.getBoard(), game.getTeamTurn()) != moveMessage.getPositionHash()) {
+            requestResync();
+            return;
+        }
+        moveSequence = moveMessage.getSequence();
+        if (moveMessage.getGameState() != null) {
+            currentGame = currentGame.setState(moveMessage.getGameState());     // e.g. the move ended the game
+        }
+        System.out.println(moveMessage.getUsername() + " made a move.");
+        load(currentGame);
+    }
+
+    private void requestResync() {
+        UserGameCommand command = new ResyncCommand(authToken.authToken(), currentGame.gameID());
+        this.webSocketClient.sendCommand(command);
+    }
+
     public void load(Game game) {
         currentGame = game;
         if (currentState == State.BLACK) {
@@ -472,7 +516,7 @@ public class ChessClient {
         int row = Integer.parseInt(startPosition.substring(1));
 
         // Create a position object and find the piece at that position
-        ChessPosition position = new MyPosition(row, col);
+        ChessPosition position = MyPosition.of(row, col);
         ChessPiece chessPiece = currentGame.game().getBoard().getPiece(position);
         if (chessPiece == null) {
             System.out.println("No piece at that position, no valid moves");
@@ -574,8 +618,8 @@ public class ChessClient {
         int row1 = Character.getNumericValue(moveString.charAt(1));
         int row2 = Character.getNumericValue(moveString.charAt(3));
 
-        ChessPosition startPosition = new MyPosition(row1, col1);
-        ChessPosition endPosition = new MyPosition(row2, col2);
+        ChessPosition startPosition = MyPosition.of(row1, col1);
+        ChessPosition endPosition = MyPosition.of(row2, col2);
 
         if (promotion == null) {
             return new MyMove(startPosition, endPosition, null);
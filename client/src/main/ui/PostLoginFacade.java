@@ -2,7 +2,6 @@ package ui;
 
 import chess.*;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import models.AuthToken;
 import models.Game;
 import requests.CreateGameRequest;
@@ -25,12 +24,8 @@ public class PostLoginFacade {
 
     public boolean logout(AuthToken authToken) {
         try {
-            // Register the ChessGameTypeAdapter with Gson
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                    .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                    .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                    .create();
+            // Use the shared Gson, it already knows how to read and write the chess types
+            Gson gson = ChessJson.gson();
             String response = serverConnection.sendRequest("/session", null, "DELETE", authToken.authToken());
 
             // Parse the response to a SuccessResult object
@@ -46,12 +41,8 @@ public class PostLoginFacade {
 
     public int createGame(AuthToken authToken, String gameName) {
         try {
-            // Register the ChessGameTypeAdapter with Gson
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                    .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                    .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                    .create();
+            // Use the shared Gson, it already knows how to read and write the chess types
+            Gson gson = ChessJson.gson();
             CreateGameRequest request = new CreateGameRequest(gameName, authToken.authToken());
 
             // Assuming the endpoint for creating a game is something like "/games"
@@ -70,12 +61,8 @@ public class PostLoginFacade {
 
     public List<Game> listGames(AuthToken authToken) {
         try {
-            // Register the ChessGameTypeAdapter with Gson
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                    .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                    .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                    .create();
+            // Use the shared Gson, it already knows how to read and write the chess types
+            Gson gson = ChessJson.gson();
             ListGamesRequest request = new ListGamesRequest(authToken.authToken());
 
             // Send the GET request to the server
@@ -94,12 +81,8 @@ public class PostLoginFacade {
 
     public Game joinGame(AuthToken authToken, int gameID, String playerColor) {
         try {
-            // Register the ChessGameTypeAdapter with Gson
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                    .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                    .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                    .create();
+            // Use the shared Gson, it already knows how to read and write the chess types
+            Gson gson = ChessJson.gson();
             JoinGameRequest request = new JoinGameRequest(playerColor, gameID, authToken.authToken());
             String response = serverConnection.sendRequest("/game", request, "PUT", authToken.authToken());
 
@@ -121,12 +104,8 @@ public class PostLoginFacade {
 
     public Game joinObserver(AuthToken authToken, int gameID) {
         try {
-            // Register the ChessGameTypeAdapter with Gson
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                    .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                    .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                    .create();
+            // Use the shared Gson, it already knows how to read and write the chess types
+            Gson gson = ChessJson.gson();
             // Assuming observer joins without specifying color
             JoinGameRequest request = new JoinGameRequest(null, gameID, authToken.authToken());
             String response = serverConnection.sendRequest("/game", request, "PUT", authToken.authToken());
@@ -1,13 +1,13 @@
 package ui;
 
 import chess.*;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import models.AuthToken;
 import webSocketMessages.serverMessages.ErrorMessage;
 import webSocketMessages.serverMessages.LoadGameMessage;
+import webSocketMessages.serverMessages.MoveMessage;
 import webSocketMessages.serverMessages.NotificationMessage;
 import webSocketMessages.serverMessages.ServerMessage;
+import webSocketMessages.userCommands.UserGameCommand;
 
 import javax.websocket.*;
 import java.io.IOException;
@@ -20,6 +20,8 @@ public class WebSocketClient extends Endpoint {
     private final Session session;
     private final ChessClient client;
     private AuthToken authToken;
+    // games come back as FEN, a few dozen bytes instead of a few kilobytes of JSON
+    private final GameFormat gameFormat = GameFormat.FEN;
 
     public WebSocketClient(String url, ChessClient client) {
         try {
@@ -40,7 +42,14 @@ public class WebSocketClient extends Endpoint {
                                 LoadGameMessage loadGameMessage = deserializeFromJson(message, LoadGameMessage.class);
                                 if (loadGameMessage != null) {
                                     System.out.println("Load Game: ");
-                                    client.load(loadGameMessage.getGame());
+                                    client.load(loadGameMessage.getGame(), loadGameMessage.getSequence());
+                                }
+                                break;
+                            case MOVE:
+                                // Play the move on our own copy of the game
+                                MoveMessage moveMessage = deserializeFromJson(message, MoveMessage.class);
+                                if (moveMessage != null) {
+                                    client.applyMove(moveMessage);
                                 }
                                 break;
                             case ERROR:
@@ -62,14 +71,7 @@ public class WebSocketClient extends Endpoint {
                 }
 
                 private <T> T deserializeFromJson(String json, Class<T> clazz) {
-                    Gson gson = new GsonBuilder()
-                            .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                            .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                            .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                            .registerTypeAdapter(ChessMove.class, new ChessMoveTypeAdapter())
-                            .registerTypeAdapter(ChessPosition.class, new ChessPositionTypeAdapter())
-                            .create();
-                    return gson.fromJson(json, clazz);
+                    return ChessJson.fromJson(json, clazz);
                 }
             });
 
@@ -82,17 +84,17 @@ public class WebSocketClient extends Endpoint {
     public void onOpen(Session session, EndpointConfig config) {}
 
     private String serializeToJson(Object object) {
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                .registerTypeAdapter(ChessMove.class, new ChessMoveTypeAdapter())
-                .registerTypeAdapter(ChessPosition.class, new ChessPositionTypeAdapter())
-                .create();
-        return gson.toJson(object);
+        return ChessJson.toJson(object);
     }
 
     public void sendCommand(Object object) {
+        // the server remembers these from the join command and uses them for every update after
+        if (object instanceof UserGameCommand command) {
+            if (command.getGameFormat() == null) {
+                command.setGameFormat(gameFormat);
+            }
+            command.setMoveMessages(true);
+        }
         try {
             this.session.getBasicRemote().sendText(serializeToJson(object));
         } catch (IOException e) {
@@ -0,0 +1,42 @@
+package dao;
+
+import chess.ChessMove;
+import dataAccess.DataAccessException;
+import models.Game;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A DAOInterface that can write the changes to many games at once, in a single transaction.
+ * GroupCommitDAO collects game updates and hands them over in batches.
+ */
+public interface BatchingDAO extends DAOInterface {
+
+    /**
+     * A move to append to a game's move history
+     *
+     * @param move the move that was played
+     * @param ply  which half move it was, 1 for white's first move
+     */
+    record JournaledMove(ChessMove move, int ply) {}
+
+    /**
+     * Everything that happened to one game since the last batch
+     *
+     * @param game    the game as it is now
+     * @param updated whether updateGame was called, rather than only moves being recorded
+     * @param moves   the moves recorded, in the order they were played
+     */
+    record GameWrite(Game game, boolean updated, List<JournaledMove> moves) {}
+
+    /** Update:
+     * A method for writing the changes to several games together. Either all of them are written or,
+     * if this throws, none of them are. A game that no longer exists is skipped rather than failing the
+     * batch, since retrying the batch would only fail the same way again.
+     *
+     * @param writes at most one per game
+     * @throws DataAccessException
+     */
+    void writeBatch(Collection<GameWrite> writes) throws DataAccessException;
+}
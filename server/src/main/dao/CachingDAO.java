@@ -0,0 +1,389 @@
+package dao;
+
+import chess.ChessMove;
+import dataAccess.DataAccessException;
+import models.AuthToken;
+import models.Game;
+import models.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CachingDAO keeps the live Game objects in memory in front of another DAOInterface, usually SQLDAO.
+ * A game that is in the cache is read from memory and never from the database, so the websocket
+ * commands for a game being played don't load and deserialize the whole board on every move.
+ *
+ * Game updates are either written through to the database before updateGame returns, or, in
+ * WRITE_BEHIND mode, only marked dirty and written by a background flush shortly after. Either way the
+ * cache is the authoritative copy of the games it holds. Moves are handed on as moves, in WRITE_BEHIND
+ * mode queued up in the order they were played, so a database that journals them still sees every one.
+ * Everything other than games goes straight to the database.
+ *
+ * Games are evicted when they have been idle too long, finished games first, and when there are more than
+ * maxGames of them, least recently used first. A dirty game is written before it is evicted. clearAll
+ * empties the cache along with the database.
+ */
+public class CachingDAO implements DAOInterface {
+
+    /**
+     * When an updated game reaches the database
+     */
+    public enum WriteMode {
+        /** Before updateGame returns */
+        WRITE_THROUGH,
+        /** On the next background flush, updateGame only touches memory */
+        WRITE_BEHIND
+    }
+
+    public static final int DEFAULT_MAX_GAMES = 10_000;
+    public static final long DEFAULT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    public static final long DEFAULT_FLUSH_MILLIS = 200;
+
+    // a finished game is only kept this long after it was last used, nobody moves in it any more
+    private static final long FINISHED_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final DAOInterface database;
+    private final WriteMode writeMode;
+    private final int maxGames;
+    private final long idleNanos;
+    private final Map<Integer, Entry> games = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record PendingMove(ChessMove move, int ply) {}
+
+    // One cached game. dirty is set after game when it changes, and cleared before game is read to write it,
+    // so a change made during a write is written again by the next flush rather than lost. Moves waiting to
+    // be written are queued separately and only taken off the queue once they have been.
+    // In WRITE_BEHIND mode the flush writes snapshot rather than game: a copy taken when the change was made,
+    // since whoever is playing the game can carry on changing it while the flush is writing it.
+    private static final class Entry {
+        volatile Game game;
+        volatile Game snapshot;
+        volatile boolean dirty;
+        final Queue<PendingMove> moves = new ConcurrentLinkedQueue<>();
+        volatile long lastUsed = System.nanoTime();
+
+        Entry(Game game) {
+            this.game = game;
+        }
+
+        Game use() {
+            lastUsed = System.nanoTime();
+            return game;
+        }
+    }
+
+    /**
+     * A write-through cache of up to DEFAULT_MAX_GAMES games
+     */
+    public CachingDAO(DAOInterface database) {
+        this(database, WriteMode.WRITE_THROUGH, DEFAULT_MAX_GAMES, DEFAULT_IDLE_MILLIS, DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * @param database    where everything is stored
+     * @param writeMode   when updated games are written to the database
+     * @param maxGames    the most games kept in memory
+     * @param idleMillis  how long a game can go unused before it is evicted
+     * @param flushMillis how often dirty games are written and idle games evicted
+     */
+    public CachingDAO(DAOInterface database, WriteMode writeMode, int maxGames, long idleMillis, long flushMillis) {
+        this.database = database;
+        this.writeMode = writeMode;
+        this.maxGames = maxGames;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /** Games, served from the cache */
+
+    @Override
+    public Game createGame(String gameName) throws DataAccessException {
+        Game game = database.createGame(gameName);
+        games.put(game.gameID(), new Entry(game));
+        evictOverflow();
+        return game;
+    }
+
+    @Override
+    public Game findGame(int gameID) throws DataAccessException {
+        Entry entry = games.get(gameID);
+        if (entry != null) {
+            hits.increment();
+            return entry.use();
+        }
+        misses.increment();
+        Game game = database.findGame(gameID);
+        if (game == null) {
+            return null;
+        }
+        // someone else may have loaded or updated it meanwhile, theirs wins
+        Entry cached = games.computeIfAbsent(gameID, id -> new Entry(game));
+        evictOverflow();
+        return cached.use();
+    }
+
+    @Override
+    public Collection<Game> findAllGames() throws DataAccessException {
+        // the list comes from the database, with the cached games swapped in since they may be newer
+        Collection<Game> stored = database.findAllGames();
+        List<Game> all = new ArrayList<>(stored.size());
+        for (Game game : stored) {
+            Entry entry = games.get(game.gameID());
+            all.add((entry == null) ? game : entry.game);
+        }
+        return all;
+    }
+
+    @Override
+    public void updateGame(Game game) throws DataAccessException {
+        if (game == null) {
+            throw new DataAccessException("Updating game failed, no game given");
+        }
+        if (writeMode == WriteMode.WRITE_THROUGH) {
+            database.updateGame(game);
+            writes.increment();
+        }
+        Game snapshot = (writeMode == WriteMode.WRITE_BEHIND) ? game.copy() : null;
+        games.compute(game.gameID(), (id, entry) -> {
+            Entry updated = (entry == null) ? new Entry(game) : entry;
+            updated.game = game;
+            updated.snapshot = snapshot;
+            updated.dirty = (writeMode == WriteMode.WRITE_BEHIND);
+            updated.use();
+            return updated;
+        });
+    }
+
+    @Override
+    public void recordMove(Game game, ChessMove move, int ply) throws DataAccessException {
+        if (game == null) {
+            throw new DataAccessException("Recording move failed, no game given");
+        }
+        if (writeMode == WriteMode.WRITE_THROUGH) {
+            database.recordMove(game, move, ply);
+            writes.increment();
+        }
+        Game snapshot = (writeMode == WriteMode.WRITE_BEHIND) ? game.copy() : null;
+        games.compute(game.gameID(), (id, entry) -> {
+            Entry updated = (entry == null) ? new Entry(game) : entry;
+            updated.game = game;
+            if (writeMode == WriteMode.WRITE_BEHIND) {
+                // the snapshot goes in before the move, so a flush that sees the move writes a game that has it
+                updated.snapshot = snapshot;
+                updated.moves.add(new PendingMove(move, ply));
+            }
+            updated.use();
+            return updated;
+        });
+    }
+
+    @Override
+    public void setWhitePlayer(int gameID, String username) throws DataAccessException {
+        flush(gameID);
+        database.setWhitePlayer(gameID, username);
+        games.computeIfPresent(gameID, (id, entry) -> {
+            entry.game = entry.game.setWhite(username);
+            if (entry.snapshot != null) {
+                entry.snapshot = entry.snapshot.setWhite(username);
+            }
+            return entry;
+        });
+    }
+
+    @Override
+    public void setBlackPlayer(int gameID, String username) throws DataAccessException {
+        flush(gameID);
+        database.setBlackPlayer(gameID, username);
+        games.computeIfPresent(gameID, (id, entry) -> {
+            entry.game = entry.game.setBlack(username);
+            if (entry.snapshot != null) {
+                entry.snapshot = entry.snapshot.setBlack(username);
+            }
+            return entry;
+        });
+    }
+
+    @Override
+    public void clearAll() throws DataAccessException {
+        // pending writes are for games that are about to be gone
+        games.clear();
+        database.clearAll();
+    }
+
+
+    /** Cache upkeep */
+
+    /**
+     * Writes every dirty game to the database now
+     */
+    public void flush() throws DataAccessException {
+        for (Map.Entry<Integer, Entry> cached : games.entrySet()) {
+            write(cached.getValue());
+        }
+    }
+
+    /**
+     * Writes the outstanding changes and stops the background flush
+     */
+    public void close() throws DataAccessException {
+        maintenance.shutdown();
+        flush();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // games written to the database, by updateGame or by a flush
+    public long writes() {
+        return writes.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    private void flush(int gameID) throws DataAccessException {
+        Entry entry = games.get(gameID);
+        if (entry != null) {
+            write(entry);
+        }
+    }
+
+    private void write(Entry entry) throws DataAccessException {
+        // the moves first and in order, with the latest snapshot, which includes all of them
+        PendingMove pending;
+        while ((pending = entry.moves.peek()) != null) {
+            database.recordMove(entry.snapshot, pending.move(), pending.ply());
+            entry.moves.poll();
+            writes.increment();
+        }
+        if (!entry.dirty) {
+            return;
+        }
+        entry.dirty = false;
+        try {
+            database.updateGame(entry.snapshot);
+            writes.increment();
+        } catch (DataAccessException | RuntimeException e) {
+            entry.dirty = true;     // try again on the next flush
+            throw e;
+        }
+    }
+
+    // Runs on the maintenance thread: writes dirty games and evicts the ones that have gone idle
+    private void maintain() {
+        try {
+            long now = System.nanoTime();
+            for (Map.Entry<Integer, Entry> cached : games.entrySet()) {
+                Entry entry = cached.getValue();
+                write(entry);
+                long idle = now - entry.lastUsed;
+                boolean finished = entry.game.isGameOver() && idle > TimeUnit.MILLISECONDS.toNanos(FINISHED_IDLE_MILLIS);
+                if (finished || idle > idleNanos) {
+                    evict(cached.getKey(), entry);
+                }
+            }
+            evictOverflow();
+        } catch (DataAccessException | RuntimeException e) {
+            System.err.println("Error flushing cached games: " + e.getMessage());
+        }
+    }
+
+    // Evicts the least recently used games until there are at most maxGames, finished games going first
+    private void evictOverflow() throws DataAccessException {
+        int excess = games.size() - maxGames;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<Integer, Entry>> candidates = new ArrayList<>(games.entrySet());
+        candidates.sort(Comparator.comparing((Map.Entry<Integer, Entry> cached) -> !cached.getValue().game.isGameOver())
+                .thenComparingLong(cached -> cached.getValue().lastUsed));
+        for (int i = 0; i < excess && i < candidates.size(); i++) {
+            evict(candidates.get(i).getKey(), candidates.get(i).getValue());
+        }
+    }
+
+    private void evict(int gameID, Entry entry) throws DataAccessException {
+        write(entry);
+        // only if nothing changed it since it was written, otherwise it stays for the next flush
+        Entry remaining = games.computeIfPresent(gameID, (id, current) -> (current == entry && !entry.dirty && entry.moves.isEmpty()) ? null : current);
+        if (remaining == null) {
+            evictions.increment();
+        }
+    }
+
+
+    /** Everything else goes straight to the database */
+
+    @Override
+    public void addUser(User user) throws DataAccessException {
+        database.addUser(user);
+    }
+
+    @Override
+    public User getUser(String username) throws DataAccessException {
+        return database.getUser(username);
+    }
+
+    @Override
+    public void addObserver(int gameID, String username) throws DataAccessException {
+        database.addObserver(gameID, username);
+    }
+
+    @Override
+    public boolean getObserver(int gameID, String username) throws DataAccessException {
+        return database.getObserver(gameID, username);
+    }
+
+    @Override
+    public boolean removeObserver(int gameID, String username) throws DataAccessException {
+        return database.removeObserver(gameID, username);
+    }
+
+    @Override
+    public AuthToken createAuthToken(String username) throws DataAccessException {
+        return database.createAuthToken(username);
+    }
+
+    @Override
+    public AuthToken getAuthToken(String authToken) throws DataAccessException {
+        return database.getAuthToken(authToken);
+    }
+
+    @Override
+    public void deleteAuthToken(String authToken) throws DataAccessException {
+        database.deleteAuthToken(authToken);
+    }
+}
@@ -1,5 +1,6 @@
 package dao;
 
+import chess.ChessMove;
 import dataAccess.DataAccessException;
 import models.AuthToken;
 import models.Game;
@@ -99,6 +100,19 @@ public interface DAOInterface {
      */
     public void updateGame(Game game) throws DataAccessException;
 
+    /** Update:
+     * A method for saving a game that a move has just been played in. Implementations that keep a move
+     * history append the move rather than rewriting the whole game, the rest just save the game.
+     *
+     * @param game the game as it is after the move
+     * @param move the move that was played
+     * @param ply  which half move it was, 1 for white's first move
+     * @throws DataAccessException
+     */
+    default void recordMove(Game game, ChessMove move, int ply) throws DataAccessException {
+        updateGame(game);
+    }
+
     /**
      * A method for adding an observer with username to a given game with gameID
      *
@@ -0,0 +1,480 @@
+package dao;
+
+import chess.ChessMove;
+import dataAccess.DataAccessException;
+import models.AuthToken;
+import models.Game;
+import models.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GroupCommitDAO sits in front of a BatchingDAO and writes game updates in batches, on a background flusher
+ * thread, instead of one transaction per update.
+ *
+ * updateGame and recordMove only queue the change. Changes to the same game are coalesced: the batch
+ * holds the game as it is after the latest one, and every move recorded since the last batch. A batch
+ * is written as one transaction when maxBatch changes are waiting or maxDelayMillis after the first one
+ * arrived, whichever comes first. Reads see queued changes before they are written.
+ *
+ * The queue holds its own copy of each game, taken when the change is queued, so the caller can carry on
+ * playing its game while the flusher writes the copy. Reads of a queued game get a copy of it too.
+ *
+ * With ACK_ON_COMMIT each update returns once the batch holding it has committed, so many games moving
+ * at the same time share one commit. With ACK_ON_ENQUEUE updates return straight away.
+ *
+ * Crash recovery: a batch is a single transaction, so after a crash the database has either all of a
+ * batch or none of it, and findGame rebuilds a game from whatever was committed. Writing a batch again is
+ * harmless, so one that may or may not have committed is simply retried. If writing fails, or the
+ * flusher thread dies partway through a batch, the batch goes back on the queue, merged under any
+ * newer changes, and a new flusher picks it up. Nothing acknowledged with ACK_ON_COMMIT is lost;
+ * with ACK_ON_ENQUEUE a crash of the whole process loses the changes still queued.
+ *
+ * Everything other than game updates goes straight to the database.
+ */
+public class GroupCommitDAO implements DAOInterface {
+
+    /**
+     * When an update to a game returns
+     */
+    public enum Durability {
+        /** As soon as it is queued */
+        ACK_ON_ENQUEUE,
+        /** Once the batch it went out in has committed */
+        ACK_ON_COMMIT
+    }
+
+    public static final int DEFAULT_MAX_BATCH = 256;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 2;
+
+    // how long an ACK_ON_COMMIT update waits before giving up, the update itself stays queued
+    private static final long COMMIT_TIMEOUT_MILLIS = 10_000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 1_000;
+
+    private final BatchingDAO database;
+    private final Durability durability;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+
+    // everything below is guarded by lock, changed is signalled whenever something is queued or written
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private Map<Integer, Pending> queued = new LinkedHashMap<>();
+    private Map<Integer, Pending> writing = Map.of();   // the batch being written right now
+    private int queuedUpdates;      // before coalescing, for the size trigger
+    private long enqueued;          // updates numbered in the order they were queued
+    private long committed;         // every update up to this number is in the database
+    private long flushRequested;    // flush is waiting for every update up to this number
+    private String lastFailure;
+    private Thread flusher;
+    private boolean closed;
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder gamesWritten = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder restarts = new LongAdder();
+
+    // One game's changes waiting to be written
+    private static final class Pending {
+        Game game;
+        boolean updated;
+        final List<BatchingDAO.JournaledMove> moves = new ArrayList<>();
+        int count;      // updates coalesced into this
+
+        BatchingDAO.GameWrite toWrite() {
+            return new BatchingDAO.GameWrite(game, updated, List.copyOf(moves));
+        }
+    }
+
+    /**
+     * What the queue is doing, for the /metrics endpoint
+     *
+     * @param queued       updates waiting to be written
+     * @param updates      updates queued since the start
+     * @param coalesced    updates folded into an earlier update to the same game
+     * @param batches      batches committed
+     * @param gamesWritten games written by those batches
+     * @param failures     batches that failed and were queued again
+     * @param restarts     flusher threads started to replace one that died
+     */
+    public record Metrics(int queued, long updates, long coalesced, long batches, long gamesWritten,
+                          long failures, long restarts) {}
+
+    /**
+     * Batches of up to DEFAULT_MAX_BATCH updates, at most DEFAULT_MAX_DELAY_MILLIS after the first
+     */
+    public GroupCommitDAO(BatchingDAO database, Durability durability) {
+        this(database, durability, DEFAULT_MAX_BATCH, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * @param database       where everything is stored
+     * @param durability     when updates to games return
+     * @param maxBatch       updates that trigger a batch straight away
+     * @param maxDelayMillis how long the first update in a batch waits for others to join it
+     */
+    public GroupCommitDAO(BatchingDAO database, Durability durability, int maxBatch, long maxDelayMillis) {
+        if (maxBatch <= 0 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Bad batch limits, size " + maxBatch + " delay " + maxDelayMillis);
+        }
+        this.database = database;
+        this.durability = durability;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        lock.lock();
+        try {
+            startFlusher();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /** Game updates, queued */
+
+    @Override
+    public void updateGame(Game game) throws DataAccessException {
+        if (game == null) {
+            throw new DataAccessException("Updating game failed, no game given");
+        }
+        acknowledge(enqueue(game.copy(), true, null));
+    }
+
+    @Override
+    public void recordMove(Game game, ChessMove move, int ply) throws DataAccessException {
+        if (game == null) {
+            throw new DataAccessException("Recording move failed, no game given");
+        }
+        acknowledge(enqueue(game.copy(), false, new BatchingDAO.JournaledMove(move, ply)));
+    }
+
+    @Override
+    public Game findGame(int gameID) throws DataAccessException {
+        Game queuedGame = queuedGame(gameID);
+        return (queuedGame != null) ? queuedGame.copy() : database.findGame(gameID);
+    }
+
+    @Override
+    public Collection<Game> findAllGames() throws DataAccessException {
+        // the list comes from the database, with the queued games swapped in since they are newer
+        Collection<Game> stored = database.findAllGames();
+        List<Game> all = new ArrayList<>(stored.size());
+        for (Game game : stored) {
+            Game queuedGame = queuedGame(game.gameID());
+            all.add((queuedGame == null) ? game : queuedGame.copy());
+        }
+        return all;
+    }
+
+    @Override
+    public Game createGame(String gameName) throws DataAccessException {
+        return database.createGame(gameName);
+    }
+
+    @Override
+    public void setWhitePlayer(int gameID, String username) throws DataAccessException {
+        // a queued update would write the old players back over this
+        flush();
+        database.setWhitePlayer(gameID, username);
+    }
+
+    @Override
+    public void setBlackPlayer(int gameID, String username) throws DataAccessException {
+        flush();
+        database.setBlackPlayer(gameID, username);
+    }
+
+    @Override
+    public void clearAll() throws DataAccessException {
+        // queued updates are for games that are about to be gone, but a batch being written has to finish first
+        lock.lock();
+        try {
+            while (!writing.isEmpty()) {
+                changed.awaitUninterruptibly();
+            }
+            queued = new LinkedHashMap<>();
+            queuedUpdates = 0;
+            committed = enqueued;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        database.clearAll();
+    }
+
+
+    /** The queue */
+
+    /**
+     * Writes everything queued so far without waiting for the batch to fill, and waits until it is written
+     */
+    public void flush() throws DataAccessException {
+        long upTo;
+        lock.lock();
+        try {
+            upTo = enqueued;
+            flushRequested = Math.max(flushRequested, upTo);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        awaitCommit(upTo);
+    }
+
+    /**
+     * Writes everything still queued and stops the flusher
+     */
+    public void close() throws DataAccessException {
+        flush();
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Metrics metrics() {
+        lock.lock();
+        try {
+            return new Metrics(queuedUpdates, updates.sum(), coalesced.sum(), batches.sum(), gamesWritten.sum(),
+                    failures.sum(), restarts.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long enqueue(Game game, boolean updated, BatchingDAO.JournaledMove move) throws DataAccessException {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new DataAccessException("Game updates are closed");
+            }
+            Pending pending = queued.computeIfAbsent(game.gameID(), id -> new Pending());
+            if (pending.count > 0) {
+                coalesced.increment();
+            }
+            pending.game = game;
+            pending.updated |= updated;
+            if (move != null) {
+                pending.moves.add(move);
+            }
+            pending.count++;
+            queuedUpdates++;
+            updates.increment();
+            ensureFlusher();
+            changed.signalAll();
+            return ++enqueued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acknowledge(long update) throws DataAccessException {
+        if (durability == Durability.ACK_ON_COMMIT) {
+            awaitCommit(update);
+        }
+    }
+
+    private void awaitCommit(long update) throws DataAccessException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COMMIT_TIMEOUT_MILLIS);
+        lock.lock();
+        try {
+            while (committed < update) {
+                // checked every so often, in case the flusher died with nothing left to wake us
+                ensureFlusher();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new DataAccessException("Game update not written after " + COMMIT_TIMEOUT_MILLIS
+                            + " ms, it stays queued" + ((lastFailure == null) ? "" : ": " + lastFailure));
+                }
+                changed.awaitNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a game update to be written");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Game queuedGame(int gameID) {
+        lock.lock();
+        try {
+            Pending pending = queued.get(gameID);
+            if (pending == null) {
+                pending = writing.get(gameID);
+            }
+            return (pending == null) ? null : pending.game;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /** The flusher */
+
+    // Called with the lock held
+    private void ensureFlusher() {
+        if (!closed && !flusher.isAlive()) {
+            restarts.increment();
+            startFlusher();
+        }
+    }
+
+    // Called with the lock held
+    private void startFlusher() {
+        flusher = new Thread(this::flushLoop, "game-writes");
+        flusher.setDaemon(true);
+        flusher.setUncaughtExceptionHandler((thread, e) ->
+                System.err.println("Game write flusher died, it is restarted with the next update: " + e));
+        flusher.start();
+    }
+
+    private void flushLoop() {
+        long retryDelayMillis = 10;
+        while (true) {
+            Map<Integer, Pending> batch;
+            long upTo;
+            lock.lock();
+            try {
+                while (queued.isEmpty()) {
+                    if (closed) {
+                        return;
+                    }
+                    changed.await();
+                }
+                // give other games a moment to join the batch, unless it is already full or being flushed
+                long deadline = System.nanoTime() + maxDelayNanos;
+                long remaining;
+                while (queuedUpdates < maxBatch && flushRequested <= committed && !closed
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    changed.awaitNanos(remaining);
+                }
+                batch = queued;
+                upTo = enqueued;
+                writing = batch;
+                queued = new LinkedHashMap<>();
+                queuedUpdates = 0;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            boolean written = false;
+            try {
+                List<BatchingDAO.GameWrite> writes = new ArrayList<>(batch.size());
+                for (Pending pending : batch.values()) {
+                    writes.add(pending.toWrite());
+                }
+                database.writeBatch(writes);
+                written = true;
+            } catch (DataAccessException | RuntimeException e) {
+                lastFailure = e.getMessage();
+                System.err.println("Error writing game updates, retrying: " + e.getMessage());
+            } finally {
+                // runs even when the thread is dying, so the batch is never lost with it
+                finishBatch(batch, upTo, written);
+            }
+
+            if (written) {
+                retryDelayMillis = 10;
+            } else {
+                try {
+                    Thread.sleep(retryDelayMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                retryDelayMillis = Math.min(retryDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void finishBatch(Map<Integer, Pending> batch, long upTo, boolean written) {
+        lock.lock();
+        try {
+            writing = Map.of();
+            if (written) {
+                committed = Math.max(committed, upTo);
+                lastFailure = null;
+                batches.increment();
+                gamesWritten.add(batch.size());
+            } else {
+                failures.increment();
+                requeue(batch);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Puts a batch that wasn't written back on the queue, under anything newer queued for the same games
+    private void requeue(Map<Integer, Pending> batch) {
+        for (Map.Entry<Integer, Pending> failed : batch.entrySet()) {
+            Pending old = failed.getValue();
+            Pending newer = queued.putIfAbsent(failed.getKey(), old);
+            if (newer != null) {
+                newer.updated |= old.updated;
+                newer.moves.addAll(0, old.moves);
+                newer.count += old.count;
+            }
+            queuedUpdates += old.count;
+        }
+    }
+
+
+    /** Everything else goes straight to the database */
+
+    @Override
+    public void addUser(User user) throws DataAccessException {
+        database.addUser(user);
+    }
+
+    @Override
+    public User getUser(String username) throws DataAccessException {
+        return database.getUser(username);
+    }
+
+    @Override
+    public void addObserver(int gameID, String username) throws DataAccessException {
+        database.addObserver(gameID, username);
+    }
+
+    @Override
+    public boolean getObserver(int gameID, String username) throws DataAccessException {
+        return database.getObserver(gameID, username);
+    }
+
+    @Override
+    public boolean removeObserver(int gameID, String username) throws DataAccessException {
+        return database.removeObserver(gameID, username);
+    }
+
+    @Override
+    public AuthToken createAuthToken(String username) throws DataAccessException {
+        return database.createAuthToken(username);
+    }
+
+    @Override
+    public AuthToken getAuthToken(String authToken) throws DataAccessException {
+        return database.getAuthToken(authToken);
+    }
+
+    @Override
+    public void deleteAuthToken(String authToken) throws DataAccessException {
+        database.deleteAuthToken(authToken);
+    }
+}
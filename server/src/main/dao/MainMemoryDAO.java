@@ -2,12 +2,15 @@ package dao;
 
 import chess.ChessGame;
 import chess.MyGame;
+import chess.PackedGame;
 import dataAccess.DataAccessException;
 import models.AuthToken;
 import models.Game;
 import models.User;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /** Provide all data storage and retrieval operations needed by the server.
  * MainMemoryDAO will store the server’s data in main memory (RAM)
@@ -15,15 +18,27 @@ import java.util.*;
  */
 public class MainMemoryDAO implements DAOInterface {
 
-    private final Map<String, User> users = new HashMap<>();      // map of users which can be found by their username
-    private final Map<String, AuthToken> tokens = new HashMap<>();    // map of tokens associated with a String authToken
-    private final Map<Integer, Game> games = new HashMap<>();     // map of games associated by their gameID
-    private final Map<Integer, List<String>> observers = new HashMap<>(); // map of observers with int gameID and list of usernames
+    // Concurrent maps, since HTTP requests and the game actors all use the DAO at once
+    private final Map<String, User> users = new ConcurrentHashMap<>();      // map of users which can be found by their username
+    private final Map<String, AuthToken> tokens = new ConcurrentHashMap<>();    // map of tokens associated with a String authToken
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();     // map of games associated by their gameID
+    private final Map<Integer, List<String>> observers = new ConcurrentHashMap<>(); // map of observers with int gameID and list of usernames
+    private final Map<Integer, byte[]> packedGames = new ConcurrentHashMap<>(); // chess games packed by PackedGame, when packGames is set
 
+    private final boolean packGames;
     private int currentID;
     private int currentTokenNum;
 
     public MainMemoryDAO() {
+        this(false);
+    }
+
+    /**
+     * @param packGames when true each chess game is held as PackedGame bytes instead of as a live object,
+     *                  so findGame hands back a fresh copy the way SQLDAO does and a stored game is 39 bytes
+     */
+    public MainMemoryDAO(boolean packGames) {
+        this.packGames = packGames;
         currentID = 1000;
         currentTokenNum = 1000;
     }
@@ -33,6 +48,7 @@ public class MainMemoryDAO implements DAOInterface {
         users.clear();
         tokens.clear();
         games.clear();
+        packedGames.clear();
         observers.clear();
         currentID = 1000;
         currentTokenNum = 1000;
@@ -51,19 +67,19 @@ public class MainMemoryDAO implements DAOInterface {
     @Override
     public void setWhitePlayer(int gameID, String username) throws DataAccessException {
         Game oldGame = games.get(gameID);
-        Game newGame = new Game(oldGame.gameID(), username, oldGame.blackUsername(), oldGame.gameName(), oldGame.game());
+        Game newGame = oldGame.setWhite(username);
         games.put(gameID, newGame);
     }
 
     @Override
     public void setBlackPlayer(int gameID, String username) throws DataAccessException {
         Game oldGame = games.get(gameID);
-        Game newGame = new Game(oldGame.gameID(), oldGame.whiteUsername(), username, oldGame.gameName(), oldGame.game());
+        Game newGame = oldGame.setBlack(username);
         games.put(gameID, newGame);
     }
 
     @Override
-    public Game createGame(String gameName) {
+    public synchronized Game createGame(String gameName) {
         ChessGame chessGame = new MyGame(); // ChessGame interface implemented by MyGame class
 
         // Use currentID to set gameID and then increment it for the next game
@@ -71,29 +87,39 @@ public class MainMemoryDAO implements DAOInterface {
         Game newGame = new Game(gameID, null, null, gameName, chessGame);
 
         // Save the game to the games map
-        games.put(gameID, newGame);
+        store(newGame);
 
         return newGame;
     }
 
     @Override
     public Game findGame(int gameID) throws DataAccessException {
-        return games.get(gameID);
+        return restore(games.get(gameID));
     }
 
     @Override
     public Collection<Game> findAllGames() throws DataAccessException {
-        // Return an immutable collection to ensure it's not modified externally
-        return Collections.unmodifiableCollection(games.values());
+        if (!packGames) {
+            // Return an immutable collection to ensure it's not modified externally
+            return Collections.unmodifiableCollection(games.values());
+        }
+        List<Game> allGames = new ArrayList<>(games.size());
+        for (Game game : games.values()) {
+            allGames.add(restore(game));
+        }
+        return Collections.unmodifiableList(allGames);
     }
 
     public void updateGame(Game game) throws DataAccessException {
-        // fixme not done
+        if (game == null || !games.containsKey(game.gameID())) {
+            throw new DataAccessException("Updating game failed, no game found with ID " + (game == null ? null : game.gameID()));
+        }
+        store(game);
     }
 
     @Override
     public void addObserver(int gameID, String username) throws DataAccessException {
-        observers.computeIfAbsent(gameID, k -> new ArrayList<>()).add(username);
+        observers.computeIfAbsent(gameID, k -> new CopyOnWriteArrayList<>()).add(username);
     }
 
     @Override
@@ -109,7 +135,7 @@ public class MainMemoryDAO implements DAOInterface {
 
 
     @Override
-    public AuthToken createAuthToken(String username) throws DataAccessException {
+    public synchronized AuthToken createAuthToken(String username) throws DataAccessException {
         // Ensure the username exists in the users map
         if (!users.containsKey(username)) {
             throw new DataAccessException("Tried to create an authToken for a user that doesn't exist");
@@ -143,4 +169,25 @@ public class MainMemoryDAO implements DAOInterface {
             throw new DataAccessException("Tried to delete authToken that doesn't exist");
         }
     }
+
+
+    /** Helpers for holding games packed */
+
+    // Saves the game, with its chess game packed and left out of the record when packGames is set
+    private void store(Game game) {
+        if (packGames) {
+            packedGames.put(game.gameID(), PackedGame.encode(game.game()));
+            game = new Game(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), null, game.state());
+        }
+        games.put(game.gameID(), game);
+    }
+
+    // Puts a fresh copy of the chess game back into a stored record
+    private Game restore(Game stored) {
+        if (!packGames || stored == null) {
+            return stored;
+        }
+        ChessGame chessGame = PackedGame.decode(packedGames.get(stored.gameID()));
+        return new Game(stored.gameID(), stored.whiteUsername(), stored.blackUsername(), stored.gameName(), chessGame, stored.state());
+    }
 }
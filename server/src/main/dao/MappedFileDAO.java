@@ -0,0 +1,672 @@
+package dao;
+
+import chess.MyBoard;
+import chess.MyGame;
+import chess.PackedGame;
+import dataAccess.DataAccessException;
+import models.AuthToken;
+import models.Game;
+import models.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * MappedFileDAO stores everything in a few files in a local directory, for running without MySQL.
+ *
+ * Users, tokens, games and observers each have a RecordFile of fixed-size records, memory-mapped, so a
+ * game is read or written by copying its record and starting up doesn't parse anything. A game's record
+ * holds its players, name and state and the chess game packed by PackedGame, and sits at a position given
+ * by its gameID, so finding a game needs no index. The other files are indexed by key in memory, and the
+ * indexes are rebuilt from the records' keys when the files are opened.
+ *
+ * Every change is appended to a WriteAheadLog, and forced to the disk, before the mapped records are
+ * touched, so a crash at any point loses at most a change that hadn't been acknowledged. Opening the
+ * directory replays whatever is in the log. Once the log has grown past checkpointBytes the files are
+ * forced and the log is emptied, which also happens on close.
+ *
+ * Game updates given to writeBatch share a single log frame, and so a single force, which is why this sits
+ * behind GroupCommitDAO. Moves aren't journaled separately: the game's record is small enough to be
+ * rewritten whole, and the log only ever holds whole records.
+ */
+public class MappedFileDAO implements BatchingDAO {
+
+    public static final int FIRST_GAME_ID = 1;
+    public static final long DEFAULT_CHECKPOINT_BYTES = 4 * 1024 * 1024;
+
+    // The file numbers used in the log, in the order of the files array
+    private static final int USERS = 0;
+    private static final int TOKENS = 1;
+    private static final int GAMES = 2;
+    private static final int OBSERVERS = 3;
+    private static final String[] FILE_NAMES = {"users.dat", "tokens.dat", "games.dat", "observers.dat"};
+    private static final String LOG_NAME = "changes.log";
+
+    // The most bytes of UTF-8 kept for each string. A string is stored as a 2 byte length, -1 for null,
+    // followed by its bytes, in a field of the full width.
+    private static final int NAME_BYTES = 64;
+    private static final int PASSWORD_BYTES = 128;
+    private static final int EMAIL_BYTES = 128;
+    private static final int TOKEN_BYTES = 64;
+    private static final int GAME_NAME_BYTES = 64;
+
+    // Every record starts with a byte that is 1 while the record is in use, then:
+    //     users        username, password, email
+    //     tokens       authToken, username
+    //     games        state ordinal (1 byte), gameID (4 bytes), packed chess game, white, black, gameName
+    //     observers    gameID (4 bytes), username
+    private static final int USER_RECORD = 1 + field(NAME_BYTES) + field(PASSWORD_BYTES) + field(EMAIL_BYTES);
+    private static final int TOKEN_RECORD = 1 + field(TOKEN_BYTES) + field(NAME_BYTES);
+    private static final int PACKED_GAME_OFFSET = 6;
+    private static final int GAME_RECORD = PACKED_GAME_OFFSET + PackedGame.SIZE + 2 * field(NAME_BYTES) + field(GAME_NAME_BYTES);
+    private static final int OBSERVER_RECORD = 1 + 4 + field(NAME_BYTES);
+    private static final int[] RECORD_SIZES = {USER_RECORD, TOKEN_RECORD, GAME_RECORD, OBSERVER_RECORD};
+
+    private static final byte IN_USE = 1;
+
+    /**
+     * @param users          users stored
+     * @param tokens         authTokens stored
+     * @param games          games stored
+     * @param observers      observers stored
+     * @param logBytes       the size of the log since the last checkpoint
+     * @param logFrames      changes logged since the files were opened
+     * @param checkpoints    times the log has been emptied
+     * @param recoveredFrames changes replayed from the log when the files were opened
+     * @param openMillis     how long opening the files took, replaying the log included
+     */
+    public record Metrics(int users, int tokens, int games, int observers, long logBytes, long logFrames,
+                          long checkpoints, int recoveredFrames, double openMillis) {}
+
+    private record ObserverKey(int gameID, String username) {}
+
+    // The records of one file that are in use, by key, and the free ones below the last of them
+    private static final class Table<K> {
+        final Map<K, Integer> index = new HashMap<>();
+        final ArrayDeque<Integer> free = new ArrayDeque<>();
+        int end;    // one past the last record used
+
+        int nextFree() {
+            Integer record = free.peek();
+            return (record == null) ? end : record;
+        }
+
+        void claim(K key, int record) {
+            if (record == end) {
+                end++;
+            } else {
+                free.remove(record);
+            }
+            index.put(key, record);
+        }
+
+        void release(K key) {
+            Integer record = index.remove(key);
+            if (record != null) {
+                free.push(record);
+            }
+        }
+
+        void clear() {
+            index.clear();
+            free.clear();
+            end = 0;
+        }
+    }
+
+    private final RecordFile[] files = new RecordFile[FILE_NAMES.length];
+    private final WriteAheadLog log;
+    private final long checkpointBytes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Table<String> users = new Table<>();
+    private final Table<String> tokens = new Table<>();
+    private final Table<ObserverKey> observers = new Table<>();
+    private int gameCount;      // games are never removed one at a time, so this is also the next record
+
+    private final int recoveredFrames;
+    private final double openMillis;
+    private long checkpoints;
+
+    /**
+     * Opens the files in the directory, creating it and them if need be, forcing every change to the disk
+     * before it is acknowledged
+     */
+    public MappedFileDAO(Path directory) throws DataAccessException {
+        this(directory, true, DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    /**
+     * @param syncWrites      force each change to the disk before acknowledging it. Without it the server
+     *                        crashing loses nothing, but the machine crashing can lose the last changes.
+     * @param checkpointBytes how large the log can grow before the files are forced and it is emptied
+     */
+    public MappedFileDAO(Path directory, boolean syncWrites, long checkpointBytes) throws DataAccessException {
+        long start = System.nanoTime();
+        this.checkpointBytes = checkpointBytes;
+        WriteAheadLog opened = null;
+        try {
+            Files.createDirectories(directory);
+            for (int f = 0; f < files.length; f++) {
+                files[f] = new RecordFile(directory.resolve(FILE_NAMES[f]), RECORD_SIZES[f]);
+            }
+            opened = new WriteAheadLog(directory.resolve(LOG_NAME), syncWrites);
+
+            // redo whatever was logged since the last checkpoint, it may not all have reached the files
+            List<List<WriteAheadLog.Entry>> frames = opened.replay();
+            for (List<WriteAheadLog.Entry> frame : frames) {
+                for (WriteAheadLog.Entry entry : frame) {
+                    apply(entry);
+                }
+            }
+            recoveredFrames = frames.size();
+            if (opened.size() > 0) {
+                for (RecordFile file : files) {
+                    file.force();
+                }
+                opened.truncate();
+            }
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(opened);
+            throw new DataAccessException("Error opening the data files in " + directory + ": " + e.getMessage());
+        }
+        this.log = opened;
+
+        loadIndex(files[USERS], users, record -> getString(record, 1, NAME_BYTES));
+        loadIndex(files[TOKENS], tokens, record -> getString(record, 1, TOKEN_BYTES));
+        loadIndex(files[OBSERVERS], observers, record -> new ObserverKey(record.getInt(1), getString(record, 5, NAME_BYTES)));
+        RecordFile games = files[GAMES];
+        for (int record = 0; record < games.capacity(); record++) {
+            if (games.inUse(record)) {
+                gameCount = record + 1;
+            }
+        }
+        openMillis = (System.nanoTime() - start) / 1e6;
+    }
+
+
+    /** Users */
+
+    @Override
+    public void clearAll() throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            commit(List.of(new WriteAheadLog.Entry(0, WriteAheadLog.CLEAR_ALL, new byte[0])));
+            users.clear();
+            tokens.clear();
+            observers.clear();
+            gameCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addUser(User user) throws DataAccessException {
+        ByteBuffer record = newRecord(USER_RECORD);
+        putString(record, user.username(), NAME_BYTES);
+        putString(record, user.password(), PASSWORD_BYTES);
+        putString(record, user.email(), EMAIL_BYTES);
+
+        lock.writeLock().lock();
+        try {
+            if (users.index.containsKey(user.username())) {
+                throw new DataAccessException("Error adding user: " + user.username() + " already exists");
+            }
+            int slot = users.nextFree();
+            commit(List.of(new WriteAheadLog.Entry(USERS, slot, record.array())));
+            users.claim(user.username(), slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public User getUser(String username) throws DataAccessException {
+        lock.readLock().lock();
+        try {
+            Integer slot = users.index.get(username);
+            if (slot == null) {
+                return null;
+            }
+            ByteBuffer record = read(USERS, slot);
+            return new User(getString(record, 1, NAME_BYTES), getString(record, 1 + field(NAME_BYTES), PASSWORD_BYTES),
+                    getString(record, 1 + field(NAME_BYTES) + field(PASSWORD_BYTES), EMAIL_BYTES));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void setWhitePlayer(int gameID, String username) throws DataAccessException {
+        if (getUser(username) == null) {
+            throw new DataAccessException("User not found");
+        }
+        lock.writeLock().lock();
+        try {
+            updateGame(existingGame(gameID).setWhite(username));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void setBlackPlayer(int gameID, String username) throws DataAccessException {
+        if (getUser(username) == null) {
+            throw new DataAccessException("User not found");
+        }
+        lock.writeLock().lock();
+        try {
+            updateGame(existingGame(gameID).setBlack(username));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /** Games */
+
+    @Override
+    public Game createGame(String gameName) throws DataAccessException {
+        if (gameName == null) {
+            throw new DataAccessException("Did not pass give the game a name");
+        }
+        lock.writeLock().lock();
+        try {
+            Game game = new Game(FIRST_GAME_ID + gameCount, null, null, gameName, new MyGame());
+            commit(List.of(gameEntry(game)));
+            gameCount++;
+            return game;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Game findGame(int gameID) throws DataAccessException {
+        lock.readLock().lock();
+        try {
+            return readGame(gameID);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<Game> findAllGames() throws DataAccessException {
+        lock.readLock().lock();
+        try {
+            List<Game> games = new ArrayList<>(gameCount);
+            for (int record = 0; record < gameCount; record++) {
+                Game game = readGame(FIRST_GAME_ID + record);
+                if (game != null) {
+                    games.add(game);
+                }
+            }
+            return games;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateGame(Game game) throws DataAccessException {
+        if (game == null) {
+            throw new DataAccessException("Updating game failed, no game given");
+        }
+        WriteAheadLog.Entry entry = gameEntry(game);
+        lock.writeLock().lock();
+        try {
+            existingGame(game.gameID());
+            commit(List.of(entry));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void writeBatch(Collection<GameWrite> writes) throws DataAccessException {
+        // the moves are already in each game's record, which is written whole
+        List<GameWrite> batch = new ArrayList<>(writes);
+        List<WriteAheadLog.Entry> entries = new ArrayList<>(batch.size());
+        for (GameWrite write : batch) {
+            entries.add(gameEntry(write.game()));
+        }
+        lock.writeLock().lock();
+        try {
+            // a game cleared away since its changes were queued is skipped, the way SQLDAO's UPDATE matches
+            // no row, rather than failing the batch and every retry of it
+            List<WriteAheadLog.Entry> existing = new ArrayList<>(entries.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (gameExists(batch.get(i).game().gameID())) {
+                    existing.add(entries.get(i));
+                }
+            }
+            if (!existing.isEmpty()) {
+                commit(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /** Observers */
+
+    @Override
+    public void addObserver(int gameID, String username) throws DataAccessException {
+        if (getUser(username) == null) {
+            throw new DataAccessException("User not found");
+        }
+        ObserverKey key = new ObserverKey(gameID, username);
+        ByteBuffer record = newRecord(OBSERVER_RECORD);
+        record.putInt(gameID);
+        putString(record, username, NAME_BYTES);
+
+        lock.writeLock().lock();
+        try {
+            if (observers.index.containsKey(key)) {
+                return;     // already watching
+            }
+            int slot = observers.nextFree();
+            commit(List.of(new WriteAheadLog.Entry(OBSERVERS, slot, record.array())));
+            observers.claim(key, slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean getObserver(int gameID, String username) throws DataAccessException {
+        lock.readLock().lock();
+        try {
+            return observers.index.containsKey(new ObserverKey(gameID, username));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeObserver(int gameID, String username) throws DataAccessException {
+        if (getUser(username) == null) {
+            throw new DataAccessException("User not found");
+        }
+        ObserverKey key = new ObserverKey(gameID, username);
+        lock.writeLock().lock();
+        try {
+            Integer slot = observers.index.get(key);
+            if (slot == null) {
+                return false;
+            }
+            commit(List.of(new WriteAheadLog.Entry(OBSERVERS, slot, new byte[OBSERVER_RECORD])));
+            observers.release(key);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /** AuthTokens */
+
+    @Override
+    public AuthToken createAuthToken(String username) throws DataAccessException {
+        if (getUser(username) == null) {
+            throw new DataAccessException("User not found");
+        }
+        String token = UUID.randomUUID().toString();
+        ByteBuffer record = newRecord(TOKEN_RECORD);
+        putString(record, token, TOKEN_BYTES);
+        putString(record, username, NAME_BYTES);
+
+        lock.writeLock().lock();
+        try {
+            int slot = tokens.nextFree();
+            commit(List.of(new WriteAheadLog.Entry(TOKENS, slot, record.array())));
+            tokens.claim(token, slot);
+            return new AuthToken(token, username);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public AuthToken getAuthToken(String authToken) throws DataAccessException {
+        lock.readLock().lock();
+        try {
+            Integer slot = tokens.index.get(authToken);
+            if (slot == null) {
+                return null;
+            }
+            return new AuthToken(authToken, getString(read(TOKENS, slot), 1 + field(TOKEN_BYTES), NAME_BYTES));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAuthToken(String authToken) throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            Integer slot = tokens.index.get(authToken);
+            if (slot == null) {
+                throw new DataAccessException("Auth token not found: " + authToken);
+            }
+            commit(List.of(new WriteAheadLog.Entry(TOKENS, slot, new byte[TOKEN_RECORD])));
+            tokens.release(authToken);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /** Checkpoints */
+
+    /**
+     * Forces the files to the disk and empties the log
+     */
+    public void checkpoint() throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            for (RecordFile file : files) {
+                file.force();
+            }
+            log.truncate();
+            checkpoints++;
+        } catch (IOException | RuntimeException e) {
+            throw new DataAccessException("Error writing the data files: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checkpoints and closes the files
+     */
+    public void close() throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            checkpoint();
+            for (RecordFile file : files) {
+                file.close();
+            }
+            log.close();
+        } catch (IOException e) {
+            throw new DataAccessException("Error closing the data files: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Metrics metrics() {
+        lock.readLock().lock();
+        try {
+            return new Metrics(users.index.size(), tokens.index.size(), gameCount, observers.index.size(), log.size(),
+                    log.frames(), checkpoints, recoveredFrames, openMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /** Helpers for the records, the callers hold the lock */
+
+    // Logs the changes and then makes them, checkpointing if the log has grown large enough
+    private void commit(List<WriteAheadLog.Entry> entries) throws DataAccessException {
+        try {
+            log.append(entries);
+        } catch (IOException e) {
+            throw new DataAccessException("Error writing to the log: " + e.getMessage());
+        }
+        try {
+            for (WriteAheadLog.Entry entry : entries) {
+                apply(entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            // it is in the log, so it will be there after a restart, but this copy can't be trusted until then
+            throw new DataAccessException("Error writing the data files, restart to recover: " + e.getMessage());
+        }
+        if (log.size() > checkpointBytes) {
+            checkpoint();
+        }
+    }
+
+    private void apply(WriteAheadLog.Entry entry) throws IOException {
+        if (entry.record() == WriteAheadLog.CLEAR_ALL) {
+            for (RecordFile file : files) {
+                file.clear();
+            }
+        } else {
+            files[entry.file()].write(entry.record(), entry.image());
+        }
+    }
+
+    private <K> void loadIndex(RecordFile file, Table<K> table, Function<ByteBuffer, K> keyOf) {
+        byte[] image = new byte[file.recordSize()];
+        for (int record = 0; record < file.capacity(); record++) {
+            if (file.inUse(record)) {
+                file.read(record, image);
+                table.index.put(keyOf.apply(ByteBuffer.wrap(image)), record);
+                table.end = record + 1;
+            }
+        }
+        for (int record = table.end - 1; record >= 0; record--) {
+            if (!file.inUse(record)) {
+                table.free.push(record);
+            }
+        }
+    }
+
+    private ByteBuffer read(int file, int record) {
+        byte[] image = new byte[RECORD_SIZES[file]];
+        files[file].read(record, image);
+        return ByteBuffer.wrap(image);
+    }
+
+    // The game, or null if there isn't one with this ID
+    private Game readGame(int gameID) {
+        int slot = gameID - FIRST_GAME_ID;
+        if (slot < 0 || slot >= gameCount) {
+            return null;
+        }
+        ByteBuffer record = read(GAMES, slot);
+        if (record.get(0) != IN_USE) {
+            return null;
+        }
+        Game.GameState state = Game.GameState.values()[record.get(1)];
+        int offset = PACKED_GAME_OFFSET + PackedGame.SIZE;
+        String white = getString(record, offset, NAME_BYTES);
+        String black = getString(record, offset + field(NAME_BYTES), NAME_BYTES);
+        String gameName = getString(record, offset + 2 * field(NAME_BYTES), GAME_NAME_BYTES);
+        return new Game(record.getInt(2), white, black, gameName,
+                PackedGame.decode(record.array(), PACKED_GAME_OFFSET, new MyBoard()), state);
+    }
+
+    private boolean gameExists(int gameID) {
+        int slot = gameID - FIRST_GAME_ID;
+        return slot >= 0 && slot < gameCount && files[GAMES].inUse(slot);
+    }
+
+    private Game existingGame(int gameID) throws DataAccessException {
+        Game game = readGame(gameID);
+        if (game == null) {
+            throw new DataAccessException("No game found with ID " + gameID);
+        }
+        return game;
+    }
+
+    private static WriteAheadLog.Entry gameEntry(Game game) throws DataAccessException {
+        ByteBuffer record = newRecord(GAME_RECORD);
+        record.put((byte) game.state().ordinal());
+        record.putInt(game.gameID());
+        PackedGame.encode(game.game(), record.array(), PACKED_GAME_OFFSET);
+        record.position(PACKED_GAME_OFFSET + PackedGame.SIZE);
+        putString(record, game.whiteUsername(), NAME_BYTES);
+        putString(record, game.blackUsername(), NAME_BYTES);
+        putString(record, game.gameName(), GAME_NAME_BYTES);
+        return new WriteAheadLog.Entry(GAMES, game.gameID() - FIRST_GAME_ID, record.array());
+    }
+
+    // A blank record marked in use, positioned after the flag
+    private static ByteBuffer newRecord(int size) {
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.put(IN_USE);
+        return record;
+    }
+
+    private static int field(int maxBytes) {
+        return 2 + maxBytes;
+    }
+
+    private static void putString(ByteBuffer record, String value, int maxBytes) throws DataAccessException {
+        int end = record.position() + field(maxBytes);
+        if (value == null) {
+            record.putShort((short) -1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > maxBytes) {
+                throw new DataAccessException("\"" + value + "\" is too long to store, the limit is " + maxBytes + " bytes");
+            }
+            record.putShort((short) bytes.length);
+            record.put(bytes);
+        }
+        record.position(end);
+    }
+
+    private static String getString(ByteBuffer record, int offset, int maxBytes) {
+        int length = record.getShort(offset);
+        if (length < 0) {
+            return null;
+        }
+        return new String(record.array(), offset + 2, Math.min(length, maxBytes), StandardCharsets.UTF_8);
+    }
+
+    // After opening failed part way, closes whatever was opened
+    private void closeQuietly(WriteAheadLog opened) {
+        List<Closeable> toClose = new ArrayList<>(Arrays.asList(files));
+        toClose.add(opened);
+        for (Closeable closeable : toClose) {
+            try {
+                if (closeable != null) {
+                    closeable.close();
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
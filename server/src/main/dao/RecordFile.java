@@ -0,0 +1,151 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * RecordFile is a file of fixed-size records, memory-mapped so that reading or writing a record is a copy
+ * to or from memory and opening the file doesn't read any of it.
+ *
+ * The file starts with a small header, the magic number and the record size, followed by the records
+ * one after another, so record k is at HEADER_SIZE + k * recordSize. The first byte of a record is
+ * non-zero when the record is in use, and a record of all zeros is a free one, so the part of the file
+ * past the last record written reads back as free records. The file grows by doubling, and the mapping is
+ * replaced when it does.
+ *
+ * RecordFile doesn't lock anything. Records can be read from several threads at once, but writing,
+ * growing and clearing need the caller to keep everyone else out.
+ */
+public class RecordFile implements Closeable {
+
+    public static final int HEADER_SIZE = 16;
+
+    private static final int MAGIC = 0x43484652;    // "CHFR"
+    private static final int MIN_RECORDS = 64;
+    private static final byte[] ZEROS = new byte[8192];
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int recordSize;
+    private volatile MappedByteBuffer buffer;
+    private volatile int capacity;      // records mapped
+
+    /**
+     * Opens the file, creating it if it doesn't exist
+     *
+     * @param recordSize the size of every record, in bytes
+     * @throws IOException if the file can't be mapped or holds records of another size
+     */
+    public RecordFile(Path path, int recordSize) throws IOException {
+        this.path = path;
+        this.recordSize = recordSize;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                map(MIN_RECORDS);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, recordSize);
+            } else {
+                map((int) Math.max(MIN_RECORDS, (size - HEADER_SIZE) / recordSize));
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != recordSize) {
+                    throw new IOException(path + " is not a file of " + recordSize + " byte records");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int recordSize() {
+        return recordSize;
+    }
+
+    // how many records there is room for without growing the file
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean inUse(int record) {
+        MappedByteBuffer mapped = buffer;
+        return record >= 0 && record < mapped.capacity() / recordSize && mapped.get(offset(record)) != 0;
+    }
+
+    /**
+     * Copies a record into the array, which has to be at least recordSize long. Past the end of the file
+     * it is zeroed, the same as a free record.
+     */
+    public void read(int record, byte[] into) {
+        MappedByteBuffer mapped = buffer;
+        if (record < 0 || record >= mapped.capacity() / recordSize) {
+            Arrays.fill(into, 0, recordSize, (byte) 0);
+            return;
+        }
+        mapped.get(offset(record), into, 0, recordSize);
+    }
+
+    /**
+     * Replaces a record, growing the file if it is past the end. An image of all zeros frees it.
+     */
+    public void write(int record, byte[] image) throws IOException {
+        if (image.length != recordSize) {
+            throw new IllegalArgumentException("Record image is " + image.length + " bytes, not " + recordSize);
+        }
+        if (record >= capacity) {
+            int grown = capacity;
+            while (grown <= record) {
+                grown *= 2;
+            }
+            map(grown);
+        }
+        buffer.put(offset(record), image);
+    }
+
+    /**
+     * Frees every record, without shrinking the file
+     */
+    public void clear() {
+        long end = HEADER_SIZE + (long) capacity * recordSize;
+        for (long at = HEADER_SIZE; at < end; at += ZEROS.length) {
+            buffer.put((int) at, ZEROS, 0, (int) Math.min(ZEROS.length, end - at));
+        }
+    }
+
+    /**
+     * Writes the changed pages out to the disk
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int offset(int record) {
+        return HEADER_SIZE + record * recordSize;
+    }
+
+    // Maps room for this many records, which extends the file if it is shorter. The old mapping, if there
+    // was one, stays valid until it is garbage collected, Java has no way to unmap it sooner.
+    private void map(int records) throws IOException {
+        long size = HEADER_SIZE + (long) records * recordSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(path + " would grow past 2 GB");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        capacity = records;
+    }
+}
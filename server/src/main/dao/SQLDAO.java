@@ -1,29 +1,96 @@
 package dao;
 
 import chess.*;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import dataAccess.DataAccessException;
 import dataAccess.Database;
 import models.AuthToken;
 import models.Game;
 import models.User;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
-public class SQLDAO implements DAOInterface {
+/**
+ * SQLDAO stores everything in MySQL.
+ *
+ * Games can be stored in two ways. By default every change, moves included, rewrites the game's row. With
+ * a snapshot interval the moves are journaled instead: each move is appended to the moves table as a
+ * couple of bytes, and the row in the games table is only rewritten every snapshotInterval half moves
+ * and when the game ends or otherwise changes. The row records which half move it was saved at, its
+ * snapshotPly, and findGame replays the moves after that onto it. The moves table doubles as the game's
+ * full move history, see findMoves.
+ */
+public class SQLDAO implements BatchingDAO {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 20;
+
+    private static final String UPDATE_GAME_SQL = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ?, packedGame = ?, gameState = ?, snapshotPly = ? WHERE gameID = ?";
+    // a retry of the same move, or the move being recorded again by a flush, replaces it
+    private static final String INSERT_MOVE_SQL = "INSERT INTO moves (gameID, ply, move) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE move = VALUES(move)";
 
     private final Database database;
+    private final GameFormat gameFormat;
+    private final int snapshotInterval;     // 0 when moves aren't journaled
 
+    /**
+     * Stores games as JSON, the format every version of the server reads. Pass GameFormat.FEN to keep each
+     * games row down to a few dozen bytes.
+     */
     public SQLDAO() throws DataAccessException {
-        database = new Database();
+        this(GameFormat.JSON);
+    }
+
+    /**
+     * @param gameFormat how games are written to the games table. JSON and FEN go in the game column,
+     *                   PACKED goes in the packedGame column. Every format is read back, so switching
+     *                   formats doesn't need the existing rows converted.
+     */
+    public SQLDAO(GameFormat gameFormat) throws DataAccessException {
+        this(gameFormat, new Database(), 0);
+    }
+
+    /**
+     * @param maxConnections the most MySQL connections open at once, sized for the database rather than for
+     *                       the server's threads
+     */
+    public SQLDAO(GameFormat gameFormat, int maxConnections) throws DataAccessException {
+        this(gameFormat, new Database(maxConnections), 0);
+    }
+
+    /**
+     * @param snapshotInterval journal moves to the moves table and only rewrite a game's row every this many
+     *                         half moves, or 0 to rewrite the row on every move
+     */
+    public SQLDAO(GameFormat gameFormat, int maxConnections, int snapshotInterval) throws DataAccessException {
+        this(gameFormat, new Database(maxConnections), snapshotInterval);
+    }
+
+    private SQLDAO(GameFormat gameFormat, Database database, int snapshotInterval) throws DataAccessException {
+        if (snapshotInterval < 0) {
+            throw new IllegalArgumentException("Bad snapshot interval " + snapshotInterval);
+        }
+        this.gameFormat = gameFormat;
+        this.database = database;
+        this.snapshotInterval = snapshotInterval;
         configureDatabase();
+        database.warmUp();
+    }
+
+    /**
+     * What the connection pool is doing: connections in use and idle, callers waiting, and how long they waited
+     */
+    public Database.Metrics connectionMetrics() {
+        return database.metrics();
     }
 
     void configureDatabase() throws DataAccessException {
@@ -56,9 +123,21 @@ public class SQLDAO implements DAOInterface {
                 blackUsername VARCHAR(255) DEFAULT NULL,
                 gameName VARCHAR(255) NOT NULL,
                 game longtext NOT NULL,
+                packedGame BLOB DEFAULT NULL,
+                gameState VARCHAR(16) NOT NULL DEFAULT 'UNDECIDED',
+                snapshotPly INT NOT NULL DEFAULT 0,
                 PRIMARY KEY (gameID)
             )""";
 
+            // one row per half move, the move packed into the low 15 bits the way chess.Move encodes it
+            var createMovesTable = """
+            CREATE TABLE IF NOT EXISTS moves (
+                gameID INT NOT NULL,
+                ply INT NOT NULL,
+                move SMALLINT UNSIGNED NOT NULL,
+                PRIMARY KEY (gameID, ply)
+            )""";
+
             var createObserversTable = """
             CREATE TABLE IF NOT EXISTS observers (
                 gameID INT NOT NULL,
@@ -76,6 +155,13 @@ public class SQLDAO implements DAOInterface {
             try (var createTableStatement = conn.prepareStatement(createGamesTable)) {
                 createTableStatement.executeUpdate();
             }
+            // games tables made before packedGame, gameState or snapshotPly existed get the columns added
+            addColumnIfMissing(conn, "games", "packedGame", "BLOB DEFAULT NULL");
+            addColumnIfMissing(conn, "games", "gameState", "VARCHAR(16) NOT NULL DEFAULT 'UNDECIDED'");
+            addColumnIfMissing(conn, "games", "snapshotPly", "INT NOT NULL DEFAULT 0");
+            try (var createTableStatement = conn.prepareStatement(createMovesTable)) {
+                createTableStatement.executeUpdate();
+            }
             try (var createTableStatement = conn.prepareStatement(createObserversTable)) {
                 createTableStatement.executeUpdate();
             } finally {
@@ -95,6 +181,7 @@ public class SQLDAO implements DAOInterface {
             var truncateTokens = "DELETE FROM tokens";          //                     "
             var truncateGames = "DELETE FROM games";            //                     "
             var truncateObservers = "DELETE FROM observers";    //                     "
+            var truncateMoves = "DELETE FROM moves";            //                     "
 
             try (var statement = conn.prepareStatement(truncateUsers)) {
                 statement.executeUpdate();
@@ -108,6 +195,9 @@ public class SQLDAO implements DAOInterface {
             try (var statement = conn.prepareStatement(truncateObservers)) {
                 statement.executeUpdate();
             }
+            try (var statement = conn.prepareStatement(truncateMoves)) {
+                statement.executeUpdate();
+            }
         } catch (SQLException e) {
             throw new DataAccessException("Error clearing all tables: " + e.getMessage());
         } finally {
@@ -119,7 +209,8 @@ public class SQLDAO implements DAOInterface {
     public void addUser(User user) throws DataAccessException {
         String insertUserSQL = "INSERT INTO users (username, password, email) VALUES (?, ?, ?)";
         var conn = database.getConnection();
-        try (var statement = conn.prepareStatement(insertUserSQL)) {
+        try {
+            var statement = database.prepareStatement(conn, insertUserSQL);
             statement.setString(1, user.username());
             statement.setString(2, user.password());
             statement.setString(3, user.email());
@@ -135,7 +226,8 @@ public class SQLDAO implements DAOInterface {
     public User getUser(String username) throws DataAccessException {
         String getUserSQL = "SELECT * FROM users WHERE username = ?";
         var conn = database.getConnection();
-        try (var statement = conn.prepareStatement(getUserSQL)) {
+        try {
+            var statement = database.prepareStatement(conn, getUserSQL);
             statement.setString(1, username);
             try (var resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
@@ -158,8 +250,8 @@ public class SQLDAO implements DAOInterface {
         }
         String sql = "UPDATE games SET whiteUsername = ? WHERE gameID = ?";
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql)) {
-
+        try {
+            var stmt = database.prepareStatement(conn, sql);
             stmt.setString(1, username);
             stmt.setInt(2, gameID);
             stmt.executeUpdate();
@@ -178,8 +270,8 @@ public class SQLDAO implements DAOInterface {
         }
         String sql = "UPDATE games SET blackUsername = ? WHERE gameID = ?";
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql)) {
-
+        try {
+            var stmt = database.prepareStatement(conn, sql);
             stmt.setString(1, username);
             stmt.setInt(2, gameID);
             stmt.executeUpdate();
@@ -197,18 +289,17 @@ public class SQLDAO implements DAOInterface {
             throw new DataAccessException("Did not pass give the game a name");
         }
         ChessGame chessGame = new MyGame(); // Create a new ChessGame instance
-        Gson gson = new GsonBuilder().create(); // Serialize the object
-        String json = gson.toJson(chessGame);
 
-        String sql = "INSERT INTO games (whiteUsername, blackUsername, gameName, game) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO games (whiteUsername, blackUsername, gameName, game, packedGame) VALUES (?, ?, ?, ?, ?)";
 
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try {
+            var stmt = database.prepareStatement(conn, sql, Statement.RETURN_GENERATED_KEYS);
             // Set whiteUsername and blackUsername to null initially
             stmt.setNull(1, Types.VARCHAR);  // whiteUsername
             stmt.setNull(2, Types.VARCHAR);  // blackUsername
             stmt.setString(3, gameName);    // gameName
-            stmt.setString(4, json);        // ChessGame game as a json string
+            setGameColumns(stmt, 4, chessGame);
             stmt.executeUpdate();
 
             try (var generatedKeys = stmt.getGeneratedKeys()) {
@@ -231,25 +322,24 @@ public class SQLDAO implements DAOInterface {
     public Game findGame(int gameID) throws DataAccessException {
         String sql = "SELECT * FROM games WHERE gameID = ?";
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql)) {
+        try {
+            var stmt = database.prepareStatement(conn, sql);
             stmt.setInt(1, gameID);
             try (var rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    String json = rs.getString("game");
-                    // Register the ChessGameTypeAdapter with Gson
-                    Gson gson = new GsonBuilder()
-                            .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                            .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                            .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                            .create();
-                    ChessGame chessGame = gson.fromJson(json, MyGame.class); // Assuming MyGame implements ChessGame
+                    // Rows can hold any format, whichever one the game was last saved in
+                    ChessGame chessGame = readGameColumns(rs);
+                    restorePly(chessGame, rs.getInt("snapshotPly"));
+                    // plus the moves journaled since it was saved
+                    replayMoves(conn, gameID, rs.getInt("snapshotPly"), chessGame);
 
                     return new Game(
                             gameID,
                             rs.getString("whiteUsername"),
                             rs.getString("blackUsername"),
                             rs.getString("gameName"),
-                            chessGame);
+                            chessGame,
+                            readGameState(rs));
                 } else {
                     return null; // Game not found
                 }
@@ -266,32 +356,40 @@ public class SQLDAO implements DAOInterface {
     @Override
     public List<Game> findAllGames() throws DataAccessException {
         List<Game> games = new ArrayList<>();
+        Map<Integer, ChessGame> chessGames = new HashMap<>();
         String sql = "SELECT * FROM games";
+        // the journaled moves of every game since its row was saved, in one go
+        String tailSQL = "SELECT m.gameID, m.ply, m.move FROM moves m JOIN games g ON m.gameID = g.gameID "
+                + "WHERE m.ply > g.snapshotPly ORDER BY m.gameID, m.ply";
 
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql)) {
-            ResultSet rs = stmt.executeQuery();
-
-            // Register the ChessGameTypeAdapter with Gson
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                    .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                    .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                    .create();
-
-            while (rs.next()) {
-                int gameID = rs.getInt("gameID");
-                String whiteUsername = rs.getString("whiteUsername");
-                String blackUsername = rs.getString("blackUsername");
-                String gameName = rs.getString("gameName");
-                String json = rs.getString("game");
-
-                // Deserialize the JSON string back into a ChessGame object
-                ChessGame chessGame = gson.fromJson(json, ChessGame.class);
-
-                // Create a Game object and add it to the list
-                Game game = new Game(gameID, whiteUsername, blackUsername, gameName, chessGame);
-                games.add(game);
+        try {
+            var stmt = database.prepareStatement(conn, sql);
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int gameID = rs.getInt("gameID");
+                    String whiteUsername = rs.getString("whiteUsername");
+                    String blackUsername = rs.getString("blackUsername");
+                    String gameName = rs.getString("gameName");
+
+                    // Read the stored game back into a ChessGame object
+                    ChessGame chessGame = readGameColumns(rs);
+                    restorePly(chessGame, rs.getInt("snapshotPly"));
+
+                    // Create a Game object and add it to the list
+                    Game game = new Game(gameID, whiteUsername, blackUsername, gameName, chessGame, readGameState(rs));
+                    games.add(game);
+                    chessGames.put(gameID, chessGame);
+                }
+            }
+            var tailStmt = database.prepareStatement(conn, tailSQL);
+            try (var rs = tailStmt.executeQuery()) {
+                while (rs.next()) {
+                    ChessGame chessGame = chessGames.get(rs.getInt("gameID"));
+                    if (chessGame != null) {
+                        replayMove(chessGame, rs.getInt("gameID"), rs.getInt("ply"), rs.getInt("move"));
+                    }
+                }
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error retrieving all games: " + e.getMessage());
@@ -307,24 +405,10 @@ public class SQLDAO implements DAOInterface {
             throw new DataAccessException("Invalid game object or game ID");
         }
 
-        // Serialize the ChessGame object to JSON
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                .create();
-        String json = gson.toJson(game.game());
-
-        // SQL query to update the game
-        String sql = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ? WHERE gameID = ?";
-
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, game.whiteUsername());
-            stmt.setString(2, game.blackUsername());
-            stmt.setString(3, game.gameName());
-            stmt.setString(4, json);
-            stmt.setInt(5, game.gameID());
+        try {
+            var stmt = database.prepareStatement(conn, UPDATE_GAME_SQL);
+            setGameRow(stmt, game);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -338,6 +422,101 @@ public class SQLDAO implements DAOInterface {
     }
 
 
+    @Override
+    public void recordMove(Game game, ChessMove move, int ply) throws DataAccessException {
+        if (snapshotInterval == 0) {
+            updateGame(game);
+            return;
+        }
+        var conn = database.getConnection();
+        try {
+            var stmt = database.prepareStatement(conn, INSERT_MOVE_SQL);
+            setMoveRow(stmt, game.gameID(), move, ply);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error recording move: " + e.getMessage());
+        } finally {
+            database.returnConnection(conn);
+        }
+        // the row is rewritten now and then so findGame doesn't replay too much, and when the move ended the game
+        if (ply % snapshotInterval == 0 || game.isGameOver()) {
+            updateGame(game);
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction, the journaled moves with one batched insert and the games rows
+     * that need rewriting with one batched update. The same rules as updateGame and recordMove decide
+     * which rows are rewritten. A game that no longer exists is skipped rather than failing the batch.
+     */
+    @Override
+    public void writeBatch(Collection<GameWrite> writes) throws DataAccessException {
+        var conn = database.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            var moveStmt = database.prepareStatement(conn, INSERT_MOVE_SQL);
+            var gameStmt = database.prepareStatement(conn, UPDATE_GAME_SQL);
+            for (GameWrite write : writes) {
+                Game game = write.game();
+                boolean rewrite = write.updated() || game.isGameOver() || (snapshotInterval == 0 && !write.moves().isEmpty());
+                if (snapshotInterval > 0) {
+                    for (JournaledMove move : write.moves()) {
+                        setMoveRow(moveStmt, game.gameID(), move.move(), move.ply());
+                        moveStmt.addBatch();
+                        rewrite |= (move.ply() % snapshotInterval == 0);
+                    }
+                }
+                if (rewrite) {
+                    setGameRow(gameStmt, game);
+                    gameStmt.addBatch();
+                }
+            }
+            moveStmt.executeBatch();
+            gameStmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackFailed) {
+                // returnConnection rolls back or throws the connection away
+            }
+            throw new DataAccessException("Error writing game batch: " + e.getMessage());
+        } finally {
+            // turns auto commit back on for the next borrower
+            database.returnConnection(conn);
+        }
+    }
+
+    /**
+     * The moves journaled for a game, in the order they were played. Only complete from the start when
+     * the game has been played with moves journaled all along.
+     *
+     * @param gameID
+     * @return the moves, empty if none were journaled
+     * @throws DataAccessException
+     */
+    public List<ChessMove> findMoves(int gameID) throws DataAccessException {
+        String sql = "SELECT move FROM moves WHERE gameID = ? ORDER BY ply";
+        List<ChessMove> moves = new ArrayList<>();
+
+        var conn = database.getConnection();
+        try {
+            var stmt = database.prepareStatement(conn, sql);
+            stmt.setInt(1, gameID);
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(Move.toChessMove(rs.getInt("move")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading moves: " + e.getMessage());
+        } finally {
+            database.returnConnection(conn);
+        }
+        return moves;
+    }
+
+
     @Override
     public void addObserver(int gameID, String username) throws DataAccessException {
         if (this.getUser(username) == null) {
@@ -346,7 +525,8 @@ public class SQLDAO implements DAOInterface {
         String sql = "INSERT INTO observers (gameID, username) VALUES (?, ?)";
 
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql)) {
+        try {
+            var stmt = database.prepareStatement(conn, sql);
             stmt.setInt(1, gameID);
             stmt.setString(2, username);
 
@@ -367,7 +547,8 @@ public class SQLDAO implements DAOInterface {
         String sql = "SELECT * FROM observers WHERE gameID = ? AND username = ?";
 
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql)) {
+        try {
+            var stmt = database.prepareStatement(conn, sql);
             stmt.setInt(1, gameID);
             stmt.setString(2, username);
 
@@ -392,7 +573,8 @@ public class SQLDAO implements DAOInterface {
         String sql = "DELETE FROM observers WHERE gameID = ? AND username = ?";
 
         var conn = database.getConnection();
-        try (var stmt = conn.prepareStatement(sql)) {
+        try {
+            var stmt = database.prepareStatement(conn, sql);
             stmt.setInt(1, gameID);
             stmt.setString(2, username);
 
@@ -420,7 +602,8 @@ public class SQLDAO implements DAOInterface {
         String token = UUID.randomUUID().toString(); // Generates a unique token
         String insertTokenSQL = "INSERT INTO tokens (authToken, username) VALUES (?, ?)";
         var conn = database.getConnection();
-        try (var statement = conn.prepareStatement(insertTokenSQL)) {
+        try {
+            var statement = database.prepareStatement(conn, insertTokenSQL);
             statement.setString(1, token);
             statement.setString(2, username);
             statement.executeUpdate();
@@ -436,8 +619,8 @@ public class SQLDAO implements DAOInterface {
     public AuthToken getAuthToken(String authToken) throws DataAccessException {
         String sql = "SELECT username FROM tokens WHERE authToken = ?";
         var conn = database.getConnection();
-        try (var statement = conn.prepareStatement(sql)) {
-
+        try {
+            var statement = database.prepareStatement(conn, sql);
             statement.setString(1, authToken);
             try (var rs = statement.executeQuery()) {
                 if (rs.next()) {
@@ -457,8 +640,8 @@ public class SQLDAO implements DAOInterface {
     public void deleteAuthToken(String authToken) throws DataAccessException {
         String sql = "DELETE FROM tokens WHERE authToken = ?";
         var conn = database.getConnection();
-        try (var statement = conn.prepareStatement(sql)) {
-
+        try {
+            var statement = database.prepareStatement(conn, sql);
             statement.setString(1, authToken);
             int affectedRows = statement.executeUpdate();
 
@@ -472,4 +655,96 @@ public class SQLDAO implements DAOInterface {
         }
     }
 
+
+    /** Helpers for the game and packedGame columns */
+
+    // Sets the game column at the given index and the packedGame column right after it
+    private void setGameColumns(PreparedStatement stmt, int index, ChessGame chessGame) throws SQLException {
+        if (gameFormat.isBinary()) {
+            stmt.setString(index, "");
+            stmt.setBytes(index + 1, PackedGame.encode(chessGame));
+        } else {
+            stmt.setString(index, gameFormat.encode(chessGame));
+            stmt.setNull(index + 1, Types.BLOB);
+        }
+    }
+
+    private ChessGame readGameColumns(ResultSet rs) throws SQLException {
+        byte[] packedGame = rs.getBytes("packedGame");
+        if (packedGame != null) {
+            return PackedGame.decode(packedGame);
+        }
+        return GameFormat.decode(rs.getString("game"));
+    }
+
+    /** Helpers for the moves journal */
+
+    private void setGameRow(PreparedStatement stmt, Game game) throws SQLException {
+        stmt.setString(1, game.whiteUsername());
+        stmt.setString(2, game.blackUsername());
+        stmt.setString(3, game.gameName());
+        setGameColumns(stmt, 4, game.game());   // serialized in this DAO's format
+        stmt.setString(6, game.getState().name());
+        stmt.setInt(7, plyOf(game.game()));     // the moves journaled up to here are in the game
+        stmt.setInt(8, game.gameID());
+    }
+
+    private void setMoveRow(PreparedStatement stmt, int gameID, ChessMove move, int ply) throws SQLException {
+        stmt.setInt(1, gameID);
+        stmt.setInt(2, ply);
+        stmt.setInt(3, Move.encode(move) & MOVE_BITS);
+    }
+
+    // chess.Move without its flags, which are worked out again when the move is played
+    private static final int MOVE_BITS = 0x7FFF;
+
+    // Plays the moves journaled after the snapshot onto the game read from the games row
+    private void replayMoves(Connection conn, int gameID, int snapshotPly, ChessGame chessGame) throws SQLException, DataAccessException {
+        String sql = "SELECT ply, move FROM moves WHERE gameID = ? AND ply > ? ORDER BY ply";
+        var stmt = database.prepareStatement(conn, sql);
+        stmt.setInt(1, gameID);
+        stmt.setInt(2, snapshotPly);
+        try (var rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                replayMove(chessGame, gameID, rs.getInt("ply"), rs.getInt("move"));
+            }
+        }
+    }
+
+    private void replayMove(ChessGame chessGame, int gameID, int ply, int move) throws DataAccessException {
+        try {
+            chessGame.makeMove(Move.toChessMove(move));
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException("Journaled move " + ply + " of game " + gameID + " doesn't replay: " + e.getMessage());
+        }
+    }
+
+    // The half moves played in the game, which is how far the journal is covered by a snapshot of it
+    private static int plyOf(ChessGame chessGame) {
+        return (chessGame instanceof MyGame myGame) ? myGame.getPly() : 0;
+    }
+
+    // JSON doesn't carry the move counters, so a game read back from it counts its moves from the start
+    // again, and the moves played after reloading it would be journaled over the first ones. The row's
+    // snapshotPly says how far it had got, which puts the move number back. The halfmove clock stays lost.
+    private static void restorePly(ChessGame chessGame, int snapshotPly) {
+        if (chessGame instanceof MyGame myGame && myGame.getPly() < snapshotPly) {
+            myGame.setMoveCounters(myGame.getHalfmoveClock(), snapshotPly / 2 + 1);
+        }
+    }
+
+    private Game.GameState readGameState(ResultSet rs) throws SQLException {
+        String state = rs.getString("gameState");
+        return (state == null) ? Game.GameState.UNDECIDED : Game.GameState.valueOf(state);
+    }
+
+    private void addColumnIfMissing(Connection conn, String table, String column, String definition) throws SQLException {
+        try (var columns = conn.getMetaData().getColumns(Database.DB_NAME, null, table, column)) {
+            if (!columns.next()) {
+                try (var alterTableStatement = conn.prepareStatement("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition)) {
+                    alterTableStatement.executeUpdate();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,211 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * WriteAheadLog makes changes to RecordFiles safe against a crash. A change is appended to the log, and
+ * forced to the disk, before it is made to the mapped files, whose pages the operating system writes out
+ * whenever it likes. After a crash the log is replayed over the files, which brings every record back to
+ * the last image logged for it however much of it had reached the disk. Once the files have been forced
+ * the log isn't needed any more and is truncated, a checkpoint.
+ *
+ * Each append is one frame: the length of the rest of the frame, a CRC32 of it, and then its entries,
+ * each a file number, a record number and the record's new image. A frame that was only partly written
+ * when the server stopped fails its check, so replaying stops there, and since the frame was never
+ * acknowledged nothing that was acknowledged is lost.
+ */
+public class WriteAheadLog implements Closeable {
+
+    /**
+     * One record's new image
+     *
+     * @param file   which file the record is in
+     * @param record where in the file, or CLEAR_ALL to free every record of every file
+     * @param image  the whole record, empty for CLEAR_ALL
+     */
+    public record Entry(int file, int record, byte[] image) {}
+
+    public static final int CLEAR_ALL = -1;
+
+    private static final int FRAME_HEADER = 8;      // length and CRC
+    private static final int ENTRY_HEADER = 9;      // file, record and image length
+    private static final int MAX_FRAME = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final boolean sync;
+    private long size;
+    private long frames;
+
+    /**
+     * @param sync force each frame to the disk before append returns. Without it a crash of the machine,
+     *             but not of the server, can lose the last changes.
+     */
+    public WriteAheadLog(Path path, boolean sync) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.sync = sync;
+        // two servers writing the same files would overwrite each other's records
+        boolean locked;
+        try {
+            locked = channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            locked = false;     // open already in this process
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (!locked) {
+            channel.close();
+            throw new IOException(path + " is already open in another server");
+        }
+        this.size = channel.size();
+        channel.position(size);
+    }
+
+    /**
+     * Appends the entries as one frame, so after a crash either all of them are replayed or none are
+     */
+    public void append(List<Entry> entries) throws IOException {
+        int length = 0;
+        for (Entry entry : entries) {
+            length += ENTRY_HEADER + entry.image().length;
+        }
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + length);
+        frame.position(FRAME_HEADER);
+        for (Entry entry : entries) {
+            frame.put((byte) entry.file());
+            frame.putInt(entry.record());
+            frame.putInt(entry.image().length);
+            frame.put(entry.image());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), FRAME_HEADER, length);
+        frame.putInt(0, length);
+        frame.putInt(4, (int) crc.getValue());
+        frame.flip();
+
+        try {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // cut off whatever part of the frame got written, or replay would stop at it and skip the frames after
+            try {
+                channel.truncate(size);
+                channel.position(size);
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+        size += FRAME_HEADER + length;
+        frames++;
+    }
+
+    /**
+     * Reads back every complete frame in the log, in order, stopping at the first one that is torn or
+     * corrupt. Anything after that is cut off, so new frames follow straight on from the good ones.
+     */
+    public List<List<Entry>> replay() throws IOException {
+        List<List<Entry>> replayed = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        long at = 0;
+        while (true) {
+            header.clear();
+            if (readFully(header, at) < FRAME_HEADER) {
+                break;
+            }
+            int length = header.getInt(0);
+            int expectedCrc = header.getInt(4);
+            if (length < 0 || length > MAX_FRAME || at + FRAME_HEADER + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            if (readFully(body, at + FRAME_HEADER) < length) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(body.array(), 0, length);
+            List<Entry> entries = (int) crc.getValue() == expectedCrc ? parse(body) : null;
+            if (entries == null) {
+                break;
+            }
+            replayed.add(entries);
+            at += FRAME_HEADER + length;
+        }
+        if (at < size) {
+            channel.truncate(at);
+            size = at;
+        }
+        channel.position(size);
+        return replayed;
+    }
+
+    /**
+     * Empties the log, once everything in it is safely in the files
+     */
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        size = 0;
+    }
+
+    // bytes in the log since the last checkpoint
+    public long size() {
+        return size;
+    }
+
+    // frames appended since the log was opened
+    public long frames() {
+        return frames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // The entries in a frame body, or null if they don't add up to it
+    private static List<Entry> parse(ByteBuffer body) {
+        List<Entry> entries = new ArrayList<>();
+        body.rewind();
+        while (body.hasRemaining()) {
+            if (body.remaining() < ENTRY_HEADER) {
+                return null;
+            }
+            int file = body.get();
+            int record = body.getInt();
+            int length = body.getInt();
+            if (length < 0 || length > body.remaining()) {
+                return null;
+            }
+            byte[] image = new byte[length];
+            body.get(image);
+            entries.add(new Entry(file, record, image));
+        }
+        return entries;
+    }
+
+    private int readFully(ByteBuffer into, long position) throws IOException {
+        int read = 0;
+        while (into.hasRemaining()) {
+            int n = channel.read(into, position + read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        return read;
+    }
+}
@@ -0,0 +1,48 @@
+package handlers;
+
+import com.google.gson.Gson;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * MetricsHandler is used for handling the GET request for server metrics. It reports the websocket
+ * outbound queues: how many messages are waiting, the deepest any queue has been, and how many messages
+ * were sent, failed, dropped or coalesced and how many slow clients were disconnected. Other parts of the
+ * server, like the database connection pool, can add their own metrics with addSource.
+ * Methods in this class return a Json string back to the server.
+ */
+public class MetricsHandler implements Route {
+
+    private final Map<String, Supplier<?>> sources = new LinkedHashMap<>();
+    private final Gson gson = new Gson();
+    public MetricsHandler(WebSocketHandler webSocketHandler) {
+        sources.put("outbound", webSocketHandler::outboundMetrics);
+    }
+
+    /**
+     * Adds a section to the metrics, taken fresh on each request
+     *
+     * @param name    the key it is reported under
+     * @param metrics returns the current metrics, anything Gson can write
+     */
+    public synchronized void addSource(String name, Supplier<?> metrics) {
+        sources.put(name, metrics);
+    }
+
+    /**
+     * handle() returns a snapshot of every metrics source, by name
+     */
+    @Override
+    public synchronized Object handle(Request request, Response response) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<?>> source : sources.entrySet()) {
+            snapshot.put(source.getKey(), source.getValue().get());
+        }
+        return gson.toJson(snapshot);
+    }
+}
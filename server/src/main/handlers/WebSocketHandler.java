@@ -1,8 +1,6 @@
 package handlers;
 
 import chess.*;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import dao.DAOInterface;
 import dataAccess.DataAccessException;
 import models.AuthToken;
@@ -10,15 +8,26 @@ import models.Game;
 import models.User;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.*;
+import server.Frame;
+import server.GameActor;
+import server.GameActors;
+import server.GameRooms;
+import server.GameSession;
+import server.OutboundMetrics;
+import server.OutboundQueue;
+import server.OutboundQueue.OverflowPolicy;
 import webSocketMessages.serverMessages.ErrorMessage;
 import webSocketMessages.serverMessages.LoadGameMessage;
+import webSocketMessages.serverMessages.MoveMessage;
 import webSocketMessages.serverMessages.NotificationMessage;
+import webSocketMessages.serverMessages.ServerMessage.ServerMessageType;
 import webSocketMessages.userCommands.*;
 
-import java.io.IOException;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 
 @WebSocket
@@ -26,21 +35,52 @@ public class WebSocketHandler {
 
     DAOInterface database;
 
-    // Thread-safe set for storing sessions
-    private static final CopyOnWriteArraySet<Session> sessions = new CopyOnWriteArraySet<>();
+    // Which sessions are in which game, broadcasts only go to the room of the game they are about
+    private final GameRooms rooms = new GameRooms();
+    // Each game's commands run one at a time on its own actor, different games run in parallel
+    private final GameActors actors;
+
+    // Every connection gets its own outbound queue, so sending never waits on a slow client
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private final Map<Session, OutboundQueue> outboundQueues = new ConcurrentHashMap<>();
+    private final OutboundMetrics outboundMetrics = new OutboundMetrics();
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+
     public WebSocketHandler(DAOInterface database) {
+        this(database, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.COALESCE_LOAD_GAME);
+    }
+
+    public WebSocketHandler(DAOInterface database, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this(database, queueCapacity, overflowPolicy, GameActors.newDefaultExecutor());
+    }
+
+    /**
+     * @param gameExecutor runs the game actors, every command that touches a game runs on it
+     */
+    public WebSocketHandler(DAOInterface database, int queueCapacity, OverflowPolicy overflowPolicy, Executor gameExecutor) {
         this.database = database;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.actors = new GameActors(database, gameExecutor);
     }
 
     @OnWebSocketConnect
     public void onConnect(Session session) {
-        sessions.add(session);
         System.out.println("Connection opened");
     }
 
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
-        sessions.remove(session);
+        GameSession gameSession = rooms.get(session);
+        rooms.leave(session);
+        if (gameSession != null) {
+            actors.submit(gameSession.getGameID(), this::retireIfEmpty);
+        }
+        OutboundQueue queue = outboundQueues.remove(session);
+        if (queue != null) {
+            queue.close();
+        }
         System.out.println("Connection closed: " + reason);
     }
 
@@ -60,23 +100,27 @@ public class WebSocketHandler {
                     switch (command.getCommandType()) {
                         case JOIN_PLAYER:
                             JoinPlayerCommand joinPlayerCommand = deserializeFromJson(message, JoinPlayerCommand.class);
-                            handleJoinPlayerCommand(session, joinPlayerCommand, user);
+                            inGame(session, joinPlayerCommand.getGameID(), actor -> handleJoinPlayerCommand(session, joinPlayerCommand, user, actor));
                             break;
                         case JOIN_OBSERVER:
                             JoinObserverCommand joinObserverCommand = deserializeFromJson(message, JoinObserverCommand.class);
-                            handleJoinObserverCommand(session, joinObserverCommand, user);
+                            inGame(session, joinObserverCommand.getGameID(), actor -> handleJoinObserverCommand(session, joinObserverCommand, user, actor));
                             break;
                         case MAKE_MOVE:
                             MoveCommand moveCommand = deserializeFromJson(message, MoveCommand.class);
-                            handleMakeMoveCommand(session, moveCommand, user);
+                            inGame(session, moveCommand.getGameID(), actor -> handleMakeMoveCommand(session, moveCommand, user, actor));
                             break;
                         case LEAVE:
                             LeaveGameCommand leaveGameCommand = deserializeFromJson(message, LeaveGameCommand.class);
-                            handleLeaveCommand(session, leaveGameCommand, user);
+                            inGame(session, leaveGameCommand.getGameId(), actor -> handleLeaveCommand(session, leaveGameCommand, user, actor));
                             break;
                         case RESIGN:
                             ResignGameCommand resignGameCommand = deserializeFromJson(message, ResignGameCommand.class);
-                            handleResignCommand(session, resignGameCommand, user);
+                            inGame(session, resignGameCommand.getGameId(), actor -> handleResignCommand(session, resignGameCommand, user, actor));
+                            break;
+                        case RESYNC:
+                            ResyncCommand resyncCommand = deserializeFromJson(message, ResyncCommand.class);
+                            inGame(session, resyncCommand.getGameId(), actor -> handleResyncCommand(session, resyncCommand, actor));
                             break;
                         default:
                             // someone sent in a command with just the authToken and no commandType
@@ -93,21 +137,37 @@ public class WebSocketHandler {
     }
 
 
-    /** Methods for handling UserGameCommands below */
+    /** Methods for handling UserGameCommands below, each runs on the game's actor */
 
-    private void handleJoinPlayerCommand(Session session, JoinPlayerCommand command, User user) throws DataAccessException {
+    // Queues the command on the game's actor, behind every command for the game that came in before it.
+    // A game nobody is connected to doesn't keep its actor, whether they have all left or never got in.
+    private void inGame(Session session, int gameID, GameActor.Command command) {
+        actors.submit(gameID, actor -> {
+            try {
+                command.apply(actor);
+            } catch (DataAccessException | InvalidMoveException e) {
+                sendErrorMessage(session, "Error: " + e.getMessage());
+            }
+            retireIfEmpty(actor);
+        });
+    }
+
+    private void handleJoinPlayerCommand(Session session, JoinPlayerCommand command, User user, GameActor actor) throws DataAccessException {
         int gameId = command.getGameID();
-        Game game = database.findGame(gameId);
+        // players join over HTTP first, so the actor's copy may not have them yet
+        Game game = actor.reload();
         if (game != null) {
             String username = "";
             username = (command.playerColor == ChessGame.TeamColor.BLACK) ? game.blackUsername() : game.whiteUsername();
             if (Objects.equals(user.username(), username) || (!Objects.equals(username, null) && username.isEmpty() || Objects.equals(username, ""))) {
+                joinRoom(session, command, user, game);
+
                 // Send LOAD_GAME message back to the root client
-                sendLoadGameMessage(session, game);
+                sendLoadGameMessage(session, game, actor);
 
-                // Send NOTIFICATION message to all other clients
+                // Send NOTIFICATION message to all other clients in the game
                 NotificationMessage notificationMessage = new NotificationMessage(username + " joined game as " + command.playerColor);
-                broadcastMessage(serializeToJson(notificationMessage),session);
+                broadcastMessage(gameId, serializeToJson(notificationMessage), session);
             } else {
                 sendErrorMessage(session, "Error: another user is already in game, usernames don't match");
             }
@@ -117,28 +177,30 @@ public class WebSocketHandler {
         }
     }
 
-    public void handleJoinObserverCommand(Session session, JoinObserverCommand command, User user) throws DataAccessException {
+    public void handleJoinObserverCommand(Session session, JoinObserverCommand command, User user, GameActor actor) throws DataAccessException {
         int gameId = command.getGameID();
-        Game game = database.findGame(gameId);
+        Game game = actor.reload();
         if (game != null) {
+            joinRoom(session, command, user, game);
+
             // Send LOAD_GAME message back to the root client (observer)
-            sendLoadGameMessage(session, game);
+            sendLoadGameMessage(session, game, actor);
 
             // Prepare notification message
             String observerUsername = user.username();
             String notificationMessage = observerUsername + " joined game " + gameId + " as an observer.";
 
-            // Send NOTIFICATION message to all other clients
+            // Send NOTIFICATION message to all other clients in the game
             NotificationMessage notification = new NotificationMessage(notificationMessage);
-            broadcastMessage(serializeToJson(notification), session);
+            broadcastMessage(gameId, serializeToJson(notification), session);
         } else {
             // Game not found, send an error message back to root client
             sendErrorMessage(session, "Error: Game with ID " + gameId + " does not exist.");
         }
     }
 
-    public void handleMakeMoveCommand(Session session, MoveCommand command, User user) throws DataAccessException, InvalidMoveException {
-        Game game = database.findGame(command.getGameID());
+    public void handleMakeMoveCommand(Session session, MoveCommand command, User user, GameActor actor) throws DataAccessException, InvalidMoveException {
+        Game game = actor.game();
         if (game != null && !game.isGameOver()) {
             if (!Objects.equals(user.username(), game.whiteUsername()) && !Objects.equals(user.username(), game.blackUsername())) {
                 sendErrorMessage(session, "Error: Observer can't make a move");
@@ -153,33 +215,44 @@ public class WebSocketHandler {
                 // get all the valid moves
                 Collection<ChessMove> validMoves = game.game().validMoves(command.move.getStartPosition());
 
-                // Verify the move's validity
-                if (validMoves.contains(command.move)) {
-                    // Make move
-                    game.game().makeMove(command.move);
+                // Verify the move's validity, there are no valid moves when there is no piece to move
+                if (validMoves != null && validMoves.contains(command.move)) {
+                    // Make move, on a copy so the actor's game (which the cache may share) only changes once it is saved
+                    ChessGame played = PackedGame.copy(game.game());
+                    played.makeMove(command.move);
+                    game = new Game(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), played, game.getState());
                     // Update game state
                     if (game.game().isInCheckmate(game.game().getTeamTurn()) && (game.game().getTeamTurn() == ChessGame.TeamColor.BLACK)) {
-                        game.setState(Game.GameState.BLACK);
+                        game = game.setState(Game.GameState.BLACK);
                     } else if (game.game().isInCheckmate(game.game().getTeamTurn()) && (game.game().getTeamTurn() == ChessGame.TeamColor.WHITE)) {
-                        game.setState(Game.GameState.WHITE);
+                        game = game.setState(Game.GameState.WHITE);
                     } else if (game.game().isInStalemate(game.game().getTeamTurn())) {
-                        game.setState(Game.GameState.DRAW);
+                        game = game.setState(Game.GameState.DRAW);
                     } else {
-                        game.setState(Game.GameState.UNDECIDED);
+                        game = game.setState(Game.GameState.UNDECIDED);
+                    }
+                    // Update the database with updated game, appending the move where it keeps a move history
+                    actor.move(game, command.move);
+
+                    // Clients that apply moves themselves get a MOVE, the rest get a LOAD_GAME. Every message
+                    // is serialized once and the same frame goes to everyone who gets it, the root client included.
+                    ChessGame chessGame = game.game();
+                    long sequence = actor.nextMoveSequence();
+                    MoveMessage moveMessage = new MoveMessage(game.gameID(), command.move, user.username(), sequence,
+                            Zobrist.keyOf(chessGame.getBoard(), chessGame.getTeamTurn()), game.getState(),
+                            chessGame.isInCheck(chessGame.getTeamTurn()));
+                    MoveFrames frames = new MoveFrames(game, moveMessage, user.username() + " made a move.");
+
+                    // Send the move back to root client
+                    GameSession root = rooms.get(session);
+                    if (root != null && root.wantsMoveMessages()) {
+                        returnMessage(session, frames.move());
+                    } else {
+                        returnMessage(session, frames.loadGame((root == null) ? GameFormat.JSON : root.getGameFormat()));
                     }
-                    // Update the database with updated game
-                    database.updateGame(game);
-
-                    // Send LOAD_GAME message back to root client
-                    sendLoadGameMessage(session, game);
-
-                    // Send LOAD_GAME message to all other clients
-                    LoadGameMessage loadGameMessage = new LoadGameMessage(game);
-                    broadcastMessage(serializeToJson(loadGameMessage), session);
 
-                    // Send NOTIFICATION message to all other clients
-                    NotificationMessage notificationMessage = new NotificationMessage(user.username() + " made a move.");
-                    broadcastMessage(serializeToJson(notificationMessage), session);
+                    // Send the move to all other clients, with a NOTIFICATION for the ones getting a LOAD_GAME
+                    broadcastMove(game.gameID(), frames, session);
                 } else {
                     sendErrorMessage(session, "Error: Invalid move");
                 }
@@ -191,8 +264,8 @@ public class WebSocketHandler {
         }
     }
 
-    public void handleLeaveCommand(Session session, LeaveGameCommand command, User user) throws DataAccessException {
-        Game game = database.findGame(command.getGameId());
+    public void handleLeaveCommand(Session session, LeaveGameCommand command, User user, GameActor actor) throws DataAccessException {
+        Game game = actor.game();
         if (game != null) {
 
             // Check if the user is part of the game
@@ -212,17 +285,18 @@ public class WebSocketHandler {
                 game = game.setBlack(null); // Remove the black player
             }
             // Update the game in the database
-            database.updateGame(game);
+            actor.update(game);
 
-            // Prepare and send a notification message to all other clients
+            // Prepare and send a notification message to all other clients in the game, then leave its room
             String notificationMessage = user.username() + " has left the game.";
             NotificationMessage notification = new NotificationMessage(notificationMessage);
-            broadcastMessage(serializeToJson(notification), session);
+            broadcastMessage(game.gameID(), serializeToJson(notification), session);
+            rooms.leave(session);
 
             // Notify root as well
             notificationMessage = "You have left the game.";
             notification = new NotificationMessage(notificationMessage);
-            returnMessage(session, serializeToJson(notification));
+            returnMessage(session, serializeToJson(notification), ServerMessageType.NOTIFICATION);
 
         } else {
             // Game not found
@@ -231,8 +305,8 @@ public class WebSocketHandler {
     }
 
 
-    public void handleResignCommand(Session session, ResignGameCommand command, User user) throws DataAccessException {
-        Game game = database.findGame(command.getGameId());
+    public void handleResignCommand(Session session, ResignGameCommand command, User user, GameActor actor) throws DataAccessException {
+        Game game = actor.game();
         if (game != null) {
             // Check if the user is part of the game
             if (!Objects.equals(user.username(), game.whiteUsername()) && !Objects.equals(user.username(), game.blackUsername())) {
@@ -247,25 +321,25 @@ public class WebSocketHandler {
 
             // Mark the game as over
             if (Objects.equals(user.username(), game.whiteUsername())) {
-                game = game.setWhite(null);               // Remove the white player
-                game.setState(Game.GameState.BLACK);    // Black wins if White resigns
+                game = game.setWhite(null);                     // Remove the white player
+                game = game.setState(Game.GameState.BLACK);     // Black wins if White resigns
             } else {
-                game = game.setBlack(null);               // Remove the black player
-                game.setState(Game.GameState.WHITE);    // White wins if Black resigns
+                game = game.setBlack(null);                     // Remove the black player
+                game = game.setState(Game.GameState.WHITE);     // White wins if Black resigns
             }
 
             // Update the game in the database
-            database.updateGame(game);
+            actor.update(game);
 
             // Prepare and send a notification back to root client
             String rootNotification = "You have resigned from the game.";
             NotificationMessage rootNotify = new NotificationMessage(rootNotification);
-            returnMessage(session, serializeToJson(rootNotify));
+            returnMessage(session, serializeToJson(rootNotify), ServerMessageType.NOTIFICATION);
 
-            // Prepare and send a notification message to all clients
+            // Prepare and send a notification message to all clients in the game
             String notificationMessage = user.username() + " has resigned from the game.";
             NotificationMessage notification = new NotificationMessage(notificationMessage);
-            broadcastMessage(serializeToJson(notification), session);
+            broadcastMessage(game.gameID(), serializeToJson(notification), session);
         } else {
             // Game not found
             sendErrorMessage(session, "Error: Game with ID " + command.getGameId() + " does not exist.");
@@ -274,69 +348,183 @@ public class WebSocketHandler {
 
 
 
+    public void handleResyncCommand(Session session, ResyncCommand command, GameActor actor) throws DataAccessException {
+        Game game = actor.game();
+        if (game != null) {
+            sendLoadGameMessage(session, game, actor);
+        } else {
+            sendErrorMessage(session, "Error: Game with ID " + command.getGameId() + " does not exist.");
+        }
+    }
+
+
+
     /** Message sending and serialization methods below */
 
     private void sendErrorMessage(Session session, String errorMessage) {
         // Create and serialize an ERROR message
         ErrorMessage error = new ErrorMessage(errorMessage);
-        returnMessage(session, serializeToJson(error));
+        returnMessage(session, serializeToJson(error), ServerMessageType.ERROR);
+    }
+
+    private void sendLoadGameMessage(Session session, Game game, GameActor actor) {
+        // Create and serialize a LOAD_GAME message in the format the client asked for
+        LoadGameMessage loadGameMessage = newLoadGameMessage(game, gameFormatOf(session));
+        if (wantsMoveMessages(session)) {
+            // the client checks the MOVE messages that follow against this
+            loadGameMessage.setSequence(actor.moveSequence());
+        }
+        returnMessage(session, serializeToJson(loadGameMessage), ServerMessageType.LOAD_GAME);
     }
 
-    private void sendLoadGameMessage(Session session, Game game) {
-        // Create and serialize a LOAD_GAME message
-        LoadGameMessage loadGameMessage = new LoadGameMessage(game);
-        returnMessage(session, serializeToJson(loadGameMessage));
+    // Like broadcastMessage, but sends the MOVE to the clients that take them, and a LOAD_GAME in the
+    // client's own format followed by the notification to everyone else
+    private void broadcastMove(int gameID, MoveFrames frames, Session rootClientSession) {
+        for (GameSession participant : rooms.participants(gameID)) {
+            Session session = participant.getSession();
+            if (session.isOpen() && !session.equals(rootClientSession)) {
+                if (participant.wantsMoveMessages()) {
+                    send(session, frames.move());
+                } else {
+                    send(session, frames.loadGame(participant.getGameFormat()));
+                    send(session, frames.notification());
+                }
+            }
+        }
     }
 
-    // Helper method to broadcast a message to all connected clients except the root client
-    public void broadcastMessage(String message, Session rootClientSession) {
-        for (Session session : sessions) {
+    // The messages for one move, each serialized the first time someone needs it and then shared
+    private final class MoveFrames {
+        private final Game game;
+        private final MoveMessage moveMessage;
+        private final String notificationText;
+        private Frame move;
+        private Frame notification;
+        private Frame jsonLoadGame;
+        private Frame fenLoadGame;
+
+        MoveFrames(Game game, MoveMessage moveMessage, String notificationText) {
+            this.game = game;
+            this.moveMessage = moveMessage;
+            this.notificationText = notificationText;
+        }
+
+        Frame move() {
+            if (move == null) {
+                move = new Frame(serializeToJson(moveMessage), ServerMessageType.MOVE);
+            }
+            return move;
+        }
+
+        Frame notification() {
+            if (notification == null) {
+                notification = new Frame(serializeToJson(new NotificationMessage(notificationText)), ServerMessageType.NOTIFICATION);
+            }
+            return notification;
+        }
+
+        Frame loadGame(GameFormat format) {
+            if (format == GameFormat.FEN) {
+                if (fenLoadGame == null) {
+                    fenLoadGame = new Frame(serializeToJson(newLoadGameMessage(game, GameFormat.FEN)), ServerMessageType.LOAD_GAME);
+                }
+                return fenLoadGame;
+            }
+            if (jsonLoadGame == null) {
+                jsonLoadGame = new Frame(serializeToJson(newLoadGameMessage(game, GameFormat.JSON)), ServerMessageType.LOAD_GAME);
+            }
+            return jsonLoadGame;
+        }
+    }
+
+    private LoadGameMessage newLoadGameMessage(Game game, GameFormat format) {
+        return (format == GameFormat.FEN) ? LoadGameMessage.withFen(game) : new LoadGameMessage(game);
+    }
+
+    // Puts the session in the game's room along with what the client asked for in its join command
+    private void joinRoom(Session session, UserGameCommand command, User user, Game game) {
+        GameSession gameSession = rooms.join(game.gameID(), session, user);
+        gameSession.setGame(game);
+        gameSession.setMoveMessages(command.wantsMoveMessages());
+        // binary formats are for storage only, a client asking for one keeps getting JSON
+        if (command.getGameFormat() != null && !command.getGameFormat().isBinary()) {
+            gameSession.setGameFormat(command.getGameFormat());
+        }
+    }
+
+    // The last one out retires the game's actor, the next command for the game starts a new one
+    private void retireIfEmpty(GameActor actor) {
+        if (rooms.participants(actor.getGameID()).isEmpty()) {
+            actors.retire(actor);
+        }
+    }
+
+    private GameFormat gameFormatOf(Session session) {
+        GameSession gameSession = rooms.get(session);
+        return (gameSession == null) ? GameFormat.JSON : gameSession.getGameFormat();
+    }
+
+    private boolean wantsMoveMessages(Session session) {
+        GameSession gameSession = rooms.get(session);
+        return gameSession != null && gameSession.wantsMoveMessages();
+    }
+
+    // Helper method to broadcast a notification to every client in the game except the root client
+    public void broadcastMessage(int gameID, String message, Session rootClientSession) {
+        Frame frame = new Frame(message, ServerMessageType.NOTIFICATION);
+        for (GameSession participant : rooms.participants(gameID)) {
+            Session session = participant.getSession();
             if (session.isOpen()) {
                 if (!session.equals(rootClientSession)) {
-                    try {
-                        session.getRemote().sendString(message);
-                    } catch (IOException e) {
-                        System.err.println("Error sending message: " + e.getMessage());
-                        // Optionally remove the session if it's not valid anymore
-                        sessions.remove(session);
-                    }
+                    send(session, frame);
                 }
             }
         }
     }
 
     // Helper method for sending a message back to the root client
-    private void returnMessage(Session session, String message) {
+    private void returnMessage(Session session, String message, ServerMessageType type) {
+        returnMessage(session, new Frame(message, type));
+    }
+
+    private void returnMessage(Session session, Frame frame) {
         if (session.isOpen()) {
-            try {
-                session.getRemote().sendString(message);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            send(session, frame);
         } else {
             System.out.println("Session is closed, cannot send message");
         }
     }
 
+    // Every message goes out through here. It is queued for the session and this returns without waiting.
+    private void send(Session session, Frame frame) {
+        OutboundQueue queue = outboundQueues.get(session);
+        if (queue == null) {
+            queue = outboundQueues.computeIfAbsent(session,
+                    s -> new OutboundQueue(s, queueCapacity, overflowPolicy, outboundMetrics));
+        }
+        queue.send(frame);
+        if (!session.isOpen()) {
+            // closed while we were queueing, onClose may already have run so clean up here
+            outboundQueues.remove(session, queue);
+            queue.close();
+        }
+    }
+
+    // Queue depths, drops and disconnects across every connection
+    public OutboundMetrics.Snapshot outboundMetrics() {
+        return outboundMetrics.snapshot(outboundQueues.size());
+    }
+
+    // How many games currently have an actor
+    public int activeGames() {
+        return actors.activeCount();
+    }
+
     private String serializeToJson(Object object) {
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                .registerTypeAdapter(ChessMove.class, new ChessMoveTypeAdapter())
-                .registerTypeAdapter(ChessPosition.class, new ChessPositionTypeAdapter())
-                .create();
-        return gson.toJson(object);
+        return ChessJson.toJson(object);
     }
 
     private <T> T deserializeFromJson(String json, Class<T> clazz) {
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
-                .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
-                .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
-                .registerTypeAdapter(ChessMove.class, new ChessMoveTypeAdapter())
-                .registerTypeAdapter(ChessPosition.class, new ChessPositionTypeAdapter())
-                .create();
-        return gson.fromJson(json, clazz);
+        return ChessJson.fromJson(json, clazz);
     }
 }
@@ -0,0 +1,16 @@
+package server;
+
+import webSocketMessages.serverMessages.ServerMessage.ServerMessageType;
+
+/**
+ * A server message that has already been serialized, ready to go out on any number of connections.
+ *
+ * A broadcast serializes its message once into a Frame and queues that same Frame for every recipient,
+ * so the cost of a broadcast is one serialization however many clients are in the room. Frames are
+ * immutable and safe to share between queues and threads.
+ *
+ * @param text the message as it goes out on the wire
+ * @param type the message's type, which the outbound queue's OverflowPolicy looks at
+ */
+public record Frame(String text, ServerMessageType type) {
+}
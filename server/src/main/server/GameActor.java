@@ -0,0 +1,148 @@
+package server;
+
+import chess.ChessMove;
+import chess.MyGame;
+import dao.DAOInterface;
+import dataAccess.DataAccessException;
+import models.Game;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns one game while clients are connected to it.
+ *
+ * Every websocket command for the game goes into the actor's mailbox, and the mailbox is drained by one
+ * task at a time on a shared executor. Commands for the same game therefore run strictly one after another
+ * in the order they arrived, without any locks, while other games' actors run in parallel on the other
+ * executor threads.
+ *
+ * The actor keeps the authoritative copy of the game in memory. It is read from the database the first
+ * time a command needs it and written through to the database on every update, so moves never read it back.
+ * Moves are handed to the database as moves, so a DAO with a move history only appends them.
+ */
+public class GameActor {
+
+    /**
+     * Something to do to the game, run on the actor with nothing else running against the same game
+     */
+    public interface Command {
+        void apply(GameActor actor) throws Exception;
+    }
+
+    // commands run before the drain task gives its thread back to the other games
+    private static final int BATCH_SIZE = 64;
+
+    private final int gameID;
+    private final DAOInterface database;
+    private final Executor executor;
+    private final Queue<Command> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Only commands touch these, and commands never run concurrently. Handing the mailbox from one drain to
+    // the next goes through scheduled, which makes each command's writes visible to the commands after it.
+    private Game game;
+    private long moveSequence;
+
+    public GameActor(int gameID, DAOInterface database, Executor executor) {
+        this.gameID = gameID;
+        this.database = database;
+        this.executor = executor;
+    }
+
+    public int getGameID() {
+        return gameID;
+    }
+
+    /**
+     * @return the game as this actor has it, read from the database the first time, or null if there is no such game
+     */
+    public Game game() throws DataAccessException {
+        if (game == null) {
+            game = database.findGame(gameID);
+        }
+        return game;
+    }
+
+    /**
+     * Throws away the copy in memory and reads the game from the database again, for when something other
+     * than this actor may have changed it (players joining over HTTP, the database being cleared)
+     */
+    public Game reload() throws DataAccessException {
+        game = null;
+        return game();
+    }
+
+    /**
+     * Makes the game the authoritative copy and writes it to the database
+     */
+    public void update(Game updated) throws DataAccessException {
+        database.updateGame(updated);
+        game = updated;
+    }
+
+    /**
+     * Makes the game, with the move just played in it, the authoritative copy and records the move in the
+     * database, which only has to append it when it keeps a move history
+     */
+    public void move(Game updated, ChessMove move) throws DataAccessException {
+        if (updated.game() instanceof MyGame myGame) {
+            database.recordMove(updated, move, myGame.getPly());
+        } else {
+            database.updateGame(updated);
+        }
+        game = updated;
+    }
+
+    /**
+     * @return the sequence number for a move that has just been played, counted since the actor was created
+     */
+    public long nextMoveSequence() {
+        return ++moveSequence;
+    }
+
+    /**
+     * @return the sequence number of the last move played
+     */
+    public long moveSequence() {
+        return moveSequence;
+    }
+
+    // Called by GameActors with the actor's map entry locked, so nothing is queued on an actor that has retired.
+    // Returns true when the caller has to schedule the mailbox, which it does once the entry is unlocked so
+    // that the commands never run under the lock.
+    boolean enqueue(Command command) {
+        mailbox.add(command);
+        return scheduled.compareAndSet(false, true);
+    }
+
+    void schedule() {
+        executor.execute(this::drain);
+    }
+
+    boolean hasQueuedCommands() {
+        return !mailbox.isEmpty();
+    }
+
+    private void drain() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Command command = mailbox.poll();
+            if (command == null) {
+                break;
+            }
+            try {
+                command.apply(this);
+            } catch (Exception e) {
+                // commands report their own errors to the client, this is for whatever gets past them
+                System.err.println("Error in game " + gameID + ": " + e.getMessage());
+            }
+        }
+        scheduled.set(false);
+        // a command queued after the last poll saw scheduled still set and left it for us
+        if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+}
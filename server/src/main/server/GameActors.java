@@ -0,0 +1,75 @@
+package server;
+
+import dao.DAOInterface;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The GameActor for every game that has clients connected, created when the first command for a game
+ * arrives and retired once the last client has left.
+ */
+public class GameActors {
+
+    private final Map<Integer, GameActor> actors = new ConcurrentHashMap<>();
+    private final DAOInterface database;
+    private final Executor executor;
+
+    /**
+     * @param executor runs the actors' mailboxes. A game only ever has one task on it at a time, so a pool
+     *                 of any size keeps each game's commands in order.
+     */
+    public GameActors(DAOInterface database, Executor executor) {
+        this.database = database;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues the command on the game's actor, creating the actor if the game doesn't have one, and returns
+     * without waiting for it to run
+     */
+    public void submit(int gameID, GameActor.Command command) {
+        // queueing inside compute means retire can't drop the actor between finding it and queueing on it,
+        // but the mailbox is only scheduled after compute returns: an executor that runs tasks on the calling
+        // thread would otherwise run the commands, and their retire and database calls, under the map's lock
+        boolean[] needsScheduling = new boolean[1];
+        GameActor owner = actors.compute(gameID, (id, actor) -> {
+            GameActor queuedOn = (actor == null) ? new GameActor(id, database, executor) : actor;
+            needsScheduling[0] = queuedOn.enqueue(command);
+            return queuedOn;
+        });
+        if (needsScheduling[0]) {
+            owner.schedule();
+        }
+    }
+
+    /**
+     * Drops the actor if nothing else is queued on it. Meant to be called from one of the actor's own
+     * commands, so no earlier command for the game can still be running on it.
+     */
+    public void retire(GameActor actor) {
+        actors.computeIfPresent(actor.getGameID(), (id, current) ->
+                (current == actor && !actor.hasQueuedCommands()) ? null : current);
+    }
+
+    public int activeCount() {
+        return actors.size();
+    }
+
+    /**
+     * A pool with a daemon thread per core, for actors whose commands mostly compute and only briefly
+     * wait on the database
+     */
+    public static ExecutorService newDefaultExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "game-actor-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
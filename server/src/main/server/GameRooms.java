@@ -0,0 +1,85 @@
+package server;
+
+import models.User;
+import org.eclipse.jetty.websocket.api.Session;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of which websocket connections are in which game, so a message about a game only goes to
+ * the players and observers of that game instead of to every connection on the server.
+ *
+ * A connection is in at most one room at a time, joining another game moves it. Joins, leaves and closes
+ * can happen on any thread while other threads are broadcasting.
+ */
+public class GameRooms {
+
+    private final Map<Integer, Set<GameSession>> rooms = new ConcurrentHashMap<>();
+    private final Map<Session, GameSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Puts the connection in the room for the game, taking it out of any room it was in before
+     *
+     * @return the new GameSession, for the caller to record what the client asked for
+     */
+    public GameSession join(int gameID, Session session, User user) {
+        GameSession gameSession = new GameSession(session, user, gameID);
+        GameSession previous = sessions.put(session, gameSession);
+        if (previous != null) {
+            removeFromRoom(previous);
+        }
+        // compute holds the room's map entry locked, so a leave emptying the room can't drop it out from under us
+        rooms.compute(gameID, (id, members) -> {
+            Set<GameSession> room = (members == null) ? ConcurrentHashMap.newKeySet() : members;
+            room.add(gameSession);
+            return room;
+        });
+        // A leave, or another join, for this connection between the put and the add above found nothing in
+        // the room to take out. Whoever replaced us in sessions did so before we were added, so we take
+        // ourselves out instead of staying in the room for good.
+        if (sessions.get(session) != gameSession) {
+            removeFromRoom(gameSession);
+        }
+        return gameSession;
+    }
+
+    /**
+     * Takes the connection out of its room, if it is in one. Empty rooms are dropped.
+     */
+    public void leave(Session session) {
+        GameSession gameSession = sessions.remove(session);
+        if (gameSession != null) {
+            removeFromRoom(gameSession);
+        }
+    }
+
+    /**
+     * @return the GameSession for the connection, or null if it hasn't joined a game
+     */
+    public GameSession get(Session session) {
+        return sessions.get(session);
+    }
+
+    /**
+     * @return everyone in the game's room. The view is live and safe to iterate while others join and leave.
+     */
+    public Collection<GameSession> participants(int gameID) {
+        Set<GameSession> room = rooms.get(gameID);
+        return (room == null) ? Collections.emptySet() : room;
+    }
+
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    private void removeFromRoom(GameSession gameSession) {
+        rooms.computeIfPresent(gameSession.getGameID(), (id, members) -> {
+            members.remove(gameSession);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
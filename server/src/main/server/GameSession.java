@@ -1,5 +1,6 @@
 package server;
 
+import chess.GameFormat;
 import models.Game;
 import models.User;
 
@@ -8,17 +9,27 @@ import org.eclipse.jetty.websocket.api.Session;
 public class GameSession {
     private final Session session;
     private final User user;
+    private final int gameID;
     private Game game;
 
-    public GameSession(Session session, User user) {
+    // what the client asked for when it joined, see UserGameCommand
+    private volatile GameFormat gameFormat = GameFormat.JSON;
+    private volatile boolean moveMessages;
+
+    public GameSession(Session session, User user, int gameID) {
         this.session = session;
         this.user = user;
+        this.gameID = gameID;
     }
 
     public Session getSession() {
         return session;
     }
 
+    public int getGameID() {
+        return gameID;
+    }
+
     public Game getGame() {
         return game;
     }
@@ -31,6 +42,33 @@ public class GameSession {
         return user;
     }
 
-    // Override equals and hashCode if necessary, especially if you're storing these in a Set or using them as keys in a Map
-}
+    public GameFormat getGameFormat() {
+        return gameFormat;
+    }
+
+    public void setGameFormat(GameFormat gameFormat) {
+        this.gameFormat = gameFormat;
+    }
 
+    public boolean wantsMoveMessages() {
+        return moveMessages;
+    }
+
+    public void setMoveMessages(boolean moveMessages) {
+        this.moveMessages = moveMessages;
+    }
+
+    // A websocket connection is in at most one game at a time, so the connection alone identifies a GameSession
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return (o instanceof GameSession other) && session.equals(other.session);
+    }
+
+    @Override
+    public int hashCode() {
+        return session.hashCode();
+    }
+}
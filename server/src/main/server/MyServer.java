@@ -1,7 +1,12 @@
 package server;
 
+import chess.GameFormat;
+import dao.CachingDAO;
 import dao.DAOInterface;
+import dao.GroupCommitDAO;
+import dao.MappedFileDAO;
 import dao.SQLDAO;
+import dataAccess.DataAccessException;
 import handlers.*;
 import services.AuthenticationService;
 import services.ClearApplicationService;
@@ -9,10 +14,18 @@ import services.ClearApplicationService;
 import services.GameService;
 import services.UserService;
 import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import java.nio.file.Path;
 
 
 public class MyServer {
+    public static final int DEFAULT_MAX_CONNECTIONS = 32;
+    public static final String DEFAULT_DATA_DIRECTORY = "data";
+
     final DAOInterface database;    // database
+    final ThreadMode threadMode;    // what the handlers run on
     final ClearApplicationService clearService; // clear
     final ClearApplicationHandler clearHandler;
 
@@ -26,9 +39,15 @@ public class MyServer {
     final GameService gameService;
 
     WebSocketHandler webSocketHandler;  // connect
+    final MetricsHandler metricsHandler;    // metrics
 
     public MyServer(DAOInterface database) {
+        this(database, ThreadMode.PLATFORM);
+    }
+
+    public MyServer(DAOInterface database, ThreadMode threadMode) {
         this.database = database;
+        this.threadMode = threadMode;
         clearService = new ClearApplicationService(database);
         clearHandler = new ClearApplicationHandler(clearService);
         userService = new UserService(database);
@@ -37,13 +56,52 @@ public class MyServer {
         authHandler = new AuthenticationHandler(authService);
         gameService = new GameService(database);
         gameHandler = new GameHandler(gameService);
-        webSocketHandler = new WebSocketHandler(database);
+        webSocketHandler = new WebSocketHandler(database, WebSocketHandler.DEFAULT_QUEUE_CAPACITY,
+                OutboundQueue.OverflowPolicy.COALESCE_LOAD_GAME, threadMode.newGameExecutor());
+        metricsHandler = new MetricsHandler(webSocketHandler);
     }
 
+    // Arguments (all optional): the ThreadMode, the most MySQL connections open at once, and where the data is
+    // kept, "mysql" or "file" followed by a directory, e.g. "virtual 32" or "platform 0 file data".
+    // The connection limit is separate from the threads, virtual threads have no limit.
     public static void main(String[] args) throws Exception {
+        ThreadMode threadMode = (args.length > 0) ? ThreadMode.valueOf(args[0].toUpperCase()) : ThreadMode.PLATFORM;
+        int maxConnections = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_MAX_CONNECTIONS;
+        String storage = (args.length > 2) ? args[2].toLowerCase() : "mysql";
+
         // Switch the DAO by uncommenting/commenting the desired line:
-        new MyServer(new SQLDAO()).run(8080);
-//        new MyServer(new MainMemoryDAO()).run(8080);
+        // live games are kept in memory in front of the database, so moves don't read them back,
+        // and game updates from all the games are committed together in batches, each move returning once
+        // its batch has committed.
+        MyServer server;
+        if (storage.equals("file")) {
+            // no MySQL, everything is kept in memory-mapped files in the directory
+            Path directory = Path.of((args.length > 3) ? args[3] : DEFAULT_DATA_DIRECTORY);
+            MappedFileDAO fileDAO = new MappedFileDAO(directory);
+            GroupCommitDAO gameWrites = new GroupCommitDAO(fileDAO, GroupCommitDAO.Durability.ACK_ON_COMMIT);
+            server = new MyServer(new CachingDAO(gameWrites), threadMode);
+            server.metricsHandler.addSource("files", fileDAO::metrics);
+            server.metricsHandler.addSource("gameWrites", gameWrites::metrics);
+            // everything is in the log anyway, but closing checkpoints it so the next start has nothing to replay
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    gameWrites.close();
+                    fileDAO.close();
+                } catch (DataAccessException e) {
+                    System.err.println("Error closing the data files: " + e.getMessage());
+                }
+            }));
+        } else {
+            // moves are appended to a journal rather than rewriting the game
+            SQLDAO sqlDAO = new SQLDAO(GameFormat.FEN, maxConnections, SQLDAO.DEFAULT_SNAPSHOT_INTERVAL);
+            GroupCommitDAO gameWrites = new GroupCommitDAO(sqlDAO, GroupCommitDAO.Durability.ACK_ON_COMMIT);
+            server = new MyServer(new CachingDAO(gameWrites), threadMode);
+            server.metricsHandler.addSource("connections", sqlDAO::connectionMetrics);
+            server.metricsHandler.addSource("gameWrites", gameWrites::metrics);
+        }
+        server.run(8080);
+//        new MyServer(new SQLDAO(GameFormat.FEN, maxConnections), threadMode).run(8080);
+//        new MyServer(new MainMemoryDAO(), threadMode).run(8080);
     }
 
 
@@ -51,6 +109,10 @@ public class MyServer {
         // Initialize web server here, set port, etc.
         // Register the handlers to handle specific HTTP requests.
 
+        if (threadMode == ThreadMode.VIRTUAL) {
+            // has to be in place before Spark starts Jetty, which it does on the first route
+            EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool()));
+        }
         Spark.port(port);
         Spark.externalStaticFileLocation("web");
 
@@ -63,8 +125,9 @@ public class MyServer {
         Spark.get("/game", gameHandler);  // handle list game request
         Spark.post("/game", gameHandler);  // handle create game request
         Spark.put("/game", gameHandler);  // handle join game request
+        Spark.get("/metrics", metricsHandler);  // handle metrics request
 
-        System.out.printf("Running server on port %d\n", port);
+        System.out.printf("Running server on port %d with %s threads\n", port, threadMode.name().toLowerCase());
     }
 
 }
\ No newline at end of file
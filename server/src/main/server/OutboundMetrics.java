@@ -0,0 +1,58 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters shared by every OutboundQueue on the server, read through a Snapshot
+ */
+public class OutboundMetrics {
+
+    private final LongAdder queued = new LongAdder();       // messages waiting right now, across all queues
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    /**
+     * The counters at one moment, for reporting
+     */
+    public record Snapshot(long queued, long maxQueueDepth, long sent, long failed, long dropped,
+                           long coalesced, long disconnected, int sessions) {}
+
+    public Snapshot snapshot(int sessions) {
+        return new Snapshot(queued.sum(), maxQueueDepth.get(), sent.sum(), failed.sum(), dropped.sum(),
+                coalesced.sum(), disconnected.sum(), sessions);
+    }
+
+    void queued(int depth) {
+        queued.increment();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    void dequeued(int count) {
+        queued.add(-count);
+    }
+
+    void sent() {
+        sent.increment();
+    }
+
+    void failed() {
+        failed.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void coalesced(int count) {
+        coalesced.add(count);
+    }
+
+    void disconnected() {
+        disconnected.increment();
+    }
+}
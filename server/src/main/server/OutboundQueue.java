@@ -0,0 +1,200 @@
+package server;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import webSocketMessages.serverMessages.ServerMessage.ServerMessageType;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * The messages waiting to go out on one websocket connection.
+ *
+ * Messages are sent with Jetty's asynchronous sendString, one at a time and in order, and the next one goes
+ * out when the previous one's callback fires. Whoever queues a message returns straight away, so a slow
+ * client only ever holds up its own queue, never the thread handling another client's move.
+ *
+ * The queue is bounded. When it is full the OverflowPolicy decides what gives.
+ */
+public class OutboundQueue {
+
+    /**
+     * What to do when a message arrives and the queue is full
+     */
+    public enum OverflowPolicy {
+        /** Drop the oldest queued NOTIFICATION, they are only informational */
+        DROP_OLDEST_NOTIFICATION,
+        /** A new LOAD_GAME replaces every queued LOAD_GAME and MOVE, it already contains them.
+         *  Anything else falls back to DROP_OLDEST_NOTIFICATION */
+        COALESCE_LOAD_GAME,
+        /** Close the connection, the client has to reconnect and join again */
+        DISCONNECT
+    }
+
+    private static final int POLICY_VIOLATION = 1008;   // websocket close code
+
+    private final Session session;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final OutboundMetrics metrics;
+
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private boolean sending;    // a message has been handed to Jetty and its callback hasn't fired yet
+    private boolean closed;
+
+    // only one message is ever in flight, so one callback does for all of them
+    private final WriteCallback callback = new WriteCallback() {
+        @Override
+        public void writeSuccess() {
+            metrics.sent();
+            finished();
+        }
+
+        @Override
+        public void writeFailed(Throwable cause) {
+            metrics.failed();
+            System.err.println("Error sending message: " + cause.getMessage());
+            finished();
+        }
+    };
+
+    public OutboundQueue(Session session, int capacity, OverflowPolicy policy, OutboundMetrics metrics) {
+        this.session = session;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queues the message and starts sending if nothing is in flight
+     *
+     * @return false if the message was dropped or the connection closed because the queue was full
+     */
+    public boolean send(String text, ServerMessageType type) {
+        return send(new Frame(text, type));
+    }
+
+    /**
+     * Queues an already serialized message. The same Frame can be queued on any number of connections.
+     *
+     * @return false if the message was dropped or the connection closed because the queue was full
+     */
+    public synchronized boolean send(Frame frame) {
+        if (closed) {
+            return false;
+        }
+        if (queue.size() >= capacity && !makeRoom(frame.type())) {
+            return false;
+        }
+        queue.addLast(frame);
+        metrics.queued(queue.size());
+        if (!sending) {
+            sendNext();
+        }
+        return true;
+    }
+
+    public synchronized int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Throws away whatever is still queued, for when the connection has closed
+     */
+    public synchronized void close() {
+        closed = true;
+        metrics.dequeued(queue.size());
+        queue.clear();
+    }
+
+    private void sendNext() {
+        if (closed || !session.isOpen()) {
+            sending = false;
+            metrics.dequeued(queue.size());
+            queue.clear();
+            return;
+        }
+        Frame next = queue.pollFirst();
+        if (next == null) {
+            sending = false;
+            return;
+        }
+        metrics.dequeued(1);
+        sending = true;
+        try {
+            session.getRemote().sendString(next.text(), callback);
+        } catch (RuntimeException e) {
+            // Jetty throws rather than calling back when the connection is already gone
+            metrics.failed();
+            System.err.println("Error sending message: " + e.getMessage());
+            close();
+            sending = false;
+        }
+    }
+
+    private synchronized void finished() {
+        sending = false;
+        sendNext();
+    }
+
+    // Frees up a slot for a message of the given type, or returns false if the new message can't go in
+    private boolean makeRoom(ServerMessageType incoming) {
+        switch (policy) {
+            case DISCONNECT:
+                disconnect();
+                return false;
+            case COALESCE_LOAD_GAME:
+                if (incoming == ServerMessageType.LOAD_GAME && removeAll(ServerMessageType.LOAD_GAME, ServerMessageType.MOVE)) {
+                    return true;
+                }
+                return dropOldestNotification(incoming);     // nothing to coalesce
+            case DROP_OLDEST_NOTIFICATION:
+            default:
+                return dropOldestNotification(incoming);
+        }
+    }
+
+    // Makes room by dropping the oldest notification, or the incoming one if it is a notification itself.
+    // A queue full of game updates the client can't do without gets the connection closed.
+    private boolean dropOldestNotification(ServerMessageType incoming) {
+        if (removeOldest(ServerMessageType.NOTIFICATION)) {
+            return true;
+        }
+        if (incoming == ServerMessageType.NOTIFICATION) {
+            metrics.dropped();      // the queue is all game updates, the new notification is the one to go
+            return false;
+        }
+        disconnect();
+        return false;
+    }
+
+    private boolean removeOldest(ServerMessageType type) {
+        Iterator<Frame> messages = queue.iterator();
+        while (messages.hasNext()) {
+            if (messages.next().type() == type) {
+                messages.remove();
+                metrics.dequeued(1);
+                metrics.dropped();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean removeAll(ServerMessageType first, ServerMessageType second) {
+        int before = queue.size();
+        queue.removeIf(message -> message.type() == first || message.type() == second);
+        int removed = before - queue.size();
+        metrics.coalesced(removed);
+        metrics.dequeued(removed);
+        return removed > 0;
+    }
+
+    private void disconnect() {
+        metrics.disconnected();
+        metrics.dequeued(queue.size());
+        queue.clear();
+        closed = true;
+        session.close(POLICY_VIOLATION, "Too many messages waiting to be sent");
+    }
+}
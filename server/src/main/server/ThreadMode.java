@@ -0,0 +1,21 @@
+package server;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Which threads the server runs request handlers, websocket callbacks and game actors on
+ */
+public enum ThreadMode {
+    /** Spark's own bounded Jetty pool, and a pool of a thread per core for the game actors */
+    PLATFORM,
+    /** A new virtual thread for every task, so handlers blocked on the database don't hold up others.
+     *  Needs Java 21. */
+    VIRTUAL;
+
+    /**
+     * @return an executor for the game actors in this mode
+     */
+    public Executor newGameExecutor() {
+        return (this == VIRTUAL) ? VirtualThreads.newExecutor("game-actor-") : GameActors.newDefaultExecutor();
+    }
+}
@@ -0,0 +1,72 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Jetty ThreadPool that runs every job on its own virtual thread, for ThreadMode.VIRTUAL.
+ *
+ * Jetty runs its acceptors, selectors, HTTP requests and websocket callbacks on its thread pool, so with
+ * this pool every Spark route and every WebSocketHandler callback runs on a virtual thread. There is no
+ * maximum, a handler waiting on the database parks its virtual thread and frees the carrier for others.
+ * How many of them can reach the database at once is up to the connection pool, not this.
+ *
+ * Jetty starts and stops the pool along with the server. Stopping it shuts the executor down, which is what
+ * lets join return, so Server.join and Spark's join thread don't wait forever once Jetty has stopped.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+    private final ExecutorService executor = VirtualThreads.newExecutor("jetty-");
+    private final AtomicInteger running = new AtomicInteger();
+
+    @Override
+    public void execute(Runnable job) {
+        running.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                job.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Waits until the pool has been stopped and the jobs still running when it was have finished
+     */
+    @Override
+    public void join() throws InterruptedException {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    // Takes no new jobs and gives the running ones the stop timeout to finish before interrupting them
+    @Override
+    protected void doStop() throws Exception {
+        executor.shutdown();
+        if (!executor.awaitTermination(getStopTimeout(), TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+        super.doStop();
+    }
+
+    // virtual threads are made per job, so the threads are the jobs running right now
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    // there is always another virtual thread
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads on Java 21 and later.
+ *
+ * The project is still built at language level 20, where virtual threads are a preview API, so they are
+ * looked up reflectively here instead of being called directly. On an older runtime isSupported is false
+ * and newExecutor throws.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param namePrefix the threads are named namePrefix0, namePrefix1...
+     * @return a factory that starts each thread as a new virtual thread
+     */
+    public static ThreadFactory newFactory(String namePrefix) {
+        try {
+            // Thread.ofVirtual().name(namePrefix, 0).factory()
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later, this is Java "
+                    + Runtime.version().feature());
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Couldn't create a virtual thread factory", e);
+        }
+    }
+
+    /**
+     * @return an executor that runs every task on a new virtual thread
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        ThreadFactory factory = newFactory(namePrefix);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Couldn't create a virtual thread executor", e);
+        }
+    }
+}
@@ -2,12 +2,23 @@ package dataAccess;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.LinkedList;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Database is responsible for creating connections to the database. Connections are
- * managed with a simple pool in order to increase performance. To obtain and
+ * managed with a bounded pool in order to increase performance. To obtain and
  * use connections represented by this class use the following pattern.
  *
  * <pre>
@@ -22,6 +33,16 @@ import java.util.LinkedList;
  *    }
  *  }
  * </pre>
+ *
+ * The pool keeps between minConnections and maxConnections open. Borrowing and returning don't take a
+ * lock: idle connections sit on a lock-free deque and a semaphore counts the ones lent out. When all
+ * maxConnections are lent out getConnection waits up to the acquire timeout and then throws. A connection
+ * that has sat idle for a while is checked with isValid before it is lent out again, and connections idle
+ * longer than the idle timeout are closed, down to minConnections. metrics reports what the pool is doing.
+ *
+ * Each connection keeps its own {@link StatementCache}. Statements prepared through
+ * {@link #prepareStatement(Connection, String) prepareStatement} stay open and are reused the next time the
+ * same SQL runs on that connection, so they are parsed by MySQL once rather than on every call.
  */
 public class Database {
 
@@ -30,39 +51,336 @@ public class Database {
     private static final String DB_USERNAME = "root";
     private static final String DB_PASSWORD = "AdamT123!";
 
-    private static final String CONNECTION_URL = "jdbc:mysql://localhost:3306";
+    // server-side prepared statements, so a cached statement skips the parse as well as the round trip,
+    // and batched inserts sent as one multi-row insert
+    private static final String CONNECTION_URL = "jdbc:mysql://localhost:3306/?useServerPrepStmts=true&rewriteBatchedStatements=true";
+
+    public static final int DEFAULT_MIN_CONNECTIONS = 2;
+    public static final int DEFAULT_MAX_CONNECTIONS = 32;
+    public static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 5_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
+    // a connection idle longer than this is checked before it is lent out, MySQL drops quiet connections
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    // upper bounds of the wait time histogram buckets, the last bucket is everything longer
+    private static final long[] WAIT_BUCKET_MICROS = {100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final String[] WAIT_BUCKET_NAMES = {"<0.1ms", "<1ms", "<10ms", "<100ms", "<1s", ">=1s"};
+
+    private record IdleConnection(Connection connection, long idleSince) {}
+
+    private final int minConnections;
+    private final int maxConnections;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutNanos;
+    private final int statementCacheSize;
+
+    // most recently returned first, so the busy connections stay warm and the spare ones age at the end
+    private final ConcurrentLinkedDeque<IdleConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final Semaphore permits;    // one per connection that can still be lent out
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder[] waitBuckets = new LongAdder[WAIT_BUCKET_NAMES.length];
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    /**
+     * What the pool is doing, for the /metrics endpoint
+     *
+     * @param active            connections lent out right now
+     * @param idle              connections open and waiting to be lent out
+     * @param waiting           callers waiting for a connection
+     * @param borrowed          connections lent out since the pool started
+     * @param timeouts          callers that gave up waiting
+     * @param created           connections opened
+     * @param discarded         connections closed because they were broken, stale or idle too long
+     * @param averageWaitMillis how long getConnection took on average
+     * @param waitHistogram     how many getConnection calls took how long
+     * @param statementHits     statements reused from a connection's cache
+     * @param statementMisses   statements that had to be prepared
+     */
+    public record Metrics(int active, int idle, int waiting, long borrowed, long timeouts, long created,
+                          long discarded, double averageWaitMillis, Map<String, Long> waitHistogram,
+                          long statementHits, long statementMisses) {}
+
+    /**
+     * A pool of DEFAULT_MIN_CONNECTIONS to DEFAULT_MAX_CONNECTIONS connections
+     */
+    public Database() {
+        this(DEFAULT_MIN_CONNECTIONS, DEFAULT_MAX_CONNECTIONS, DEFAULT_ACQUIRE_TIMEOUT_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * A pool that lends out at most maxConnections at once. Size it for what MySQL can take rather than for
+     * the number of threads, with virtual threads there can be thousands of handlers asking at the same time.
+     *
+     * @param maxConnections the most connections open at once
+     */
+    public Database(int maxConnections) {
+        this(Math.min(DEFAULT_MIN_CONNECTIONS, maxConnections), maxConnections, DEFAULT_ACQUIRE_TIMEOUT_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param minConnections       connections opened by warmUp and kept open however quiet it gets
+     * @param maxConnections       the most connections open at once
+     * @param acquireTimeoutMillis how long getConnection waits for a connection before throwing
+     * @param idleTimeoutMillis    how long a connection above minConnections can sit unused before it is closed
+     */
+    public Database(int minConnections, int maxConnections, long acquireTimeoutMillis, long idleTimeoutMillis) {
+        this(minConnections, maxConnections, acquireTimeoutMillis, idleTimeoutMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * @param statementCacheSize the most prepared statements each connection keeps open
+     */
+    public Database(int minConnections, int maxConnections, long acquireTimeoutMillis, long idleTimeoutMillis,
+                    int statementCacheSize) {
+        if (statementCacheSize <= 0) {
+            throw new IllegalArgumentException("Bad statement cache size " + statementCacheSize);
+        }
+        if (maxConnections <= 0 || minConnections < 0 || minConnections > maxConnections) {
+            throw new IllegalArgumentException("Bad pool size, min " + minConnections + " max " + maxConnections);
+        }
+        this.minConnections = minConnections;
+        this.maxConnections = maxConnections;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxConnections, true);
+        for (int i = 0; i < waitBuckets.length; i++) {
+            waitBuckets[i] = new LongAdder();
+        }
 
-    private final LinkedList<Connection> connections = new LinkedList<>();
+        long evictEvery = Math.max(1, Math.min(idleTimeoutMillis / 2, TimeUnit.SECONDS.toMillis(30)));
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, evictEvery, evictEvery, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens connections until minConnections are open, so the first requests don't wait for them
+     */
+    public void warmUp() throws DataAccessException {
+        try {
+            while (openCount.get() < minConnections) {
+                Connection connection = open();
+                idle.addLast(new IdleConnection(connection, System.nanoTime()));
+                idleCount.incrementAndGet();
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
 
     /**
-     * Get a connection to the database. This pulls a connection out of a simple
-     * pool implementation. The connection must be returned to the pool after
+     * Get a connection to the database. This pulls a connection out of the pool, opening a
+     * new one if none is idle and fewer than maxConnections are open, or waiting for one to be
+     * returned if all of them are lent out. The connection must be returned to the pool after
      * you are done with it by calling {@link #returnConnection(Connection) returnConnection}.
      *
      * @return Connection
      */
-    synchronized public Connection getConnection() throws DataAccessException {
+    public Connection getConnection() throws DataAccessException {
+        if (closed) {
+            throw new DataAccessException("The connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new DataAccessException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a database connection, all " + maxConnections + " are in use");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a database connection");
+        }
         try {
-            Connection connection;
-            if (connections.isEmpty()) {
-                connection = DriverManager.getConnection(CONNECTION_URL, DB_USERNAME, DB_PASSWORD);
-                connection.setCatalog(DB_NAME);
-            } else {
-                connection = connections.removeFirst();
+            Connection connection = takeIdleConnection();
+            if (connection == null) {
+                connection = open();
             }
+            borrowed.increment();
+            recordWait(System.nanoTime() - start);
             return connection;
-        } catch (SQLException e) {
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
             throw new DataAccessException(e.getMessage());
         }
     }
 
     /**
-     * Return a previously acquired connection to the pool.
+     * Return a previously acquired connection to the pool. Each connection has to be returned exactly once.
      *
      * @param connection previous obtained by calling {@link #getConnection() getConnection}.
      */
-    synchronized public void returnConnection(Connection connection) {
-        connections.add(connection);
+    public void returnConnection(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (closed || connection.isClosed()) {
+                discard(connection);
+                return;
+            }
+            // whoever had it last may have left a transaction open
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.addFirst(new IdleConnection(connection, System.nanoTime()));
+            idleCount.incrementAndGet();
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
     }
-}
 
+    /**
+     * A prepared statement for the SQL on a connection borrowed from this pool, reused if this connection
+     * has run the same SQL before. The statement stays open for the next caller, so don't close it; close
+     * the result sets as usual.
+     *
+     * @param connection borrowed with {@link #getConnection() getConnection} and not yet returned
+     */
+    public PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+        return prepareStatement(connection, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS to read back generated ids
+     */
+    public PreparedStatement prepareStatement(Connection connection, String sql, int autoGeneratedKeys) throws SQLException {
+        StatementCache cache = statementCaches.computeIfAbsent(connection, c -> new StatementCache(c, statementCacheSize));
+        PreparedStatement statement = cache.get(sql, autoGeneratedKeys);
+        if (statement != null) {
+            statementHits.increment();
+            return statement;
+        }
+        statementMisses.increment();
+        return cache.prepare(sql, autoGeneratedKeys);
+    }
+
+    public Metrics metrics() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < waitBuckets.length; i++) {
+            histogram.put(WAIT_BUCKET_NAMES[i], waitBuckets[i].sum());
+        }
+        long borrowedCount = borrowed.sum();
+        double averageWaitMillis = (borrowedCount == 0) ? 0 : totalWaitNanos.sum() / 1e6 / borrowedCount;
+        int idleConnections = idleCount.get();
+        return new Metrics(openCount.get() - idleConnections, idleConnections, permits.getQueueLength(),
+                borrowedCount, timeouts.sum(), created.sum(), discarded.sum(), averageWaitMillis, histogram,
+                statementHits.sum(), statementMisses.sum());
+    }
+
+    /**
+     * Closes the idle connections and stops lending out new ones. Connections still lent out are closed
+     * as they are returned.
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdown();
+        IdleConnection next;
+        while ((next = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            discard(next.connection());
+        }
+    }
+
+    /**
+     * Opens a new connection to MySQL. Overridden where there is no MySQL to connect to.
+     */
+    protected Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(CONNECTION_URL, DB_USERNAME, DB_PASSWORD);
+        connection.setCatalog(DB_NAME);
+        return connection;
+    }
+
+
+    /** Pool internals */
+
+    private Connection open() throws SQLException {
+        Connection connection = openConnection();
+        openCount.incrementAndGet();
+        created.increment();
+        return connection;
+    }
+
+    // The most recently used idle connection, checked first if it has been idle a while, or null if none is idle
+    private Connection takeIdleConnection() {
+        IdleConnection next;
+        while ((next = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (System.nanoTime() - next.idleSince() < VALIDATE_AFTER_NANOS || isValid(next.connection())) {
+                return next.connection();
+            }
+            discard(next.connection());
+        }
+        return null;
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(Connection connection) {
+        openCount.decrementAndGet();
+        discarded.increment();
+        StatementCache statements = statementCaches.remove(connection);
+        if (statements != null) {
+            statements.close();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // it is going away either way
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.add(nanos);
+        long micros = nanos / 1_000;
+        int bucket = 0;
+        while (bucket < WAIT_BUCKET_MICROS.length && micros >= WAIT_BUCKET_MICROS[bucket]) {
+            bucket++;
+        }
+        waitBuckets[bucket].increment();
+    }
+
+    // Runs on the evictor thread: closes connections idle too long, oldest first, down to minConnections
+    private void evictIdle() {
+        long now = System.nanoTime();
+        var oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && openCount.get() > minConnections) {
+            IdleConnection next = oldestFirst.next();
+            if (now - next.idleSince() < idleTimeoutNanos) {
+                break;      // everything after this was returned more recently
+            }
+            // a borrower may have taken it since, whoever removes it first has it
+            if (idle.removeLastOccurrence(next)) {
+                idleCount.decrementAndGet();
+                discard(next.connection());
+            }
+        }
+    }
+}
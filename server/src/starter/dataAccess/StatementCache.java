@@ -0,0 +1,94 @@
+package dataAccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The prepared statements of one pooled connection, kept open and keyed by their SQL so each query is
+ * parsed once per connection instead of on every call. Holds at most capacity statements and closes the
+ * least recently used one to make room.
+ *
+ * A connection is only used by whoever borrowed it, so neither is this. The statements it hands out
+ * belong to the cache and must not be closed by the caller.
+ */
+public class StatementCache {
+
+    private record Key(String sql, int autoGeneratedKeys) {}
+
+    private final Connection connection;
+    private final Map<Key, PreparedStatement> statements;
+
+    public StatementCache(Connection connection, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Statement cache capacity must be positive, was " + capacity);
+        }
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The cached statement for this SQL with its parameters and batch cleared, or null if there isn't one.
+     * A batch left behind by a caller that failed before executing it would otherwise go out with the next one.
+     */
+    public PreparedStatement get(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement statement = statements.get(key);
+        if (statement == null) {
+            return null;
+        }
+        if (statement.isClosed()) {
+            statements.remove(key);
+            return null;
+        }
+        statement.clearParameters();
+        statement.clearBatch();
+        return statement;
+    }
+
+    /**
+     * Prepares the SQL on the connection and keeps the statement
+     */
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        PreparedStatement statement = (autoGeneratedKeys == Statement.NO_GENERATED_KEYS)
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+        PreparedStatement replaced = statements.put(new Key(sql, autoGeneratedKeys), statement);
+        if (replaced != null) {
+            closeQuietly(replaced);
+        }
+        return statement;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes every statement, before the connection itself is closed
+     */
+    public void close() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // the statement is going away either way
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package benchmarks;
+
+import chess.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares MyBoard and BitBoard backed games on the two calls that dominate move validation,
+ * validMoves and isInCheck. Run the main method directly, there is nothing to configure.
+ *
+ * Both boards replay the same random games so they are measured on identical positions.
+ */
+public class BoardBenchmark {
+
+    private static final int POSITIONS = 200;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) throws InvalidMoveException {
+        List<ChessGame> arrayGames = new ArrayList<>();
+        List<ChessGame> bitGames = new ArrayList<>();
+        buildPositions(arrayGames, bitGames);
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            validMovesPass(arrayGames);
+            validMovesPass(bitGames);
+            isInCheckPass(arrayGames);
+            isInCheckPass(bitGames);
+        }
+
+        double arrayValidMoves = time(() -> validMovesPass(arrayGames));
+        double bitValidMoves = time(() -> validMovesPass(bitGames));
+        double arrayCheck = time(() -> isInCheckPass(arrayGames));
+        double bitCheck = time(() -> isInCheckPass(bitGames));
+
+        System.out.printf("%d positions, %d measured rounds%n", POSITIONS, MEASURED_ROUNDS);
+        System.out.printf("validMoves (all 64 squares)  MyBoard %10.1f us/position   BitBoard %10.1f us/position   speedup %.2fx%n",
+                arrayValidMoves, bitValidMoves, arrayValidMoves / bitValidMoves);
+        System.out.printf("isInCheck (both colors)      MyBoard %10.1f us/position   BitBoard %10.1f us/position   speedup %.2fx%n",
+                arrayCheck, bitCheck, arrayCheck / bitCheck);
+    }
+
+    // Plays random legal moves from the start position, snapshotting a MyBoard and a BitBoard copy each ply
+    private static void buildPositions(List<ChessGame> arrayGames, List<ChessGame> bitGames) throws InvalidMoveException {
+        Random random = new Random(1);
+        ChessGame game = new MyGame();
+        int ply = 0;
+        while (arrayGames.size() < POSITIONS) {
+            List<ChessMove> moves = new ArrayList<>();
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPosition position = new MyPosition(row, col);
+                    ChessPiece piece = game.getBoard().getPiece(position);
+                    if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                        moves.addAll(game.validMoves(position));
+                    }
+                }
+            }
+            // start a fresh game every 60 plies so the sample covers openings, middlegames and endgames alike
+            if (moves.isEmpty() || ply == 60) {
+                game = new MyGame();
+                ply = 0;
+                continue;
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+            ply++;
+            arrayGames.add(snapshot(game, new MyBoard()));
+            bitGames.add(snapshot(game, new BitBoard()));
+        }
+    }
+
+    private static ChessGame snapshot(ChessGame source, ChessBoard board) {
+        ChessPiece[][] squares = source.getBoard().getBoard();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (squares[row][col] != null) {
+                    board.addPiece(new MyPosition(row + 1, col + 1), squares[row][col]);
+                }
+            }
+        }
+        ChessGame copy = new MyGame();
+        copy.setBoard(board);
+        copy.setTeamTurn(source.getTeamTurn());
+        return copy;
+    }
+
+    private static long validMovesPass(List<ChessGame> games) {
+        long total = 0;
+        for (ChessGame game : games) {
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    Collection<ChessMove> moves = game.validMoves(new MyPosition(row, col));
+                    if (moves != null) {
+                        total += moves.size();
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    private static long isInCheckPass(List<ChessGame> games) {
+        long total = 0;
+        for (ChessGame game : games) {
+            if (game.isInCheck(ChessGame.TeamColor.WHITE)) total++;
+            if (game.isInCheck(ChessGame.TeamColor.BLACK)) total++;
+        }
+        return total;
+    }
+
+    // average microseconds per position over the measured rounds
+    private static double time(Pass pass) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            checksum += pass.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum < 0) {
+            System.out.println(checksum);   // keeps the JIT from discarding the work
+        }
+        return elapsed / 1000.0 / MEASURED_ROUNDS / POSITIONS;
+    }
+
+    private interface Pass {
+        long run();
+    }
+}
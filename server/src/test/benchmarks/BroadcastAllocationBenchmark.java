@@ -0,0 +1,91 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessJson;
+import dao.MainMemoryDAO;
+import handlers.WebSocketHandler;
+import models.Game;
+import models.User;
+import org.eclipse.jetty.websocket.api.Session;
+import passoffTests.KnightMoves;
+import server.OutboundQueue;
+import webSocketMessages.userCommands.JoinObserverCommand;
+import webSocketMessages.userCommands.JoinPlayerCommand;
+import webSocketMessages.userCommands.MoveCommand;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated on the handling thread for each move in one game as the number of observers
+ * grows. Every observer is a plain client (full JSON LOAD_GAME plus a NOTIFICATION per move), so with
+ * serialize-once broadcasting the allocation per move should barely move between 1 and 1000 observers.
+ *
+ * Runs against MainMemoryDAO with FakeSessions, so no server or database is needed.
+ * Arguments (all optional): the observer counts to try, e.g. "1 10 1000"
+ */
+public class BroadcastAllocationBenchmark {
+
+    private static final int WARMUP_MOVES = 4_000;
+    private static final int MEASURED_MOVES = 4_000;
+
+    public static void main(String[] args) throws Exception {
+        int[] observerCounts = {1, 10, 1000};
+        if (args.length > 0) {
+            observerCounts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                observerCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%10s %16s %20s %14s%n", "observers", "bytes per move", "bytes per recipient", "us per move");
+        for (int observers : observerCounts) {
+            run(observers);
+        }
+    }
+
+    private static void run(int observerCount) throws Exception {
+        MainMemoryDAO database = new MainMemoryDAO();
+        WebSocketHandler handler = new WebSocketHandler(database, WebSocketHandler.DEFAULT_QUEUE_CAPACITY,
+                OutboundQueue.OverflowPolicy.COALESCE_LOAD_GAME, Runnable::run);   // games run on this thread
+        Game game = database.createGame("allocation game");
+
+        String whiteToken = newUser(database, "white");
+        String blackToken = newUser(database, "black");
+        database.setWhitePlayer(game.gameID(), "white");
+        database.setBlackPlayer(game.gameID(), "black");
+        Session white = FakeSessions.open(false);
+        Session black = FakeSessions.open(false);
+        handler.onMessage(white, ChessJson.toJson(new JoinPlayerCommand(whiteToken, game.gameID(), ChessGame.TeamColor.WHITE)));
+        handler.onMessage(black, ChessJson.toJson(new JoinPlayerCommand(blackToken, game.gameID(), ChessGame.TeamColor.BLACK)));
+        for (int o = 0; o < observerCount; o++) {
+            String token = newUser(database, "observer" + o);
+            handler.onMessage(FakeSessions.open(false), ChessJson.toJson(new JoinObserverCommand(token, game.gameID())));
+        }
+
+        String[] commands = new String[KnightMoves.CYCLE];
+        for (int m = 0; m < KnightMoves.CYCLE; m++) {
+            commands[m] = ChessJson.toJson(new MoveCommand((m % 2 == 0) ? whiteToken : blackToken, KnightMoves.at(m), game.gameID()));
+        }
+        for (int m = 0; m < WARMUP_MOVES; m++) {
+            handler.onMessage((m % 2 == 0) ? white : black, commands[m % commands.length]);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int m = 0; m < MEASURED_MOVES; m++) {
+            handler.onMessage((m % 2 == 0) ? white : black, commands[m % commands.length]);
+        }
+        double microsPerMove = (System.nanoTime() - start) / 1000.0 / MEASURED_MOVES;
+        double bytesPerMove = (double) (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / MEASURED_MOVES;
+
+        int recipients = observerCount + 2;
+        System.out.printf("%10d %16.0f %20.0f %14.1f%n", observerCount, bytesPerMove, bytesPerMove / recipients, microsPerMove);
+    }
+
+    private static String newUser(MainMemoryDAO database, String username) throws Exception {
+        database.addUser(new User(username, "password", username + "@mail.com"));
+        return database.createAuthToken(username).authToken();
+    }
+}
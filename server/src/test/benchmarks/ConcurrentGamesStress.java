@@ -0,0 +1,271 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessJson;
+import chess.ChessMove;
+import chess.Fen;
+import chess.MyGame;
+import chess.Zobrist;
+import dao.MainMemoryDAO;
+import handlers.WebSocketHandler;
+import models.Game;
+import models.User;
+import org.eclipse.jetty.websocket.api.Session;
+import passoffTests.KnightMoves;
+import webSocketMessages.serverMessages.MoveMessage;
+import webSocketMessages.serverMessages.NotificationMessage;
+import webSocketMessages.serverMessages.ServerMessage;
+import webSocketMessages.userCommands.JoinObserverCommand;
+import webSocketMessages.userCommands.JoinPlayerCommand;
+import webSocketMessages.userCommands.MoveCommand;
+import webSocketMessages.userCommands.ResignGameCommand;
+import webSocketMessages.userCommands.UserGameCommand;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test for the game actors: thousands of games at once, each with both players firing their moves
+ * from several client threads without waiting for the previous one to be handled, and then both resigning
+ * at the same moment.
+ *
+ * Afterwards every game is checked:
+ *   - the observer saw the moves numbered 1, 2, 3... with no gaps or repeats
+ *   - replaying those moves from the start matches each move's position hash and the stored game
+ *   - every command got exactly one answer, a MOVE for the moves that were played and an ERROR for the rest
+ *   - exactly one of the two resignations went through and the game is over
+ * Any of these going wrong means two commands for the same game ran at once. Exits with status 1 if so.
+ *
+ * Runs against MainMemoryDAO with FakeSessions on the server's own actor executor.
+ * Arguments (all optional): games, move attempts per player, client threads, e.g. "2000 40 16"
+ */
+public class ConcurrentGamesStress {
+
+
+    // Everything one client has been sent, in the order it arrived
+    private static final class Client {
+        final String username;
+        final String token;
+        final Session session;
+        final Queue<String> received = new ConcurrentLinkedQueue<>();
+        final AtomicInteger answers = new AtomicInteger();     // MOVEs it made, ERRORs and its own resignation
+
+        Client(MainMemoryDAO database, String username) throws Exception {
+            this.username = username;
+            database.addUser(new User(username, "password", username + "@mail.com"));
+            this.token = database.createAuthToken(username).authToken();
+            this.session = FakeSessions.open(false, text -> {
+                received.add(text);
+                if (isAnswer(text)) {
+                    answers.incrementAndGet();
+                }
+            });
+        }
+
+        private boolean isAnswer(String text) {
+            ServerMessage message = ChessJson.fromJson(text, ServerMessage.class);
+            return switch (message.getServerMessageType()) {
+                case ERROR -> true;
+                case MOVE -> username.equals(ChessJson.fromJson(text, MoveMessage.class).getUsername());
+                case NOTIFICATION -> ChessJson.fromJson(text, NotificationMessage.class).getMessage().startsWith("You have resigned");
+                default -> false;
+            };
+        }
+    }
+
+    private record TestGame(int gameID, Client white, Client black, Client observer) {}
+
+    public static void main(String[] args) throws Exception {
+        int gameCount = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+        int attemptsPerPlayer = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+        int clientThreads = (args.length > 2) ? Integer.parseInt(args[2]) : 16;
+
+        MainMemoryDAO database = new MainMemoryDAO();
+        WebSocketHandler handler = new WebSocketHandler(database);
+
+        List<TestGame> games = new ArrayList<>(gameCount);
+        for (int g = 0; g < gameCount; g++) {
+            Game game = database.createGame("stress " + g);
+            TestGame testGame = new TestGame(game.gameID(), new Client(database, "white" + g),
+                    new Client(database, "black" + g), new Client(database, "observer" + g));
+            database.setWhitePlayer(game.gameID(), testGame.white().username);
+            database.setBlackPlayer(game.gameID(), testGame.black().username);
+            games.add(testGame);
+        }
+
+        // every join first, and wait for them all to be in before the moves start
+        for (TestGame game : games) {
+            send(handler, game.white(), withMoveMessages(new JoinPlayerCommand(game.white().token, game.gameID(), ChessGame.TeamColor.WHITE)));
+            send(handler, game.black(), withMoveMessages(new JoinPlayerCommand(game.black().token, game.gameID(), ChessGame.TeamColor.BLACK)));
+            send(handler, game.observer(), withMoveMessages(new JoinObserverCommand(game.observer().token, game.gameID())));
+        }
+        awaitMessages(games, game -> game.observer().received.size() >= 1 && game.white().received.size() >= 3
+                && game.black().received.size() >= 2);
+        System.out.printf("%d games joined, %d with an actor%n", gameCount, handler.activeGames());
+
+        // Each player's attempts are split across the client threads and shuffled together with every other
+        // game's, so the two players of a game, and several attempts by the same player, race each other.
+        List<Runnable> attempts = new ArrayList<>(gameCount * attemptsPerPlayer * 2);
+        for (TestGame game : games) {
+            for (int a = 0; a < attemptsPerPlayer; a++) {
+                // knights out and back, so the players can keep trying forever
+                ChessMove whiteMove = KnightMoves.at(2 * a);
+                ChessMove blackMove = KnightMoves.at(2 * a + 1);
+                attempts.add(() -> send(handler, game.white(), new MoveCommand(game.white().token, whiteMove, game.gameID())));
+                attempts.add(() -> send(handler, game.black(), new MoveCommand(game.black().token, blackMove, game.gameID())));
+            }
+        }
+        Collections.shuffle(attempts);
+        ExecutorService clients = Executors.newFixedThreadPool(clientThreads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);     // so a timeout still ends the run
+            return thread;
+        });
+        long start = System.nanoTime();
+        for (Runnable attempt : attempts) {
+            clients.execute(attempt);
+        }
+        awaitMessages(games, game -> game.white().answers.get() == attemptsPerPlayer && game.black().answers.get() == attemptsPerPlayer);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // both players resign at once
+        List<Runnable> resignations = new ArrayList<>(gameCount * 2);
+        for (TestGame game : games) {
+            resignations.add(() -> send(handler, game.white(), new ResignGameCommand(game.white().token, game.gameID())));
+            resignations.add(() -> send(handler, game.black(), new ResignGameCommand(game.black().token, game.gameID())));
+        }
+        Collections.shuffle(resignations);
+        for (Runnable resignation : resignations) {
+            clients.execute(resignation);
+        }
+        awaitMessages(games, game -> game.white().answers.get() == attemptsPerPlayer + 1 && game.black().answers.get() == attemptsPerPlayer + 1);
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.MINUTES);
+
+        int failures = 0;
+        long movesPlayed = 0;
+        for (TestGame game : games) {
+            String problem = check(database, game);
+            if (problem != null) {
+                failures++;
+                if (failures <= 10) {
+                    System.out.println("game " + game.gameID() + ": " + problem);
+                }
+            }
+            movesPlayed += moves(game.observer()).size();
+        }
+
+        System.out.printf("%d commands in %.2f s (%.0f per second), %d moves played%n",
+                attempts.size(), seconds, attempts.size() / seconds, movesPlayed);
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " of " + gameCount + " games were inconsistent");
+            System.exit(1);
+        }
+        System.out.println("All " + gameCount + " games consistent");
+    }
+
+    // null if the game is consistent, otherwise what is wrong with it
+    private static String check(MainMemoryDAO database, TestGame game) throws Exception {
+        List<MoveMessage> moves = moves(game.observer());
+        if (moves.isEmpty()) {
+            return "no moves were played";
+        }
+        MyGame replay = new MyGame();
+        for (int i = 0; i < moves.size(); i++) {
+            MoveMessage move = moves.get(i);
+            if (move.getSequence() != i + 1) {
+                return "move " + (i + 1) + " arrived with sequence " + move.getSequence();
+            }
+            replay.makeMove(move.getMove());
+            if (Zobrist.keyOf(replay.getBoard(), replay.getTeamTurn()) != move.getPositionHash()) {
+                return "move " + (i + 1) + " was played on a different position than the one before it";
+            }
+        }
+        int whiteMoves = countMoves(game.white(), game.white().username);
+        int blackMoves = countMoves(game.black(), game.black().username);
+        if (whiteMoves + blackMoves != moves.size()) {
+            return "players were told about " + (whiteMoves + blackMoves) + " moves, the observer saw " + moves.size();
+        }
+
+        Game stored = database.findGame(game.gameID());
+        if (!Fen.toFen(replay).equals(Fen.toFen(stored.game()))) {
+            return "stored game " + Fen.toFen(stored.game()) + " is not the replayed " + Fen.toFen(replay);
+        }
+        if (!stored.isGameOver()) {
+            return "still undecided after both players resigned";
+        }
+        int resigned = resigned(game.white()) + resigned(game.black());
+        if (resigned != 1) {
+            return resigned + " players managed to resign";
+        }
+        return null;
+    }
+
+    private static List<MoveMessage> moves(Client client) {
+        List<MoveMessage> moves = new ArrayList<>();
+        for (String text : client.received) {
+            if (ChessJson.fromJson(text, ServerMessage.class).getServerMessageType() == ServerMessage.ServerMessageType.MOVE) {
+                moves.add(ChessJson.fromJson(text, MoveMessage.class));
+            }
+        }
+        return moves;
+    }
+
+    private static int countMoves(Client client, String username) {
+        int count = 0;
+        for (MoveMessage move : moves(client)) {
+            if (move.getUsername().equals(username)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int resigned(Client client) {
+        int count = 0;
+        for (String text : client.received) {
+            if (text.contains("You have resigned")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static UserGameCommand withMoveMessages(UserGameCommand command) {
+        command.setMoveMessages(true);
+        return command;
+    }
+
+    private static void send(WebSocketHandler handler, Client client, UserGameCommand command) {
+        try {
+            handler.onMessage(client.session, ChessJson.toJson(command));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private interface Condition {
+        boolean holds(TestGame game);
+    }
+
+    // Waits until every game meets the condition, the actors answer asynchronously
+    private static void awaitMessages(List<TestGame> games, Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        for (TestGame game : games) {
+            while (!condition.holds(game)) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Timed out waiting on game " + game.gameID() + ", white was sent "
+                            + game.white().received + ", black " + game.black().received + ", the observer " + game.observer().received);
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-process websocket sessions for the server benchmarks, so WebSocketHandler can be driven without Jetty
+ * or a network. They are always open and count what is sent to them.
+ */
+public class FakeSessions {
+
+    private static final AtomicLong messagesSent = new AtomicLong();
+
+    // every message sent to any fake session so far
+    public static long messagesSent() {
+        return messagesSent.get();
+    }
+
+    // A stalled session never finishes an asynchronous send, like a client that has stopped reading
+    public static Session open(boolean stalled) {
+        return open(stalled, null);
+    }
+
+    // Like open, and hands everything sent to the session to received as well
+    public static Session open(boolean stalled, Consumer<String> received) {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("sendString") && !stalled) {
+                        messagesSent.incrementAndGet();
+                        if (received != null) {
+                            received.accept((String) args[0]);
+                        }
+                        if (args.length == 2 && args[1] instanceof WriteCallback callback) {
+                            callback.writeSuccess();
+                        }
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "fake session " + System.identityHashCode(proxy);
+                    default -> (method.getReturnType() == boolean.class) ? false
+                            : (method.getReturnType() == long.class) ? 0L
+                            : (method.getReturnType() == int.class) ? 0 : null;
+                });
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import chess.*;
+
+/**
+ * Compares the size and the encode/decode time of one game in each GameFormat: JSON, FEN and PACKED.
+ * Run the main method directly, there is nothing to configure.
+ */
+public class GameFormatBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    public static void main(String[] args) throws InvalidMoveException {
+        ChessGame game = new MyGame();
+        game.makeMove(new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null));
+        game.makeMove(new MyMove(MyPosition.of(7, 3), MyPosition.of(5, 3), null));
+        game.makeMove(new MyMove(MyPosition.of(1, 7), MyPosition.of(3, 6), null));
+
+        String json = GameFormat.JSON.encode(game);
+        String fen = GameFormat.FEN.encode(game);
+        byte[] packed = PackedGame.encode(game);
+        byte[] buffer = new byte[PackedGame.SIZE];
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            GameFormat.decode(GameFormat.JSON.encode(game));
+            GameFormat.decode(GameFormat.FEN.encode(game));
+            PackedGame.encode(game, buffer, 0);
+            PackedGame.decode(buffer);
+        }
+
+        System.out.printf("%-8s %8s %14s %14s%n", "format", "bytes", "encode (us)", "decode (us)");
+        System.out.printf("%-8s %8d %14.3f %14.3f%n", "JSON", json.length(),
+                time(() -> GameFormat.JSON.encode(game)), time(() -> GameFormat.decode(json)));
+        System.out.printf("%-8s %8d %14.3f %14.3f%n", "FEN", fen.length(),
+                time(() -> GameFormat.FEN.encode(game)), time(() -> GameFormat.decode(fen)));
+        System.out.printf("%-8s %8d %14.3f %14.3f%n", "PACKED", packed.length,
+                time(() -> PackedGame.encode(game, buffer, 0)), time(() -> PackedGame.decode(packed)));
+    }
+
+    // average microseconds per call
+    private static double time(Runnable operation) {
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / 1000.0 / MEASURED_ITERATIONS;
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import models.Game;
+import webSocketMessages.serverMessages.LoadGameMessage;
+
+/**
+ * Compares the old way of (de)serializing a full LoadGameMessage, a new GsonBuilder with the
+ * JsonDeserializer adapters on every call, with the shared ChessJson codec.
+ * Run the main method directly, there is nothing to configure.
+ *
+ * Both paths are also checked to produce identical JSON before anything is timed.
+ */
+public class JsonCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+
+    public static void main(String[] args) throws InvalidMoveException {
+        ChessGame chessGame = new MyGame();
+        chessGame.makeMove(new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null));
+        chessGame.makeMove(new MyMove(MyPosition.of(7, 3), MyPosition.of(5, 3), null));
+        chessGame.makeMove(new MyMove(MyPosition.of(1, 7), MyPosition.of(3, 6), null));
+        LoadGameMessage message = new LoadGameMessage(new Game(42, "alice", "bob", "benchmark game", chessGame));
+
+        String oldJson = oldSerialize(message);
+        String newJson = ChessJson.toJson(message);
+        if (!oldJson.equals(newJson)) {
+            throw new IllegalStateException("The codec wrote different JSON:\n" + oldJson + "\n" + newJson);
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            oldDeserialize(oldSerialize(message));
+            ChessJson.fromJson(ChessJson.toJson(message), LoadGameMessage.class);
+        }
+
+        double oldWrite = time(() -> oldSerialize(message));
+        double newWrite = time(() -> ChessJson.toJson(message));
+        double oldRead = time(() -> oldDeserialize(oldJson));
+        double newRead = time(() -> ChessJson.fromJson(newJson, LoadGameMessage.class));
+
+        System.out.printf("LoadGameMessage, %d bytes of JSON, %d measured iterations%n", newJson.length(), MEASURED_ITERATIONS);
+        System.out.printf("serialize    GsonBuilder per call %8.2f us   shared codec %8.2f us   speedup %.2fx%n",
+                oldWrite, newWrite, oldWrite / newWrite);
+        System.out.printf("deserialize  GsonBuilder per call %8.2f us   shared codec %8.2f us   speedup %.2fx%n",
+                oldRead, newRead, oldRead / newRead);
+    }
+
+    // what WebSocketHandler.serializeToJson used to do
+    private static String oldSerialize(Object object) {
+        return oldGson().toJson(object);
+    }
+
+    private static LoadGameMessage oldDeserialize(String json) {
+        return oldGson().fromJson(json, LoadGameMessage.class);
+    }
+
+    private static Gson oldGson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
+                .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
+                .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
+                .registerTypeAdapter(ChessMove.class, new ChessMoveTypeAdapter())
+                .registerTypeAdapter(ChessPosition.class, new ChessPositionTypeAdapter())
+                .create();
+    }
+
+    // average microseconds per call
+    private static double time(Runnable operation) {
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / 1000.0 / MEASURED_ITERATIONS;
+    }
+}
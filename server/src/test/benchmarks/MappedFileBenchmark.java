@@ -0,0 +1,99 @@
+package benchmarks;
+
+import chess.GameFormat;
+import chess.MyMove;
+import chess.MyPosition;
+import dao.BatchingDAO;
+import dao.MappedFileDAO;
+import models.Game;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures MappedFileDAO: how long it takes to open a directory full of games, against reading the same
+ * games back from a file of JSON, and how many game updates a second it can force to the disk one at a time
+ * and in GroupCommitDAO sized batches.
+ *
+ * Everything is written to a temporary directory, which is deleted afterwards. The write numbers depend
+ * almost entirely on how long the disk takes to force a write.
+ * Arguments (all optional): games, updates, batch size, e.g. "100000 2000 64"
+ */
+public class MappedFileBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int gameCount = (args.length > 0) ? Integer.parseInt(args[0]) : 100_000;
+        int updates = (args.length > 1) ? Integer.parseInt(args[1]) : 2_000;
+        int batchSize = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+
+        Path root = Files.createTempDirectory("chess-benchmark");
+        try {
+            Path directory = root.resolve("data");
+            MappedFileDAO files = new MappedFileDAO(directory, false, MappedFileDAO.DEFAULT_CHECKPOINT_BYTES);
+            StringBuilder json = new StringBuilder();
+            for (int g = 0; g < gameCount; g++) {
+                Game game = files.createGame("game " + g);
+                game.game().makeMove(new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null));
+                files.updateGame(game);
+                json.append(GameFormat.JSON.encode(game.game())).append('\n');
+            }
+            files.close();
+            Path jsonFile = root.resolve("games.json");
+            Files.writeString(jsonFile, json);
+
+            System.out.printf("%d games, %d KB of records, %d KB of JSON%n", gameCount,
+                    Files.size(directory.resolve("games.dat")) / 1024, Files.size(jsonFile) / 1024);
+
+            long start = System.nanoTime();
+            files = new MappedFileDAO(directory);
+            double openMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            int listed = files.findAllGames().size();
+            double listMillis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%-28s %10.1f ms%n", "open the mapped files", openMillis);
+            System.out.printf("%-28s %10.1f ms  (%d games)%n", "then list every game", listMillis, listed);
+
+            start = System.nanoTime();
+            int parsed = 0;
+            for (String line : Files.readAllLines(jsonFile, StandardCharsets.UTF_8)) {
+                GameFormat.decode(line);
+                parsed++;
+            }
+            System.out.printf("%-28s %10.1f ms  (%d games)%n", "read and parse the JSON", (System.nanoTime() - start) / 1e6, parsed);
+
+            // the same game updated over and over, each forced to the disk before the next
+            Game game = files.findGame(MappedFileDAO.FIRST_GAME_ID);
+            start = System.nanoTime();
+            for (int u = 0; u < updates; u++) {
+                files.updateGame(game.setState((u % 2 == 0) ? Game.GameState.UNDECIDED : Game.GameState.DRAW));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-28s %10.0f updates/s%n", "one update per force", updates / seconds);
+
+            // different games in each batch, the way GroupCommitDAO hands them over
+            start = System.nanoTime();
+            for (int u = 0; u < updates; u += batchSize) {
+                List<BatchingDAO.GameWrite> batch = new ArrayList<>(batchSize);
+                for (int b = 0; b < batchSize && u + b < updates; b++) {
+                    Game next = files.findGame(MappedFileDAO.FIRST_GAME_ID + (u + b) % gameCount);
+                    batch.add(new BatchingDAO.GameWrite(next.setState(Game.GameState.DRAW), true, List.of()));
+                }
+                files.writeBatch(batch);
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-28s %10.0f updates/s%n", batchSize + " updates per force", updates / seconds);
+            files.close();
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import chess.*;
+
+/**
+ * Times parallel perft at increasing thread counts and reports the speedup and scaling efficiency
+ * (speedup divided by threads) for each, with and without the shared transposition cache.
+ *
+ * Arguments, all optional:
+ *   depth             perft depth, default 5
+ *   splitPlies        how many plies are split into separate tasks, default 2
+ *   --fen "<fen>"     position to run, default the start position
+ */
+public class ParallelPerftBenchmark {
+
+    private static final int CACHE_MEGABYTES = 64;
+
+    public static void main(String[] args) {
+        int depth = 5;
+        int splitPlies = 2;
+        String fen = Perft.REFERENCE_POSITIONS.get(0).fen;
+        int number = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--fen")) {
+                fen = args[++i];
+            } else if (number++ == 0) {
+                depth = Integer.parseInt(args[i]);
+            } else {
+                splitPlies = Integer.parseInt(args[i]);
+            }
+        }
+
+        BitBoard board = new BitBoard();
+        ChessGame.TeamColor turn = Fen.loadPosition(board, fen);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("[%s] depth %d, split over %d plies, %d cores available%n", fen, depth, splitPlies, cores);
+
+        // warm up the JIT on a smaller tree so the single-thread baseline isn't penalized
+        ParallelPerft.perft(board, turn, Math.max(1, depth - 1), cores, splitPlies, null);
+
+        for (boolean useCache : new boolean[]{false, true}) {
+            System.out.printf("%n%s%n", useCache ? "Shared " + CACHE_MEGABYTES + " MB transposition cache" : "No cache");
+            System.out.printf("%-8s %14s %10s %12s %9s %11s%n", "threads", "nodes", "ms", "Mnodes/s", "speedup", "efficiency");
+            double baseline = 0;
+            for (int threads = 1; threads <= cores; threads = nextThreadCount(threads, cores)) {
+                // a fresh cache each run, otherwise later runs would just read back the earlier counts
+                PerftCache cache = useCache ? new PerftCache(CACHE_MEGABYTES) : null;
+                long start = System.nanoTime();
+                long nodes = ParallelPerft.perft(board, turn, depth, threads, splitPlies, cache);
+                double millis = (System.nanoTime() - start) / 1e6;
+                if (threads == 1) {
+                    baseline = millis;
+                }
+                double speedup = baseline / millis;
+                System.out.printf("%-8d %14d %10.1f %12.2f %8.2fx %10.0f%%%n",
+                        threads, nodes, millis, nodes / millis / 1000.0, speedup, 100 * speedup / threads);
+            }
+        }
+    }
+
+    // doubles the thread count each step, finishing on exactly the number of cores
+    private static int nextThreadCount(int threads, int cores) {
+        if (threads == cores) {
+            return cores + 1;
+        }
+        return Math.min(threads * 2, cores);
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import chess.*;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs perft on the reference positions and reports node counts and nodes per second for each way of
+ * walking the move tree, so board implementations can be compared head to head.
+ *
+ * Arguments, all optional:
+ *   maxDepth          deepest depth to run, default 4 (never deeper than a position's published counts)
+ *   --divide          also print the node count below each root move at the deepest depth
+ *   --fen "<fen>"     run a single position instead of the reference set, with no expected counts
+ */
+public class PerftBenchmark {
+
+    // the ChessGame API path is much slower, so it stops at a smaller tree
+    private static final long MAX_API_NODES = 250_000;
+
+    public static void main(String[] args) {
+        int maxDepth = 4;
+        boolean divide = false;
+        String fen = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--divide" -> divide = true;
+                case "--fen" -> fen = args[++i];
+                default -> maxDepth = Integer.parseInt(args[i]);
+            }
+        }
+
+        if (fen != null) {
+            run(new Perft.ReferencePosition("Custom position", fen), maxDepth, divide);
+            return;
+        }
+        boolean allMatched = true;
+        for (Perft.ReferencePosition position : Perft.REFERENCE_POSITIONS) {
+            allMatched &= run(position, Math.min(maxDepth, position.maxDepth()), divide);
+        }
+        System.out.println(allMatched ? "All node counts match" : "NODE COUNT MISMATCH");
+    }
+
+    // returns false if any count disagrees with a published one
+    private static boolean run(Perft.ReferencePosition position, int maxDepth, boolean divide) {
+        System.out.printf("%n%s  [%s]%n", position.name, position.fen);
+        System.out.printf("%-6s %-28s %14s %14s %10s %12s%n", "depth", "walk", "nodes", "expected", "ms", "Mnodes/s");
+        boolean matched = true;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long expected = (depth <= position.maxDepth()) ? position.expectedNodes(depth) : -1;
+
+            BitBoard board = new BitBoard();
+            ChessGame.TeamColor turn = Fen.loadPosition(board, position.fen);
+            int finalDepth = depth;
+            matched &= report(depth, "BitBoard make/unmake", expected, () -> Perft.perft(board, turn, finalDepth));
+
+            if (expected < 0 || expected <= MAX_API_NODES) {
+                matched &= report(depth, "ChessGame API, BitBoard", expected,
+                        () -> Perft.perft(newGame(position, BitBoard::new), finalDepth, BitBoard::new));
+                matched &= report(depth, "ChessGame API, MyBoard", expected,
+                        () -> Perft.perft(newGame(position, MyBoard::new), finalDepth, MyBoard::new));
+            }
+        }
+
+        if (divide) {
+            BitBoard board = new BitBoard();
+            ChessGame.TeamColor turn = Fen.loadPosition(board, position.fen);
+            Map<String, Long> counts = Perft.divide(board, turn, maxDepth);
+            counts.forEach((move, nodes) -> System.out.printf("  %-6s %d%n", move, nodes));
+            System.out.printf("  %d moves, %d nodes%n", counts.size(), counts.values().stream().mapToLong(Long::longValue).sum());
+        }
+        return matched;
+    }
+
+    private static boolean report(int depth, String walk, long expected, Supplier<Long> perft) {
+        perft.get();    // one untimed run so the JIT has compiled the walk before it's measured
+        long start = System.nanoTime();
+        long nodes = perft.get();
+        double millis = (System.nanoTime() - start) / 1e6;
+        boolean matched = expected < 0 || nodes == expected;
+        System.out.printf("%-6d %-28s %14d %14s %10.1f %12.2f%s%n", depth, walk, nodes,
+                expected < 0 ? "-" : Long.toString(expected), millis, nodes / millis / 1000.0, matched ? "" : "  MISMATCH");
+        return matched;
+    }
+
+    private static ChessGame newGame(Perft.ReferencePosition position, Supplier<ChessBoard> boardFactory) {
+        ChessGame game = new MyGame(boardFactory.get());
+        game.setTeamTurn(Fen.loadPosition(game.getBoard(), position.fen));
+        return game;
+    }
+}
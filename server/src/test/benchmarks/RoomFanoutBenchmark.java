@@ -0,0 +1,113 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessJson;
+import dao.MainMemoryDAO;
+import handlers.WebSocketHandler;
+import models.AuthToken;
+import models.Game;
+import models.User;
+import org.eclipse.jetty.websocket.api.Session;
+import passoffTests.KnightMoves;
+import webSocketMessages.userCommands.JoinObserverCommand;
+import webSocketMessages.userCommands.JoinPlayerCommand;
+import server.OutboundMetrics;
+import server.OutboundQueue;
+import webSocketMessages.userCommands.MoveCommand;
+
+/**
+ * Load test for websocket fan-out: sets up a growing number of games, each with two players and some
+ * observers joined through WebSocketHandler, then times moves in one of them. With per-game rooms the time
+ * and the number of messages sent per move should stay flat however many other games are running.
+ *
+ * The first game also has one stalled observer whose sends never complete. Its outbound queue fills up and
+ * the overflow policy kicks in, but the moves shouldn't slow down.
+ *
+ * Runs against MainMemoryDAO with in-process fake websocket sessions, so no server or database is needed.
+ * Arguments (all optional): observers per game, then the game counts to try, e.g. "2 1 10 100 1000"
+ */
+public class RoomFanoutBenchmark {
+
+    private static final int WARMUP_MOVES = 2_000;
+    private static final int MEASURED_MOVES = 4_000;
+
+    public static void main(String[] args) throws Exception {
+        int observersPerGame = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+        int[] gameCounts = {1, 10, 100, 1000};
+        if (args.length > 1) {
+            gameCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                gameCounts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%d observers per game, %d measured moves%n", observersPerGame, MEASURED_MOVES);
+        System.out.printf("%8s %12s %14s %18s %10s %12s%n", "games", "sockets", "us per move", "messages per move",
+                "dropped", "coalesced");
+        for (int games : gameCounts) {
+            run(games, observersPerGame);
+        }
+    }
+
+    private static void run(int gameCount, int observersPerGame) throws Exception {
+        MainMemoryDAO database = new MainMemoryDAO();
+        WebSocketHandler handler = new WebSocketHandler(database, WebSocketHandler.DEFAULT_QUEUE_CAPACITY,
+                OutboundQueue.OverflowPolicy.COALESCE_LOAD_GAME, Runnable::run);   // games run on this thread
+
+        Session[] whiteSessions = new Session[gameCount];
+        String[] whiteTokens = new String[gameCount];
+        Session[] blackSessions = new Session[gameCount];
+        String[] blackTokens = new String[gameCount];
+        int[] gameIDs = new int[gameCount];
+        for (int g = 0; g < gameCount; g++) {
+            Game game = database.createGame("game " + g);
+            gameIDs[g] = game.gameID();
+
+            whiteTokens[g] = newUser(database, "white" + g);
+            blackTokens[g] = newUser(database, "black" + g);
+            database.setWhitePlayer(game.gameID(), "white" + g);
+            database.setBlackPlayer(game.gameID(), "black" + g);
+
+            whiteSessions[g] = FakeSessions.open(false);
+            blackSessions[g] = FakeSessions.open(false);
+            handler.onMessage(whiteSessions[g], ChessJson.toJson(new JoinPlayerCommand(whiteTokens[g], game.gameID(), ChessGame.TeamColor.WHITE)));
+            handler.onMessage(blackSessions[g], ChessJson.toJson(new JoinPlayerCommand(blackTokens[g], game.gameID(), ChessGame.TeamColor.BLACK)));
+            for (int o = 0; o < observersPerGame; o++) {
+                String token = newUser(database, "observer" + g + "_" + o);
+                handler.onMessage(FakeSessions.open(false), ChessJson.toJson(new JoinObserverCommand(token, game.gameID())));
+            }
+        }
+        String stalledToken = newUser(database, "stalled observer");
+        handler.onMessage(FakeSessions.open(true), ChessJson.toJson(new JoinObserverCommand(stalledToken, gameIDs[0])));
+
+        // every move is made in the first game while the others sit there
+        for (int m = 0; m < WARMUP_MOVES; m++) {
+            playMove(handler, m, gameIDs[0], whiteSessions[0], whiteTokens[0], blackSessions[0], blackTokens[0]);
+        }
+        long messagesBefore = FakeSessions.messagesSent();
+        long start = System.nanoTime();
+        for (int m = 0; m < MEASURED_MOVES; m++) {
+            playMove(handler, m, gameIDs[0], whiteSessions[0], whiteTokens[0], blackSessions[0], blackTokens[0]);
+        }
+        double microsPerMove = (System.nanoTime() - start) / 1000.0 / MEASURED_MOVES;
+        double messagesPerMove = (double) (FakeSessions.messagesSent() - messagesBefore) / MEASURED_MOVES;
+
+        int sockets = gameCount * (2 + observersPerGame) + 1;
+        OutboundMetrics.Snapshot metrics = handler.outboundMetrics();
+        System.out.printf("%8d %12d %14.1f %18.1f %10d %12d%n", gameCount, sockets, microsPerMove, messagesPerMove,
+                metrics.dropped(), metrics.coalesced());
+    }
+
+    private static void playMove(WebSocketHandler handler, int m, int gameID, Session white, String whiteToken,
+                                 Session black, String blackToken) throws Exception {
+        boolean whiteToMove = (m % 2 == 0);
+        MoveCommand command = new MoveCommand(whiteToMove ? whiteToken : blackToken, KnightMoves.at(m), gameID);
+        handler.onMessage(whiteToMove ? white : black, ChessJson.toJson(command));
+    }
+
+    private static String newUser(MainMemoryDAO database, String username) throws Exception {
+        database.addUser(new User(username, "password", username + "@mail.com"));
+        AuthToken token = database.createAuthToken(username);
+        return token.authToken();
+    }
+}
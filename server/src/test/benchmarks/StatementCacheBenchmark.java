@@ -0,0 +1,110 @@
+package benchmarks;
+
+import chess.GameFormat;
+import dao.SQLDAO;
+import dataAccess.Database;
+import models.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Per-query latency of SQLDAO's hot queries with a new statement prepared and closed on every call, the way
+ * SQLDAO used to do it, against the statement reused from the connection's StatementCache.
+ *
+ * Both run on the same pooled connection with server-side prepared statements on, so the uncached run pays
+ * a prepare and a close round trip on top of the execute, and the cached run only the execute.
+ *
+ * Needs the MySQL server configured in dataAccess.Database, and clears its chess tables first.
+ * Arguments (all optional): calls per query, e.g. "5000"
+ */
+public class StatementCacheBenchmark {
+
+    private interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private record Query(String name, String sql, Binder binder) {}
+
+    public static void main(String[] args) throws Exception {
+        int calls = (args.length > 0) ? Integer.parseInt(args[0]) : 5_000;
+
+        SQLDAO dao = new SQLDAO(GameFormat.FEN);
+        dao.clearAll();
+        dao.addUser(new User("player", "password", "player@mail.com"));
+        String token = dao.createAuthToken("player").authToken();
+        int gameID = dao.createGame("benchmark").gameID();
+        dao.addObserver(gameID, "player");
+
+        Query[] queries = {
+                new Query("getAuthToken", "SELECT username FROM tokens WHERE authToken = ?",
+                        statement -> statement.setString(1, token)),
+                new Query("getUser", "SELECT * FROM users WHERE username = ?",
+                        statement -> statement.setString(1, "player")),
+                new Query("findGame", "SELECT * FROM games WHERE gameID = ?",
+                        statement -> statement.setInt(1, gameID)),
+                new Query("getObserver", "SELECT * FROM observers WHERE gameID = ? AND username = ?",
+                        statement -> {
+                            statement.setInt(1, gameID);
+                            statement.setString(2, "player");
+                        }),
+                new Query("setWhitePlayer", "UPDATE games SET whiteUsername = ? WHERE gameID = ?",
+                        statement -> {
+                            statement.setString(1, "player");
+                            statement.setInt(2, gameID);
+                        })
+        };
+
+        Database database = new Database(1, 1, Database.DEFAULT_ACQUIRE_TIMEOUT_MILLIS, Database.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        Connection connection = database.getConnection();
+        System.out.printf("%d calls per query%n", calls);
+        System.out.printf("%16s %14s %14s %14s %14s%n", "query", "p50 before", "p99 before", "p50 after", "p99 after");
+        try {
+            for (Query query : queries) {
+                // a warm up round of each first
+                time(calls / 5, query, () -> prepareEachTime(connection, query));
+                time(calls / 5, query, () -> database.prepareStatement(connection, query.sql()));
+                long[] before = time(calls, query, () -> prepareEachTime(connection, query));
+                long[] after = time(calls, query, () -> database.prepareStatement(connection, query.sql()));
+                System.out.printf("%16s %11.1f us %11.1f us %11.1f us %11.1f us%n", query.name(),
+                        before[calls / 2] / 1e3, before[(int) (calls * 0.99)] / 1e3,
+                        after[calls / 2] / 1e3, after[(int) (calls * 0.99)] / 1e3);
+            }
+        } finally {
+            database.returnConnection(connection);
+        }
+        Database.Metrics metrics = database.metrics();
+        System.out.printf("statement cache: %d hits, %d misses%n", metrics.statementHits(), metrics.statementMisses());
+    }
+
+    private interface Preparer {
+        PreparedStatement prepare() throws SQLException;
+    }
+
+    // A statement that closes itself once its query has run, like SQLDAO's try-with-resources did
+    private static PreparedStatement prepareEachTime(Connection connection, Query query) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(query.sql());
+        statement.closeOnCompletion();
+        return statement;
+    }
+
+    // Sorted latencies of the calls, each one preparing, binding and running the query
+    private static long[] time(int calls, Query query, Preparer preparer) throws SQLException {
+        long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            PreparedStatement statement = preparer.prepare();
+            query.binder().bind(statement);
+            if (statement.execute()) {
+                statement.getResultSet().close();
+            } else if (statement.isCloseOnCompletion()) {
+                statement.close();
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+}
@@ -0,0 +1,176 @@
+package benchmarks;
+
+import dao.MainMemoryDAO;
+import dataAccess.DataAccessException;
+import models.AuthToken;
+import models.Game;
+import models.User;
+import requests.LoginRequest;
+import server.VirtualThreads;
+import services.AuthenticationService;
+import services.GameService;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares request throughput on platform threads and on virtual threads when the handlers block on the
+ * database, with 1k to 10k clients all sending requests at once.
+ *
+ * Each client logs in and then lists the games, over and over, waiting for each answer before sending the
+ * next request, like a burst of players opening the game list. The requests go through the real
+ * AuthenticationService and GameService, on a MainMemoryDAO where every call first waits for one of a
+ * limited number of "connections" and then sleeps for a MySQL round trip while holding it.
+ *
+ * Platform threads get a pool of 200, which is what Spark's embedded Jetty allows. Virtual threads get a
+ * new thread per request. The connection limit is the same for both, since it is sized separately.
+ * The virtual thread runs need Java 21 and are skipped on older runtimes.
+ *
+ * Arguments (all optional): connections, round trip in ms, requests per client, then the client counts,
+ * e.g. "400 2 10 1000 5000 10000"
+ */
+public class ThreadModeBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    // A MySQL stand-in: each call holds one of a fixed number of connections for a round trip
+    private static final class SlowDAO extends MainMemoryDAO {
+        private final Semaphore connections;
+        private final long roundTripNanos;
+
+        SlowDAO(int connections, long roundTripNanos) {
+            this.connections = new Semaphore(connections, true);
+            this.roundTripNanos = roundTripNanos;
+        }
+
+        private void roundTrip() throws DataAccessException {
+            try {
+                connections.acquire();
+                try {
+                    Thread.sleep(roundTripNanos / 1_000_000, (int) (roundTripNanos % 1_000_000));
+                } finally {
+                    connections.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessException("interrupted");
+            }
+        }
+
+        @Override
+        public User getUser(String username) throws DataAccessException {
+            roundTrip();
+            return super.getUser(username);
+        }
+
+        @Override
+        public AuthToken createAuthToken(String username) throws DataAccessException {
+            roundTrip();
+            return super.createAuthToken(username);
+        }
+
+        @Override
+        public AuthToken getAuthToken(String authToken) throws DataAccessException {
+            roundTrip();
+            return super.getAuthToken(authToken);
+        }
+
+        @Override
+        public Collection<Game> findAllGames() throws DataAccessException {
+            roundTrip();
+            return super.findAllGames();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = (args.length > 0) ? Integer.parseInt(args[0]) : 400;
+        long roundTripNanos = (long) (((args.length > 1) ? Double.parseDouble(args[1]) : 2.0) * 1_000_000);
+        int requestsPerClient = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        int[] clientCounts = {1_000, 5_000, 10_000};
+        if (args.length > 3) {
+            clientCounts = Arrays.stream(args, 3, args.length).mapToInt(Integer::parseInt).toArray();
+        }
+
+        SlowDAO database = new SlowDAO(connections, roundTripNanos);
+        for (int g = 0; g < 20; g++) {
+            database.createGame("game " + g);
+        }
+        int maxClients = Arrays.stream(clientCounts).max().orElse(0);
+        for (int c = 0; c < maxClients; c++) {
+            database.addUser(new User("player" + c, "password", "player" + c + "@mail.com"));
+        }
+        AuthenticationService authService = new AuthenticationService(database);
+        GameService gameService = new GameService(database);
+
+        System.out.printf("%d connections, %.1f ms round trip, %d requests per client, Java %d%n", connections,
+                roundTripNanos / 1e6, requestsPerClient, Runtime.version().feature());
+        System.out.printf("%8s %10s %16s %12s %12s%n", "threads", "clients", "requests/s", "p50 (ms)", "p99 (ms)");
+        for (int clients : clientCounts) {
+            ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS);
+            run("platform", platform, clients, requestsPerClient, authService, gameService);
+            platform.shutdown();
+
+            if (VirtualThreads.isSupported()) {
+                ExecutorService virtual = VirtualThreads.newExecutor("request-");
+                run("virtual", virtual, clients, requestsPerClient, authService, gameService);
+                virtual.shutdown();
+            } else {
+                System.out.printf("%8s %10d %16s%n", "virtual", clients, "needs Java 21");
+            }
+        }
+    }
+
+    private static void run(String name, ExecutorService server, int clients, int requestsPerClient,
+                            AuthenticationService authService, GameService gameService) throws InterruptedException {
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger nextLatency = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            String username = "player" + c;
+            sendNext(server, username, requestsPerClient, null, authService, gameService, latencies, nextLatency, failures, done);
+        }
+        done.await(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int completed = nextLatency.get();
+        Arrays.sort(latencies, 0, completed);
+        System.out.printf("%8s %10d %16.0f %12.1f %12.1f%s%n", name, clients, completed / seconds,
+                latencies[completed / 2] / 1e6, latencies[(int) (completed * 0.99)] / 1e6,
+                (failures.get() > 0) ? "  (" + failures.get() + " failed)" : "");
+    }
+
+    // One request from the client, which sends the next one when this one is answered. The first request is a
+    // login and the rest list the games with the token it got back.
+    private static void sendNext(ExecutorService server, String username, int remaining, String authToken,
+                                 AuthenticationService authService, GameService gameService, long[] latencies,
+                                 AtomicInteger nextLatency, AtomicInteger failures, CountDownLatch done) {
+        if (remaining == 0) {
+            done.countDown();
+            return;
+        }
+        long sent = System.nanoTime();
+        server.execute(() -> {
+            String token = authToken;
+            try {
+                if (token == null) {
+                    token = authService.login(new LoginRequest(username, "password")).authToken();
+                } else {
+                    gameService.listGames(token);
+                }
+            } catch (Exception e) {
+                failures.incrementAndGet();
+            }
+            latencies[nextLatency.getAndIncrement()] = System.nanoTime() - sent;
+            sendNext(server, username, remaining - 1, token, authService, gameService, latencies, nextLatency, failures, done);
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package passoffTests;
+
+import chess.ChessMove;
+import chess.MyMove;
+import chess.MyPosition;
+
+/**
+ * A knight going out and back for each side, so a game can go on for as long as a test or benchmark
+ * needs it to. The same four half moves repeat: White's knight out, Black's out, White's back, Black's back.
+ */
+public class KnightMoves {
+
+    // half moves in one round of the cycle, after which the board is back where it started
+    public static final int CYCLE = 4;
+
+    private static final ChessMove[] MOVES = {
+            new MyMove(MyPosition.of(1, 7), MyPosition.of(3, 6), null),
+            new MyMove(MyPosition.of(8, 7), MyPosition.of(6, 6), null),
+            new MyMove(MyPosition.of(3, 6), MyPosition.of(1, 7), null),
+            new MyMove(MyPosition.of(6, 6), MyPosition.of(8, 7), null)
+    };
+
+    private KnightMoves() {}
+
+    /**
+     * @param ply the half moves played so far, from the starting position
+     * @return the move to play next
+     */
+    public static ChessMove at(int ply) {
+        return MOVES[ply % CYCLE];
+    }
+}
@@ -0,0 +1,253 @@
+package passoffTests.chessTests;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoffTests.KnightMoves;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Parity tests making sure BitBoard behaves exactly like MyBoard, both on its own
+ * and when it backs a MyGame
+ */
+public class BitBoardTests {
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    @Test
+    @DisplayName("Reset Board Matches MyBoard")
+    public void resetBoardParity() {
+        ChessBoard expected = new MyBoard();
+        ChessBoard actual = new BitBoard();
+        expected.resetBoard();
+        actual.resetBoard();
+        assertSameBoard(expected, actual);
+    }
+
+    @Test
+    @DisplayName("Random Add And Remove Matches MyBoard")
+    public void addPieceParity() {
+        Random random = new Random(42);
+        MyBoard expected = new MyBoard();
+        BitBoard actual = new BitBoard();
+        for (int i = 0; i < 5000; i++) {
+            ChessPosition position = new MyPosition(random.nextInt(8) + 1, random.nextInt(8) + 1);
+            ChessPiece piece = null;
+            if (random.nextInt(4) != 0) {
+                piece = newPiece(COLORS[random.nextInt(2)], TYPES[random.nextInt(TYPES.length)]);
+            }
+            expected.addPiece(position, piece);
+            actual.addPiece(position, piece);
+            assertSamePiece(expected.getPiece(position), actual.getPiece(position));
+            // both boards keep their key up to date as pieces come and go
+            Assertions.assertEquals(actual.zobristKey(), expected.zobristKey(), "MyBoard's Zobrist key drifted");
+        }
+        assertSameBoard(expected, actual);
+        assertSameBoard(expected, BitBoard.copyOf(expected));
+    }
+
+    @Test
+    @DisplayName("Random Games Match MyBoard Backed Games")
+    public void gameParity() throws InvalidMoveException {
+        Random random = new Random(7);
+        for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+            ChessGame expected = new MyGame();
+            ChessGame actual = new MyGame(new BitBoard());
+            for (int ply = 0; ply < 80; ply++) {
+                assertSameBoard(expected.getBoard(), actual.getBoard());
+                Assertions.assertEquals(((MyGame) expected).zobristKey(), ((MyGame) actual).zobristKey(),
+                        "Same position should give the same Zobrist key on both boards");
+                for (ChessGame.TeamColor color : COLORS) {
+                    Assertions.assertEquals(expected.isInCheck(color), actual.isInCheck(color),
+                            "isInCheck differed for " + color);
+                    Assertions.assertEquals(expected.isInCheckmate(color), actual.isInCheckmate(color),
+                            "isInCheckmate differed for " + color);
+                    Assertions.assertEquals(expected.isInStalemate(color), actual.isInStalemate(color),
+                            "isInStalemate differed for " + color);
+                }
+
+                List<ChessMove> legalMoves = new ArrayList<>();
+                for (int row = 1; row <= 8; row++) {
+                    for (int col = 1; col <= 8; col++) {
+                        ChessPosition position = new MyPosition(row, col);
+                        Collection<ChessMove> expectedMoves = expected.validMoves(position);
+                        Collection<ChessMove> actualMoves = actual.validMoves(position);
+                        if (expectedMoves == null) {
+                            Assertions.assertNull(actualMoves, "validMoves should be null for an empty square");
+                            continue;
+                        }
+                        Assertions.assertEquals(new HashSet<>(expectedMoves), new HashSet<>(actualMoves),
+                                "validMoves differed at " + row + "," + col);
+                        if (expected.getBoard().getPiece(position).getTeamColor() == expected.getTeamTurn()) {
+                            legalMoves.addAll(expectedMoves);
+                        }
+                    }
+                }
+                if (legalMoves.isEmpty()) {
+                    break;
+                }
+                ChessMove move = legalMoves.get(random.nextInt(legalMoves.size()));
+                expected.makeMove(move);
+                actual.makeMove(move);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Make And Unmake Restore The Board")
+    public void makeUnmake() {
+        Random random = new Random(11);
+        MoveList moves = new MoveList();
+        for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+            BitBoard board = new BitBoard();
+            board.resetBoard();
+            ChessGame.TeamColor turn = ChessGame.TeamColor.WHITE;
+            for (int ply = 0; ply < 120; ply++) {
+                moves.clear();
+                MoveGenerator.generateMoves(board, turn, moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                // every move made and taken back has to leave the board exactly as it was
+                ChessBoard before = BitBoard.copyOf(board);
+                long keyBefore = board.zobristKey();
+                for (int i = 0; i < moves.size(); i++) {
+                    board.makeMove(moves.get(i));
+                    board.unmakeMove();
+                    assertSameBoard(before, board);
+                    Assertions.assertEquals(keyBefore, board.zobristKey(), "Zobrist key was not restored");
+                    for (ChessGame.TeamColor color : COLORS) {
+                        Assertions.assertEquals(((BitBoard) before).kingSquare(color), board.kingSquare(color),
+                                "Cached king square was not restored");
+                    }
+                }
+                Assertions.assertEquals(ply, board.undoDepth(), "Undo stack should hold one entry per move played");
+
+                // play a random move and keep going, kings can be captured here since the moves are pseudo-legal
+                board.makeMove(moves.get(random.nextInt(moves.size())));
+                turn = (turn == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                // the incrementally updated key has to match one computed from scratch
+                MyBoard rebuilt = new MyBoard();
+                ChessPiece[][] squares = board.getBoard();
+                for (int square = 0; square < 64; square++) {
+                    rebuilt.addPiece(BitBoard.position(square), squares[square / 8][square % 8]);
+                }
+                Assertions.assertEquals(Zobrist.keyOf(rebuilt, turn), Zobrist.keyOf(board, turn), "Incremental Zobrist key drifted");
+                for (ChessGame.TeamColor color : COLORS) {
+                    long king = board.pieces(color, ChessPiece.PieceType.KING);
+                    Assertions.assertEquals(king == 0 ? -1 : Long.numberOfTrailingZeros(king), board.kingSquare(color),
+                            "Cached king square is out of date");
+                }
+            }
+            // taking everything back should land on the starting position
+            while (board.undoDepth() > 0) {
+                board.unmakeMove();
+            }
+            BitBoard start = new BitBoard();
+            start.resetBoard();
+            assertSameBoard(start, board);
+        }
+    }
+
+    @Test
+    @DisplayName("Game Moves Leave No Undo History")
+    public void gameKeepsNoUndoHistory() throws InvalidMoveException {
+        BitBoard board = new BitBoard();
+        MyGame game = new MyGame(board);
+        // long enough that a kept history would have grown the stack
+        for (int ply = 0; ply < 200; ply++) {
+            game.makeMove(KnightMoves.at(ply));
+            Assertions.assertEquals(0, board.undoDepth(), "A played move was kept on the undo stack");
+        }
+    }
+
+    @Test
+    @DisplayName("BitBoard Game Survives Json Round Trip")
+    public void jsonRoundTrip() throws InvalidMoveException {
+        ChessGame game = new MyGame(new BitBoard());
+        game.makeMove(new MyMove(new MyPosition(2, 5), new MyPosition(4, 5), null));
+
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
+                .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
+                .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
+                .create();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        Assertions.assertTrue(copy.getBoard() instanceof BitBoard, "BitBoard was not restored as a BitBoard");
+        Assertions.assertEquals(game.getTeamTurn(), copy.getTeamTurn());
+        assertSameBoard(game.getBoard(), copy.getBoard());
+    }
+
+
+    @Test
+    @DisplayName("Loaded Games Share Piece And Position Instances")
+    public void sharedInstances() throws InvalidMoveException {
+        ChessGame game = new MyGame();
+        game.makeMove(new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null));
+
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
+                .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
+                .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
+                .registerTypeAdapter(ChessPosition.class, new ChessPositionTypeAdapter())
+                .registerTypeAdapter(ChessMove.class, new ChessMoveTypeAdapter())
+                .create();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        ChessPiece[][] squares = copy.getBoard().getBoard();
+        for (ChessPiece[] row : squares) {
+            for (ChessPiece piece : row) {
+                if (piece != null) {
+                    Assertions.assertSame(PieceRegistry.of(piece.getTeamColor(), piece.getPieceType()), piece,
+                            "Deserialized pieces should be the shared instances");
+                }
+            }
+        }
+
+        ChessMove move = gson.fromJson(gson.toJson(new MyMove(MyPosition.of(7, 1), MyPosition.of(8, 1), ChessPiece.PieceType.QUEEN)), ChessMove.class);
+        Assertions.assertSame(MyPosition.of(7, 1), move.getStartPosition(), "Deserialized positions should be the shared instances");
+        Assertions.assertSame(MyPosition.of(8, 1), move.getEndPosition(), "Deserialized positions should be the shared instances");
+        Assertions.assertEquals(new MyPosition(3, 6).hashCode(), MyPosition.of(3, 6).hashCode());
+    }
+
+    private static ChessPiece newPiece(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> new MyKing(color);
+            case QUEEN -> new MyQueen(color);
+            case BISHOP -> new MyBishop(color);
+            case KNIGHT -> new MyKnight(color);
+            case ROOK -> new MyRook(color);
+            case PAWN -> new MyPawn(color);
+        };
+    }
+
+    private static void assertSameBoard(ChessBoard expected, ChessBoard actual) {
+        ChessPiece[][] expectedSquares = expected.getBoard();
+        ChessPiece[][] actualSquares = actual.getBoard();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                assertSamePiece(expectedSquares[row][col], actualSquares[row][col]);
+                assertSamePiece(expectedSquares[row][col], actual.getPiece(new MyPosition(row + 1, col + 1)));
+            }
+        }
+    }
+
+    private static void assertSamePiece(ChessPiece expected, ChessPiece actual) {
+        if (expected == null) {
+            Assertions.assertNull(actual, "Expected an empty square");
+            return;
+        }
+        Assertions.assertNotNull(actual, "Expected a " + expected.getPieceType());
+        Assertions.assertEquals(expected.getPieceType(), actual.getPieceType(), "Wrong piece type");
+        Assertions.assertEquals(expected.getTeamColor(), actual.getTeamColor(), "Wrong team color");
+    }
+}
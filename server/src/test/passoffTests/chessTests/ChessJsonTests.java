@@ -0,0 +1,65 @@
+package passoffTests.chessTests;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the shared streaming codec reads and writes exactly the JSON the old reflective Gson setup did
+ */
+public class ChessJsonTests {
+
+    // the setup every caller used to build for itself
+    private static final Gson REFLECTIVE = new GsonBuilder()
+            .registerTypeAdapter(ChessGame.class, new ChessGameTypeAdapter())
+            .registerTypeAdapter(ChessBoard.class, new ChessBoardTypeAdapter())
+            .registerTypeAdapter(ChessPiece.class, new ChessPieceTypeAdapter())
+            .registerTypeAdapter(ChessMove.class, new ChessMoveTypeAdapter())
+            .registerTypeAdapter(ChessPosition.class, new ChessPositionTypeAdapter())
+            .create();
+
+    @Test
+    @DisplayName("Codec Writes The Same Json As Reflection")
+    public void sameOutput() throws InvalidMoveException {
+        for (ChessGame game : new ChessGame[]{new MyGame(), new MyGame(new BitBoard())}) {
+            game.makeMove(new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null));
+            game.makeMove(new MyMove(MyPosition.of(7, 4), MyPosition.of(5, 4), null));
+            Assertions.assertEquals(REFLECTIVE.toJson(game), ChessJson.toJson(game), "Game JSON changed");
+            Assertions.assertEquals(REFLECTIVE.toJson(game.getBoard()), ChessJson.toJson(game.getBoard()), "Board JSON changed");
+        }
+
+        ChessMove promotion = new MyMove(MyPosition.of(7, 1), MyPosition.of(8, 1), ChessPiece.PieceType.KNIGHT);
+        Assertions.assertEquals(REFLECTIVE.toJson(promotion), ChessJson.toJson(promotion), "Move JSON changed");
+        ChessMove plain = new MyMove(MyPosition.of(2, 1), MyPosition.of(3, 1), null);
+        Assertions.assertEquals(REFLECTIVE.toJson(plain), ChessJson.toJson(plain), "Move JSON changed");
+    }
+
+    @Test
+    @DisplayName("Codec Reads Json Written By Reflection")
+    public void readsOldJson() throws InvalidMoveException {
+        for (ChessGame game : new ChessGame[]{new MyGame(), new MyGame(new BitBoard())}) {
+            game.makeMove(new MyMove(MyPosition.of(1, 7), MyPosition.of(3, 6), null));
+            ChessGame copy = ChessJson.fromJson(REFLECTIVE.toJson(game), ChessGame.class);
+
+            Assertions.assertEquals(game.getBoard().getClass(), copy.getBoard().getClass(), "Board implementation changed");
+            Assertions.assertEquals(game.getTeamTurn(), copy.getTeamTurn());
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPiece expected = game.getBoard().getPiece(MyPosition.of(row, col));
+                    ChessPiece actual = copy.getBoard().getPiece(MyPosition.of(row, col));
+                    Assertions.assertSame(expected == null ? null : PieceRegistry.of(expected.getTeamColor(), expected.getPieceType()), actual,
+                            "Wrong piece at " + row + "," + col);
+                }
+            }
+            // the loaded game has to be playable, not just look right
+            copy.makeMove(new MyMove(MyPosition.of(7, 5), MyPosition.of(5, 5), null));
+        }
+
+        ChessMove move = new MyMove(MyPosition.of(2, 8), MyPosition.of(1, 8), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals(move, ChessJson.fromJson(REFLECTIVE.toJson(move), ChessMove.class));
+        Assertions.assertNull(ChessJson.fromJson("null", ChessGame.class));
+    }
+}
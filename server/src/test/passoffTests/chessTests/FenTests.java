@@ -0,0 +1,103 @@
+package passoffTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the FEN reader and writer against known positions, and that games survive a round trip through FEN
+ */
+public class FenTests {
+
+    @Test
+    @DisplayName("New Game Is The Start Position")
+    public void startPosition() {
+        Assertions.assertEquals(Fen.START_POSITION, Fen.toFen(new MyGame()));
+        Assertions.assertEquals(Fen.START_POSITION, Fen.toFen(new MyGame(new BitBoard())));
+
+        MyGame game = Fen.parseGame(Fen.START_POSITION);
+        MyBoard expected = new MyBoard();
+        expected.resetBoard();
+        assertSameBoard(expected, game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Games Round Trip Through Fen")
+    public void roundTrip() throws InvalidMoveException {
+        for (ChessGame game : new ChessGame[]{new MyGame(), new MyGame(new BitBoard())}) {
+            // 1. e4 d5 2. exd5 Nf6 3. Nc3
+            game.makeMove(new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null));
+            game.makeMove(new MyMove(MyPosition.of(7, 4), MyPosition.of(5, 4), null));
+            game.makeMove(new MyMove(MyPosition.of(4, 5), MyPosition.of(5, 4), null));
+            game.makeMove(new MyMove(MyPosition.of(8, 7), MyPosition.of(6, 6), null));
+            game.makeMove(new MyMove(MyPosition.of(1, 2), MyPosition.of(3, 3), null));
+
+            String fen = Fen.toFen(game);
+            Assertions.assertEquals("rnbqkb1r/ppp1pppp/5n2/3P4/8/2N5/PPPP1PPP/R1BQKBNR b - - 2 3", fen);
+
+            MyGame copy = Fen.parseGame(fen);
+            assertSameBoard(game.getBoard(), copy.getBoard());
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, copy.getTeamTurn());
+            Assertions.assertEquals(2, copy.getHalfmoveClock());
+            Assertions.assertEquals(3, copy.getFullmoveNumber());
+            Assertions.assertEquals(fen, Fen.toFen(copy));
+            Assertions.assertEquals(fen, Fen.toFen(Fen.parseGame(fen, new BitBoard())));
+
+            // and the copy has to be playable, not just look right
+            copy.makeMove(new MyMove(MyPosition.of(6, 6), MyPosition.of(5, 4), null));
+            Assertions.assertEquals(0, copy.getHalfmoveClock());
+            Assertions.assertEquals(4, copy.getFullmoveNumber());
+        }
+    }
+
+    @Test
+    @DisplayName("Either Format Decodes")
+    public void decodeEitherFormat() throws InvalidMoveException {
+        ChessGame game = new MyGame();
+        game.makeMove(new MyMove(MyPosition.of(2, 4), MyPosition.of(4, 4), null));
+        for (GameFormat format : new GameFormat[]{GameFormat.JSON, GameFormat.FEN}) {
+            ChessGame copy = GameFormat.decode(format.encode(game));
+            assertSameBoard(game.getBoard(), copy.getBoard());
+            Assertions.assertEquals(game.getTeamTurn(), copy.getTeamTurn());
+        }
+        // a black knight in the corner is still FEN, not the start of JSON null
+        Assertions.assertNotNull(GameFormat.decode("n7/8/8/8/8/8/8/K6k w - - 0 1"));
+        Assertions.assertNull(GameFormat.decode("null"));
+    }
+
+    @Test
+    @DisplayName("Bad Fen Is Rejected")
+    public void rejectsBadFen() {
+        String[] bad = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w - - 0 1",             // 7 ranks
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",    // 9 squares
+                "rnbqkbnr/pppppppp/7/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",    // 7 squares
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",    // unknown piece
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x - - 0 1",    // side to move
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQx - 0 1",  // castling
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - zero 1", // counter
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1 extra"
+        };
+        for (String fen : bad) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.parseGame(fen), fen);
+        }
+        // castling rights and en passant squares from other tools are accepted, just not kept
+        Assertions.assertEquals(Fen.START_POSITION, Fen.toFen(Fen.parseGame("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1")));
+    }
+
+    private static void assertSameBoard(ChessBoard expected, ChessBoard actual) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece expectedPiece = expected.getPiece(MyPosition.of(row, col));
+                ChessPiece actualPiece = actual.getPiece(MyPosition.of(row, col));
+                Assertions.assertEquals(expectedPiece == null ? null : expectedPiece.getPieceType(),
+                        actualPiece == null ? null : actualPiece.getPieceType(), "Wrong piece at " + row + "," + col);
+                Assertions.assertEquals(expectedPiece == null ? null : expectedPiece.getTeamColor(),
+                        actualPiece == null ? null : actualPiece.getTeamColor(), "Wrong color at " + row + "," + col);
+            }
+        }
+    }
+}
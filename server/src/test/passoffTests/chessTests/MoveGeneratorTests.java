@@ -0,0 +1,193 @@
+package passoffTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Checks the packed-move generator against each piece's own pieceMoves
+ */
+public class MoveGeneratorTests {
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    @Test
+    @DisplayName("Generator Matches pieceMoves On Random Boards")
+    public void randomBoards() {
+        Random random = new Random(99);
+        MoveList moves = new MoveList();
+        for (int i = 0; i < 500; i++) {
+            BitBoard board = randomBoard(random);
+            for (int square = 0; square < 64; square++) {
+                ChessPosition position = BitBoard.position(square);
+                ChessPiece piece = board.getPiece(position);
+                if (piece == null) {
+                    continue;
+                }
+                moves.clear();
+                MoveGenerator.generateMoves(board, square, moves);
+                Collection<ChessMove> expected = new HashSet<>(piece.pieceMoves(board, position));
+                Assertions.assertEquals(expected.size(), moves.size(), "Generator produced duplicate or missing moves");
+                Assertions.assertEquals(expected, moves.toChessMoves(),
+                        "Generated moves differ for a " + piece.getPieceType() + " on square " + square);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("More Moves Than A Legal Position Has")
+    public void overfullBoard() {
+        // queens of both colours spread out every few squares, and both sides' moves appended to one list,
+        // far more than the 218 of the busiest legal position
+        BitBoard board = new BitBoard();
+        for (int square = 0; square < 64; square++) {
+            int pattern = (square / 8 * 3 + square % 8) % 5;
+            if (pattern == 0 || pattern == 2) {
+                ChessGame.TeamColor color = (pattern == 0) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.addPiece(BitBoard.position(square), PieceRegistry.of(color, ChessPiece.PieceType.QUEEN));
+            }
+        }
+        MoveList moves = new MoveList();
+        MoveGenerator.generateMoves(board, ChessGame.TeamColor.WHITE, moves);
+        MoveGenerator.generateMoves(board, ChessGame.TeamColor.BLACK, moves);
+        Assertions.assertTrue(moves.size() > MoveList.CAPACITY, "Expected more moves than the starting buffer holds");
+
+        int expected = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.pieceAt(square);
+            if (piece != null) {
+                expected += piece.pieceMoves(board, BitBoard.position(square)).size();
+            }
+        }
+        Assertions.assertEquals(expected, moves.size());
+    }
+
+    @Test
+    @DisplayName("Square Attacks Match pieceMoves Captures")
+    public void squareAttacks() {
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            BitBoard board = randomBoard(random);
+            for (int square = 0; square < 64; square++) {
+                ChessPiece target = board.pieceAt(square);
+                if (target == null) {
+                    continue;
+                }
+                // an occupied square is attacked exactly when some opposing piece can capture on it
+                ChessGame.TeamColor attacker = (target.getTeamColor() == ChessGame.TeamColor.WHITE)
+                        ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                boolean expected = false;
+                for (int from = 0; from < 64 && !expected; from++) {
+                    ChessPiece piece = board.pieceAt(from);
+                    if (piece == null || piece.getTeamColor() != attacker) {
+                        continue;
+                    }
+                    for (ChessMove move : piece.pieceMoves(board, BitBoard.position(from))) {
+                        if (BitBoard.square(move.getEndPosition()) == square) {
+                            expected = true;
+                            break;
+                        }
+                    }
+                }
+                Assertions.assertEquals(expected, board.isSquareAttacked(square, attacker),
+                        "isSquareAttacked was wrong for square " + square);
+                Assertions.assertEquals(expected, board.attackersOf(square, attacker, board.occupancy()) != 0,
+                        "attackersOf disagreed with isSquareAttacked for square " + square);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Legal Generator Matches Make And Test")
+    public void legalMoves() {
+        Random random = new Random(31);
+        MoveList pseudoMoves = new MoveList();
+        MoveList legalMoves = new MoveList();
+        for (int i = 0; i < 2000; i++) {
+            BitBoard board = randomBoard(random);
+            // exactly one king each, on squares nothing else is using
+            for (int square = 0; square < 64; square++) {
+                if (board.pieceAt(square) != null && board.pieceAt(square).getPieceType() == ChessPiece.PieceType.KING) {
+                    board.addPiece(BitBoard.position(square), null);
+                }
+            }
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                int square;
+                do {
+                    square = random.nextInt(64);
+                } while (board.pieceAt(square) != null);
+                board.addPiece(BitBoard.position(square), newPiece(color, ChessPiece.PieceType.KING));
+            }
+
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                ChessGame.TeamColor enemy = (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                // the slow way: make every pseudo-legal move and keep it if the king isn't attacked afterwards
+                pseudoMoves.clear();
+                MoveGenerator.generateMoves(board, color, pseudoMoves);
+                Collection<ChessMove> expected = new HashSet<>();
+                for (int m = 0; m < pseudoMoves.size(); m++) {
+                    board.makeMove(pseudoMoves.get(m));
+                    if (!board.isSquareAttacked(board.kingSquare(color), enemy)) {
+                        expected.add(Move.toChessMove(pseudoMoves.get(m)));
+                    }
+                    board.unmakeMove();
+                }
+
+                legalMoves.clear();
+                LegalMoveGenerator.generateLegalMoves(board, color, legalMoves);
+                Assertions.assertEquals(expected.size(), legalMoves.size(), "Legal generator produced duplicate or missing moves");
+                Assertions.assertEquals(expected, legalMoves.toChessMoves(), "Legal moves differ for " + color);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Packed Moves Round Trip")
+    public void packedMoves() {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                for (ChessPiece.PieceType promotion : new ChessPiece.PieceType[]{null, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KNIGHT}) {
+                    int move = Move.encode(from, to, promotion, Move.CAPTURE);
+                    Assertions.assertEquals(from, Move.from(move));
+                    Assertions.assertEquals(to, Move.to(move));
+                    Assertions.assertEquals(promotion, Move.promotion(move));
+                    Assertions.assertTrue(Move.isCapture(move));
+                    Assertions.assertTrue(move < (1 << 16), "Packed moves should fit in 16 bits");
+                    Assertions.assertTrue(Move.sameMove(move, Move.encode(Move.toChessMove(move))),
+                            "Converting to a ChessMove and back changed the move");
+                    Assertions.assertTrue(Move.sameMove(move, Move.fromText(Move.toText(move))),
+                            "Converting to text and back changed the move");
+                }
+            }
+        }
+    }
+
+    private static BitBoard randomBoard(Random random) {
+        BitBoard board = new BitBoard();
+        int pieceCount = 2 + random.nextInt(24);
+        for (int p = 0; p < pieceCount; p++) {
+            // keep pawns off the first and last rows, where pieceMoves would walk off the board
+            ChessPiece.PieceType type = TYPES[random.nextInt(TYPES.length)];
+            int row = (type == ChessPiece.PieceType.PAWN) ? 2 + random.nextInt(6) : 1 + random.nextInt(8);
+            ChessGame.TeamColor color = random.nextBoolean() ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            board.addPiece(new MyPosition(row, 1 + random.nextInt(8)), newPiece(color, type));
+        }
+        return board;
+    }
+
+    private static ChessPiece newPiece(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> new MyKing(color);
+            case QUEEN -> new MyQueen(color);
+            case BISHOP -> new MyBishop(color);
+            case KNIGHT -> new MyKnight(color);
+            case ROOK -> new MyRook(color);
+            case PAWN -> new MyPawn(color);
+        };
+    }
+}
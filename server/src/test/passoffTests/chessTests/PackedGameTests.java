@@ -0,0 +1,67 @@
+package passoffTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that games survive a round trip through the 39 byte packed format
+ */
+public class PackedGameTests {
+
+    @Test
+    @DisplayName("Games Round Trip Through Packed Bytes")
+    public void roundTrip() throws InvalidMoveException {
+        for (ChessGame game : new ChessGame[]{new MyGame(), new MyGame(new BitBoard())}) {
+            // 1. d4 e5 2. dxe5 Qg5 3. Bxg5
+            game.makeMove(new MyMove(MyPosition.of(2, 4), MyPosition.of(4, 4), null));
+            game.makeMove(new MyMove(MyPosition.of(7, 5), MyPosition.of(5, 5), null));
+            game.makeMove(new MyMove(MyPosition.of(4, 4), MyPosition.of(5, 5), null));
+            game.makeMove(new MyMove(MyPosition.of(8, 4), MyPosition.of(5, 7), null));
+            game.makeMove(new MyMove(MyPosition.of(1, 3), MyPosition.of(5, 7), null));
+
+            byte[] packed = PackedGame.encode(game);
+            Assertions.assertEquals(PackedGame.SIZE, packed.length);
+
+            for (ChessBoard board : new ChessBoard[]{new MyBoard(), new BitBoard()}) {
+                MyGame copy = PackedGame.decode(packed, 0, board);
+                Assertions.assertEquals(Fen.toFen(game), Fen.toFen(copy), "Game changed in a round trip");
+                Assertions.assertEquals(ChessGame.TeamColor.BLACK, copy.getTeamTurn());
+                Assertions.assertEquals(3, copy.getFullmoveNumber());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Encodes Into A Shared Buffer")
+    public void sharedBuffer() throws InvalidMoveException {
+        ChessGame first = new MyGame();
+        ChessGame second = new MyGame(new BitBoard());
+        second.makeMove(new MyMove(MyPosition.of(1, 7), MyPosition.of(3, 6), null));
+
+        // the second game overwrites garbage, so any square it doesn't clear shows up
+        byte[] buffer = new byte[PackedGame.SIZE * 2];
+        java.util.Arrays.fill(buffer, (byte) 0x5A);
+        PackedGame.encode(first, buffer, 0);
+        PackedGame.encode(second, buffer, PackedGame.SIZE);
+
+        Assertions.assertEquals(Fen.toFen(first), Fen.toFen(PackedGame.decode(buffer, 0, new MyBoard())));
+        Assertions.assertEquals(Fen.toFen(second), Fen.toFen(PackedGame.decode(buffer, PackedGame.SIZE, new MyBoard())));
+    }
+
+    @Test
+    @DisplayName("Bad Bytes Are Rejected")
+    public void rejectsBadBytes() {
+        byte[] packed = PackedGame.encode(new MyGame());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PackedGame.decode(new byte[PackedGame.SIZE - 1]));
+
+        byte[] wrongVersion = packed.clone();
+        wrongVersion[0] = 99;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PackedGame.decode(wrongVersion));
+
+        byte[] badPiece = packed.clone();
+        badPiece[PackedGame.SIZE - 1] = (byte) 0xFF;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PackedGame.decode(badPiece));
+    }
+}
@@ -0,0 +1,79 @@
+package passoffTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+/**
+ * Checks move generation against the published perft node counts
+ */
+public class PerftTests {
+
+    // keeps the suite quick, deeper counts are left to the perft benchmark
+    private static final long MAX_NODES = 250_000;
+    private static final long MAX_API_NODES = 10_000;
+
+    @Test
+    @DisplayName("BitBoard Perft Matches Reference Counts")
+    public void bitBoardPerft() {
+        for (Perft.ReferencePosition position : Perft.REFERENCE_POSITIONS) {
+            BitBoard board = new BitBoard();
+            ChessGame.TeamColor turn = Fen.loadPosition(board, position.fen);
+            for (int depth = 1; depth <= position.maxDepth() && position.expectedNodes(depth) <= MAX_NODES; depth++) {
+                Assertions.assertEquals(position.expectedNodes(depth), Perft.perft(board, turn, depth),
+                        "Wrong node count for " + position.name + " at depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("ChessGame Perft Matches Reference Counts")
+    public void gamePerft() {
+        for (Perft.ReferencePosition position : Perft.REFERENCE_POSITIONS) {
+            for (boolean bitBoard : new boolean[]{false, true}) {
+                ChessGame game = new MyGame(bitBoard ? new BitBoard() : new MyBoard());
+                game.setTeamTurn(Fen.loadPosition(game.getBoard(), position.fen));
+                for (int depth = 1; depth <= position.maxDepth() && position.expectedNodes(depth) <= MAX_API_NODES; depth++) {
+                    long nodes = Perft.perft(game, depth, bitBoard ? BitBoard::new : MyBoard::new);
+                    Assertions.assertEquals(position.expectedNodes(depth), nodes,
+                            "Wrong node count for " + position.name + " at depth " + depth);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel Perft Matches Reference Counts")
+    public void parallelPerft() {
+        PerftCache cache = new PerftCache(16);
+        for (Perft.ReferencePosition position : Perft.REFERENCE_POSITIONS) {
+            BitBoard board = new BitBoard();
+            ChessGame.TeamColor turn = Fen.loadPosition(board, position.fen);
+            for (int depth = 1; depth <= position.maxDepth() && position.expectedNodes(depth) <= MAX_NODES; depth++) {
+                Assertions.assertEquals(position.expectedNodes(depth), ParallelPerft.perft(board, turn, depth, 4, 2, null),
+                        "Wrong parallel node count for " + position.name + " at depth " + depth);
+                Assertions.assertEquals(position.expectedNodes(depth), ParallelPerft.perft(board, turn, depth, 4, 2, cache),
+                        "Wrong cached parallel node count for " + position.name + " at depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Divide Adds Up To Perft")
+    public void divide() {
+        Perft.ReferencePosition position = Perft.REFERENCE_POSITIONS.get(0);
+        BitBoard board = new BitBoard();
+        ChessGame.TeamColor turn = Fen.loadPosition(board, position.fen);
+        Map<String, Long> counts = Perft.divide(board, turn, 3);
+        Assertions.assertEquals(20, counts.size(), "Expected one entry per root move");
+        Assertions.assertEquals(position.expectedNodes(3), counts.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(Long.valueOf(600), counts.get("e2e4"), "Wrong subtree count below e2e4");
+
+        ChessGame game = new MyGame();
+        Assertions.assertEquals(counts, Perft.divide(game, 3, MyBoard::new),
+                "Divide through the ChessGame API should agree with the BitBoard walk");
+    }
+}
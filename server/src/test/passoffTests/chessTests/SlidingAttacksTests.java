@@ -0,0 +1,68 @@
+package passoffTests.chessTests;
+
+import chess.SlidingAttacks;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Checks the magic bitboard tables against a plain square-by-square ray walk
+ */
+public class SlidingAttacksTests {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    @Test
+    @DisplayName("Empty Board Attacks")
+    public void emptyBoard() {
+        for (int square = 0; square < 64; square++) {
+            Assertions.assertEquals(14, Long.bitCount(SlidingAttacks.rookAttacks(square, 0L)),
+                    "A rook on an empty board always attacks 14 squares");
+            Assertions.assertEquals(walk(square, 0L, BISHOP_DIRECTIONS), SlidingAttacks.bishopAttacks(square, 0L),
+                    "Wrong bishop attacks on an empty board from square " + square);
+        }
+    }
+
+    @Test
+    @DisplayName("Random Occupancy Attacks")
+    public void randomOccupancy() {
+        Random random = new Random(2024);
+        for (int i = 0; i < 20000; i++) {
+            int square = random.nextInt(64);
+            // and-ing random longs together gives boards anywhere from crowded to nearly empty
+            long occupancy = random.nextLong();
+            for (int thin = random.nextInt(4); thin > 0; thin--) {
+                occupancy &= random.nextLong();
+            }
+            long rook = walk(square, occupancy, ROOK_DIRECTIONS);
+            long bishop = walk(square, occupancy, BISHOP_DIRECTIONS);
+            Assertions.assertEquals(rook, SlidingAttacks.rookAttacks(square, occupancy),
+                    "Wrong rook attacks from square " + square);
+            Assertions.assertEquals(bishop, SlidingAttacks.bishopAttacks(square, occupancy),
+                    "Wrong bishop attacks from square " + square);
+            Assertions.assertEquals(rook | bishop, SlidingAttacks.queenAttacks(square, occupancy),
+                    "Wrong queen attacks from square " + square);
+        }
+    }
+
+    private static long walk(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = square / 8 + direction[0];
+            int col = square % 8 + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                long bit = 1L << (row * 8 + col);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,205 @@
+package passoffTests.serverTests;
+
+import chess.ChessMove;
+import chess.Fen;
+import chess.MyGame;
+import chess.MyMove;
+import chess.MyPosition;
+import dao.CachingDAO;
+import dao.MainMemoryDAO;
+import dataAccess.DataAccessException;
+import models.Game;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks CachingDAO against a MainMemoryDAO that counts the game reads and writes reaching it, so these
+ * run without MySQL
+ */
+public class CachingDAOTests {
+
+    // the "database" behind the cache, counting what gets through
+    static class CountingDAO extends MainMemoryDAO {
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+        final List<Integer> plies = new CopyOnWriteArrayList<>();
+
+        // packed, so it hands back a copy of each game the way SQLDAO does
+        CountingDAO() {
+            super(true);
+        }
+
+        @Override
+        public Game findGame(int gameID) throws DataAccessException {
+            reads.incrementAndGet();
+            return super.findGame(gameID);
+        }
+
+        @Override
+        public void updateGame(Game game) throws DataAccessException {
+            writes.incrementAndGet();
+            super.updateGame(game);
+        }
+
+        @Override
+        public void recordMove(Game game, ChessMove move, int ply) throws DataAccessException {
+            plies.add(ply);
+            super.recordMove(game, move, ply);
+        }
+    }
+
+    CountingDAO database;
+
+    @BeforeEach
+    public void setup() {
+        database = new CountingDAO();
+    }
+
+    @Test
+    @DisplayName("Hot Games Are Read From Memory")
+    public void hotReads() throws Exception {
+        CachingDAO cache = new CachingDAO(database);
+        int gameID = cache.createGame("hot").gameID();
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals("hot", cache.findGame(gameID).gameName());
+        }
+        Assertions.assertEquals(0, database.reads.get(), "A cached game was read from the database");
+        Assertions.assertEquals(100, cache.hits());
+
+        // a game that isn't cached is read once and then kept
+        int other = database.createGame("cold").gameID();
+        cache.findGame(other);
+        cache.findGame(other);
+        Assertions.assertEquals(1, database.reads.get());
+        Assertions.assertNull(cache.findGame(9999));
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Write Through Writes Every Update")
+    public void writeThrough() throws Exception {
+        CachingDAO cache = new CachingDAO(database);
+        Game game = cache.createGame("through");
+        game.game().makeMove(new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null));
+        cache.updateGame(game.setState(Game.GameState.DRAW));
+
+        Assertions.assertEquals(1, database.writes.get());
+        Assertions.assertEquals(Game.GameState.DRAW, database.findGame(game.gameID()).getState());
+        Assertions.assertEquals(Game.GameState.DRAW, cache.findGame(game.gameID()).getState());
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Write Behind Waits For A Flush")
+    public void writeBehind() throws Exception {
+        // a flush interval long enough that only the explicit flush runs
+        CachingDAO cache = new CachingDAO(database, CachingDAO.WriteMode.WRITE_BEHIND, 100, 60_000, 60_000);
+        Game game = cache.createGame("behind");
+        for (int i = 0; i < 5; i++) {
+            cache.updateGame(game.setState(i % 2 == 0 ? Game.GameState.WHITE : Game.GameState.UNDECIDED));
+        }
+        Assertions.assertEquals(0, database.writes.get(), "Write behind wrote straight away");
+        Assertions.assertEquals(Game.GameState.WHITE, cache.findGame(game.gameID()).getState());
+        // listing games sees the cached copy before it is written
+        Assertions.assertEquals(Game.GameState.WHITE, cache.findAllGames().iterator().next().getState());
+
+        cache.flush();
+        Assertions.assertEquals(1, database.writes.get(), "Five updates should be written once");
+        Assertions.assertEquals(Game.GameState.WHITE, database.findGame(game.gameID()).getState());
+        cache.flush();
+        Assertions.assertEquals(1, database.writes.get(), "A clean game was written again");
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Players Joining Reach The Cache")
+    public void joinUpdatesCache() throws Exception {
+        CachingDAO cache = new CachingDAO(database, CachingDAO.WriteMode.WRITE_BEHIND, 100, 60_000, 60_000);
+        Game game = cache.createGame("join");
+        cache.updateGame(game.setState(Game.GameState.UNDECIDED));
+        cache.setWhitePlayer(game.gameID(), "white");
+        cache.setBlackPlayer(game.gameID(), "black");
+
+        Game cached = cache.findGame(game.gameID());
+        Assertions.assertEquals("white", cached.whiteUsername());
+        Assertions.assertEquals("black", cached.blackUsername());
+        cache.flush();
+        Assertions.assertEquals("white", database.findGame(game.gameID()).whiteUsername());
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Overflow Evicts Finished Games First")
+    public void evictsOverflow() throws Exception {
+        CachingDAO cache = new CachingDAO(database, CachingDAO.WriteMode.WRITE_BEHIND, 2, 60_000, 60_000);
+        Game finished = cache.createGame("finished");
+        cache.updateGame(finished.setState(Game.GameState.BLACK));
+        Game playing = cache.createGame("playing");
+        cache.createGame("new");
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1, cache.evictions());
+        // the finished game was written on its way out, and the one still playing is still cached
+        Assertions.assertEquals(Game.GameState.BLACK, database.findGame(finished.gameID()).getState());
+        int reads = database.reads.get();
+        cache.findGame(playing.gameID());
+        Assertions.assertEquals(reads, database.reads.get());
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Clear Empties The Cache")
+    public void clearAll() throws Exception {
+        CachingDAO cache = new CachingDAO(database);
+        int gameID = cache.createGame("cleared").gameID();
+        cache.clearAll();
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertNull(cache.findGame(gameID));
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Write Behind Records Every Move In Order")
+    public void writeBehindMoves() throws Exception {
+        CachingDAO cache = new CachingDAO(database, CachingDAO.WriteMode.WRITE_BEHIND, 100, 60_000, 60_000);
+        Game game = cache.createGame("moves");
+        ChessMove[] moves = {
+                new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null),
+                new MyMove(MyPosition.of(7, 5), MyPosition.of(5, 5), null),
+                new MyMove(MyPosition.of(1, 7), MyPosition.of(3, 6), null)
+        };
+        for (ChessMove move : moves) {
+            game.game().makeMove(move);
+            cache.recordMove(game, move, ((MyGame) game.game()).getPly());
+        }
+        Assertions.assertTrue(database.plies.isEmpty(), "Write behind recorded a move straight away");
+
+        cache.flush();
+        Assertions.assertEquals(List.of(1, 2, 3), database.plies, "Every move should be recorded once, in order");
+        Assertions.assertEquals(Fen.toFen(game.game()), Fen.toFen(database.findGame(game.gameID()).game()));
+        cache.flush();
+        Assertions.assertEquals(3, database.plies.size(), "A move was recorded twice");
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Write Behind Writes The Game As It Was Handed Over")
+    public void writeBehindSnapshots() throws Exception {
+        CachingDAO cache = new CachingDAO(database, CachingDAO.WriteMode.WRITE_BEHIND, 100, 60_000, 60_000);
+        Game game = cache.createGame("snapshot");
+        ChessMove move = new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null);
+        game.game().makeMove(move);
+        cache.recordMove(game, move, ((MyGame) game.game()).getPly());
+        String recorded = Fen.toFen(game.game());
+
+        // the caller carries on with its game before the flush gets to it
+        game.game().makeMove(new MyMove(MyPosition.of(7, 5), MyPosition.of(5, 5), null));
+        cache.flush();
+        Assertions.assertEquals(recorded, Fen.toFen(database.findGame(game.gameID()).game()),
+                "The flush wrote a move that was never handed to the cache");
+        cache.close();
+    }
+}
@@ -0,0 +1,294 @@
+package passoffTests.serverTests;
+
+import dataAccess.DataAccessException;
+import dataAccess.Database;
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks the connection pool in dataAccess.Database with fake connections, so these run without MySQL
+ */
+public class DatabasePoolTests {
+
+    // What one fake connection has been through
+    static class FakeConnection {
+        volatile boolean closed;
+        volatile boolean valid = true;
+        volatile boolean autoCommit = true;
+        volatile int rollbacks;
+        final List<FakeStatement> prepared = new ArrayList<>();
+        final Connection proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (self, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed;
+                    case "isValid" -> valid && !closed;
+                    case "getAutoCommit" -> autoCommit;
+                    case "setAutoCommit" -> {
+                        autoCommit = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        rollbacks++;
+                        yield null;
+                    }
+                    case "prepareStatement" -> {
+                        FakeStatement statement = new FakeStatement();
+                        prepared.add(statement);
+                        yield statement.proxy;
+                    }
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> null;
+                });
+    }
+
+    static class FakeStatement {
+        volatile boolean closed;
+        final PreparedStatement proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (self, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed;
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> null;
+                });
+    }
+
+    // A pool handing out fake connections, remembering each one it opened
+    static class FakePool extends Database {
+        final List<FakeConnection> opened = new ArrayList<>();
+
+        FakePool(int min, int max, long acquireTimeoutMillis, long idleTimeoutMillis) {
+            super(min, max, acquireTimeoutMillis, idleTimeoutMillis);
+        }
+
+        FakePool(int statementCacheSize) {
+            super(0, 2, 1_000, 60_000, statementCacheSize);
+        }
+
+        @Override
+        protected synchronized Connection openConnection() {
+            FakeConnection connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy;
+        }
+
+        synchronized FakeConnection fake(Connection connection) {
+            for (FakeConnection fake : opened) {
+                if (fake.proxy == connection) {
+                    return fake;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Test
+    @DisplayName("Warm Up Opens The Minimum")
+    public void warmUp() throws Exception {
+        FakePool pool = new FakePool(3, 10, 1_000, 60_000);
+        pool.warmUp();
+        Assertions.assertEquals(3, pool.opened.size());
+        Assertions.assertEquals(3, pool.metrics().idle());
+
+        // borrowing uses the warm connections before opening more
+        Connection connection = pool.getConnection();
+        Assertions.assertEquals(3, pool.opened.size());
+        Assertions.assertEquals(1, pool.metrics().active());
+        pool.returnConnection(connection);
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Returned Connections Are Reused")
+    public void reuse() throws Exception {
+        FakePool pool = new FakePool(0, 10, 1_000, 60_000);
+        Connection first = pool.getConnection();
+        pool.returnConnection(first);
+        Connection second = pool.getConnection();
+        Assertions.assertSame(first, second, "The returned connection wasn't reused");
+        Assertions.assertEquals(1, pool.opened.size());
+        pool.returnConnection(second);
+
+        Database.Metrics metrics = pool.metrics();
+        Assertions.assertEquals(2, metrics.borrowed());
+        Assertions.assertEquals(1, metrics.created());
+        Assertions.assertEquals(2, metrics.waitHistogram().values().stream().mapToLong(Long::longValue).sum());
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Never More Than Max Connections")
+    public void maxBound() throws Exception {
+        FakePool pool = new FakePool(0, 2, 5_000, 60_000);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        // a third caller waits until one is returned
+        AtomicReference<Connection> third = new AtomicReference<>();
+        CountDownLatch gotIt = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                third.set(pool.getConnection());
+                gotIt.countDown();
+            } catch (DataAccessException e) {
+                // the assertion below fails
+            }
+        });
+        waiter.start();
+        while (pool.metrics().waiting() == 0) {
+            Thread.sleep(1);
+        }
+        Assertions.assertNull(third.get(), "A third connection was lent out with the limit at two");
+
+        pool.returnConnection(first);
+        Assertions.assertTrue(gotIt.await(5, TimeUnit.SECONDS));
+        Assertions.assertSame(first, third.get());
+        Assertions.assertEquals(2, pool.opened.size());
+        pool.returnConnection(second);
+        pool.returnConnection(third.get());
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Waiting Too Long Times Out")
+    public void acquireTimeout() throws Exception {
+        FakePool pool = new FakePool(0, 1, 50, 60_000);
+        Connection connection = pool.getConnection();
+        Assertions.assertThrows(DataAccessException.class, pool::getConnection);
+        Assertions.assertEquals(1, pool.metrics().timeouts());
+
+        // the pool still works once the connection comes back
+        pool.returnConnection(connection);
+        pool.returnConnection(pool.getConnection());
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Broken Connections Are Replaced")
+    public void brokenConnections() throws Exception {
+        FakePool pool = new FakePool(0, 2, 1_000, 60_000);
+        Connection connection = pool.getConnection();
+        connection.close();
+        pool.returnConnection(connection);
+        Assertions.assertEquals(0, pool.metrics().idle(), "A closed connection went back in the pool");
+
+        Connection replacement = pool.getConnection();
+        Assertions.assertNotSame(connection, replacement);
+        Assertions.assertEquals(1, pool.metrics().discarded());
+        pool.returnConnection(replacement);
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Open Transactions Are Rolled Back")
+    public void rollsBack() throws Exception {
+        FakePool pool = new FakePool(0, 2, 1_000, 60_000);
+        Connection connection = pool.getConnection();
+        connection.setAutoCommit(false);
+        pool.returnConnection(connection);
+
+        FakeConnection fake = pool.fake(connection);
+        Assertions.assertEquals(1, fake.rollbacks);
+        Assertions.assertTrue(fake.autoCommit, "The connection went back without auto commit");
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Idle Connections Close Down To The Minimum")
+    public void idleEviction() throws Exception {
+        FakePool pool = new FakePool(1, 5, 1_000, 20);
+        List<Connection> borrowed = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            borrowed.add(pool.getConnection());
+        }
+        borrowed.forEach(pool::returnConnection);
+        Assertions.assertEquals(4, pool.metrics().idle());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.metrics().idle() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(1, pool.metrics().idle());
+        Assertions.assertEquals(3, pool.opened.stream().filter(fake -> fake.closed).count());
+        pool.close();
+        Assertions.assertTrue(pool.opened.stream().allMatch(fake -> fake.closed), "close left a connection open");
+    }
+
+    @Test
+    @DisplayName("Statements Are Prepared Once Per Connection")
+    public void statementReuse() throws Exception {
+        FakePool pool = new FakePool(8);
+        String sql = "SELECT username FROM tokens WHERE authToken = ?";
+        Connection connection = pool.getConnection();
+        PreparedStatement first = pool.prepareStatement(connection, sql);
+        pool.returnConnection(connection);
+
+        connection = pool.getConnection();
+        Assertions.assertSame(first, pool.prepareStatement(connection, sql), "The statement was prepared again");
+        // asking for generated keys is a different statement
+        PreparedStatement withKeys = pool.prepareStatement(connection, sql, Statement.RETURN_GENERATED_KEYS);
+        Assertions.assertNotSame(first, withKeys);
+        pool.returnConnection(connection);
+
+        FakeConnection fake = pool.fake(connection);
+        Assertions.assertEquals(2, fake.prepared.size());
+        Assertions.assertFalse(fake.prepared.get(0).closed, "A cached statement was closed");
+        Database.Metrics metrics = pool.metrics();
+        Assertions.assertEquals(1, metrics.statementHits());
+        Assertions.assertEquals(2, metrics.statementMisses());
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Statement Cache Closes The Least Recently Used")
+    public void statementEviction() throws Exception {
+        FakePool pool = new FakePool(2);
+        Connection connection = pool.getConnection();
+        PreparedStatement a = pool.prepareStatement(connection, "SELECT 1");
+        pool.prepareStatement(connection, "SELECT 2");
+        pool.prepareStatement(connection, "SELECT 1");     // 2 is now the least recently used
+        pool.prepareStatement(connection, "SELECT 3");
+
+        FakeConnection fake = pool.fake(connection);
+        Assertions.assertFalse(fake.prepared.get(0).closed, "The recently used statement was closed");
+        Assertions.assertTrue(fake.prepared.get(1).closed, "The least recently used statement was kept open");
+        Assertions.assertSame(a, pool.prepareStatement(connection, "SELECT 1"));
+
+        // a statement closed behind the cache's back is prepared again
+        a.close();
+        Assertions.assertNotSame(a, pool.prepareStatement(connection, "SELECT 1"));
+        pool.returnConnection(connection);
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Discarded Connections Close Their Statements")
+    public void statementsClosedWithConnection() throws Exception {
+        FakePool pool = new FakePool(8);
+        Connection connection = pool.getConnection();
+        pool.prepareStatement(connection, "SELECT 1");
+        pool.prepareStatement(connection, "SELECT 2");
+        pool.returnConnection(connection);
+        pool.close();
+
+        FakeConnection fake = pool.fake(connection);
+        Assertions.assertTrue(fake.closed);
+        Assertions.assertTrue(fake.prepared.stream().allMatch(statement -> statement.closed), "A statement was left open");
+    }
+}
@@ -0,0 +1,238 @@
+package passoffTests.serverTests;
+
+import chess.ChessMove;
+import chess.Fen;
+import chess.MyGame;
+import dao.BatchingDAO;
+import dao.GroupCommitDAO;
+import dao.MainMemoryDAO;
+import dataAccess.DataAccessException;
+import models.Game;
+import models.User;
+import org.junit.jupiter.api.*;
+import passoffTests.KnightMoves;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks GroupCommitDAO against a MainMemoryDAO that takes batches the way SQLDAO does, all or nothing,
+ * so these run without MySQL
+ */
+public class GroupCommitDAOTests {
+
+    // what a flusher thread dying partway through a batch looks like, only ever thrown and never serialized
+    @SuppressWarnings("serial")
+    static class FlusherKilled extends Error {}
+
+    // The "database": a batch is staged first and only applied once all of it has been taken in
+    static class BatchingStore extends MainMemoryDAO implements BatchingDAO {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final Map<Integer, List<Integer>> plies = new ConcurrentHashMap<>();
+        // the flusher is killed after staging this many games of the next batch, -1 for never
+        final AtomicInteger killAfter = new AtomicInteger(-1);
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        // packed, so it keeps its own copy of each game the way SQLDAO does
+        BatchingStore() {
+            super(true);
+        }
+
+        @Override
+        public void writeBatch(Collection<GameWrite> writes) throws DataAccessException {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                throw new DataAccessException("interrupted");
+            }
+            List<GameWrite> staged = new ArrayList<>();
+            for (GameWrite write : writes) {
+                staged.add(write);
+                if (staged.size() == killAfter.get()) {
+                    killAfter.set(-1);
+                    throw new FlusherKilled();    // the transaction never commits
+                }
+            }
+            for (GameWrite write : staged) {
+                for (JournaledMove move : write.moves()) {
+                    plies.computeIfAbsent(write.game().gameID(), id -> new CopyOnWriteArrayList<>()).add(move.ply());
+                }
+                super.updateGame(write.game());
+            }
+            batchSizes.add(staged.size());
+        }
+    }
+
+    BatchingStore store;
+
+    @BeforeEach
+    public void setup() {
+        store = new BatchingStore();
+    }
+
+    // Plays moves on the game and records each one the way a GameActor does
+    private void play(GroupCommitDAO database, Game game, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            ChessMove move = KnightMoves.at(((MyGame) game.game()).getPly());
+            game.game().makeMove(move);
+            database.recordMove(game, move, ((MyGame) game.game()).getPly());
+        }
+    }
+
+    private static List<Integer> plies(int count) {
+        List<Integer> plies = new ArrayList<>();
+        for (int ply = 1; ply <= count; ply++) {
+            plies.add(ply);
+        }
+        return plies;
+    }
+
+    @Test
+    @DisplayName("Updates To A Game Are Coalesced Into One Batch")
+    public void coalesces() throws Exception {
+        // a long delay, so everything queued below goes out together
+        GroupCommitDAO database = new GroupCommitDAO(store, GroupCommitDAO.Durability.ACK_ON_ENQUEUE, 1_000, 200);
+        Game moving = store.createGame("moving");
+        Game resigned = store.createGame("resigned");
+        play(database, moving, 10);
+        for (int i = 0; i < 4; i++) {
+            database.updateGame(resigned.setState(Game.GameState.UNDECIDED));
+        }
+        database.updateGame(resigned.setState(Game.GameState.WHITE));
+        Assertions.assertTrue(store.batchSizes.isEmpty(), "Acknowledged on enqueue but written straight away");
+        database.flush();
+
+        Assertions.assertEquals(List.of(2), store.batchSizes, "15 updates to 2 games should be one batch of 2");
+        Assertions.assertEquals(plies(10), store.plies.get(moving.gameID()), "Every move should be kept, in order");
+        Assertions.assertEquals(Fen.toFen(moving.game()), Fen.toFen(store.findGame(moving.gameID()).game()));
+        Assertions.assertEquals(Game.GameState.WHITE, store.findGame(resigned.gameID()).getState());
+        Assertions.assertEquals(13, database.metrics().coalesced());
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Ack On Commit Waits For The Batch")
+    public void ackOnCommit() throws Exception {
+        GroupCommitDAO database = new GroupCommitDAO(store, GroupCommitDAO.Durability.ACK_ON_COMMIT, 100, 0);
+        Game game = store.createGame("durable");
+        store.gate = new CountDownLatch(1);     // holds the flusher inside writeBatch
+
+        CountDownLatch acknowledged = new CountDownLatch(1);
+        Thread player = new Thread(() -> {
+            try {
+                database.updateGame(game.setState(Game.GameState.DRAW));
+                acknowledged.countDown();
+            } catch (DataAccessException e) {
+                // the assertions below fail
+            }
+        });
+        player.start();
+        Assertions.assertFalse(acknowledged.await(100, TimeUnit.MILLISECONDS), "Acknowledged before it was committed");
+        // reads already see it
+        Assertions.assertEquals(Game.GameState.DRAW, database.findGame(game.gameID()).getState());
+        Assertions.assertEquals(Game.GameState.UNDECIDED, store.findGame(game.gameID()).getState());
+
+        store.gate.countDown();
+        Assertions.assertTrue(acknowledged.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Game.GameState.DRAW, store.findGame(game.gameID()).getState());
+        database.close();
+    }
+
+    @Test
+    @DisplayName("A Full Batch Goes Straight Away")
+    public void sizeTrigger() throws Exception {
+        GroupCommitDAO database = new GroupCommitDAO(store, GroupCommitDAO.Durability.ACK_ON_ENQUEUE, 5, 60_000);
+        for (int i = 0; i < 5; i++) {
+            database.updateGame(store.createGame("game " + i).setState(Game.GameState.DRAW));
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.batchSizes.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assertions.assertEquals(List.of(5), store.batchSizes, "Five updates should have filled a batch");
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Killing The Flusher Mid Batch Loses Nothing")
+    public void killedFlusher() throws Exception {
+        GroupCommitDAO database = new GroupCommitDAO(store, GroupCommitDAO.Durability.ACK_ON_ENQUEUE, 1_000, 100);
+        store.killAfter.set(2);
+        List<Game> games = new ArrayList<>();
+        for (int g = 0; g < 3; g++) {
+            Game game = store.createGame("game " + g);
+            games.add(game);
+            play(database, game, 3 + g);
+        }
+
+        // wait for the flusher to die on the batch, and check none of it got in
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (database.metrics().failures() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assertions.assertEquals(1, database.metrics().failures());
+        Assertions.assertTrue(store.plies.isEmpty(), "Part of the killed batch was written");
+
+        // more moves while it is down, which go out with the retried batch
+        play(database, games.get(0), 2);
+        database.flush();
+
+        for (int g = 0; g < 3; g++) {
+            Game game = games.get(g);
+            int moves = 3 + g + ((g == 0) ? 2 : 0);
+            Assertions.assertEquals(plies(moves), store.plies.get(game.gameID()), "Game " + g + " lost or repeated a move");
+            Assertions.assertEquals(Fen.toFen(game.game()), Fen.toFen(store.findGame(game.gameID()).game()));
+        }
+        Assertions.assertEquals(1, database.metrics().restarts(), "The dead flusher wasn't replaced");
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Ack On Commit Survives A Killed Flusher")
+    public void killedFlusherAckOnCommit() throws Exception {
+        GroupCommitDAO database = new GroupCommitDAO(store, GroupCommitDAO.Durability.ACK_ON_COMMIT, 100, 0);
+        store.killAfter.set(1);
+        Game game = store.createGame("durable");
+        play(database, game, 1);
+        // it only returned once the retry committed
+        Assertions.assertEquals(plies(1), store.plies.get(game.gameID()));
+        Assertions.assertEquals(1, database.metrics().restarts());
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Joining Players Are Not Overwritten By Queued Updates")
+    public void playersJoin() throws Exception {
+        GroupCommitDAO database = new GroupCommitDAO(store, GroupCommitDAO.Durability.ACK_ON_ENQUEUE, 1_000, 60_000);
+        store.addUser(new User("white", "password", "white@mail.com"));
+        Game game = store.createGame("join");
+        database.updateGame(game.setState(Game.GameState.UNDECIDED));
+        database.setWhitePlayer(game.gameID(), "white");
+        Assertions.assertEquals("white", database.findGame(game.gameID()).whiteUsername());
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Queued Games Don't Change With The Caller's")
+    public void queuesCopies() throws Exception {
+        GroupCommitDAO database = new GroupCommitDAO(store, GroupCommitDAO.Durability.ACK_ON_ENQUEUE, 1_000, 60_000);
+        Game game = store.createGame("copied");
+        play(database, game, 1);
+        String recorded = Fen.toFen(game.game());
+
+        // the caller carries on with its game while the update is still queued
+        game.game().makeMove(KnightMoves.at(1));
+        Assertions.assertEquals(recorded, Fen.toFen(database.findGame(game.gameID()).game()));
+        database.flush();
+        Assertions.assertEquals(recorded, Fen.toFen(store.findGame(game.gameID()).game()),
+                "The batch wrote a move that was never queued");
+        database.close();
+    }
+}
@@ -0,0 +1,191 @@
+package passoffTests.serverTests;
+
+import chess.Fen;
+import chess.MyMove;
+import chess.MyPosition;
+import dao.BatchingDAO;
+import dao.MappedFileDAO;
+import dataAccess.DataAccessException;
+import models.AuthToken;
+import models.Game;
+import models.User;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs DataAccessTests against MappedFileDAO, and then checks that what it stores survives it being closed,
+ * and crashing, and opened again. Everything is kept in temporary directories, so these run without MySQL.
+ */
+public class MappedFileDAOTests extends DataAccessTests {
+
+    static Path root;
+
+    // hides DataAccessTests.setup, so the inherited tests run against the files
+    @BeforeAll
+    public static void setup() throws DataAccessException {
+        user1 = new User("Adam","mypassword","myemail@gmail.com");
+        user2 = new User("Timmy","timPassword","tim@email.com");
+        user3 = new User("Benny","benPassword","ben@email.com");
+        try {
+            root = Files.createTempDirectory("chess-data");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        database = new MappedFileDAO(root.resolve("access"));
+    }
+
+    @AfterAll
+    public static void cleanup() throws IOException, DataAccessException {
+        ((MappedFileDAO) database).close();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    @Order(24)
+    @DisplayName("Everything Is There After Reopening")
+    public void reopen() throws Exception {
+        Path directory = root.resolve("reopen");
+        MappedFileDAO files = new MappedFileDAO(directory);
+        files.addUser(user1);
+        files.addUser(user2);
+        AuthToken token = files.createAuthToken(user1.username());
+        Game game = files.createGame("kept");
+        files.setWhitePlayer(game.gameID(), user1.username());
+        game.game().makeMove(new MyMove(MyPosition.of(2, 5), MyPosition.of(4, 5), null));
+        files.updateGame(new Game(game.gameID(), user1.username(), null, "kept", game.game(), Game.GameState.DRAW));
+        files.addObserver(game.gameID(), user2.username());
+        files.close();
+
+        MappedFileDAO reopened = new MappedFileDAO(directory);
+        Assertions.assertEquals(user1, reopened.getUser(user1.username()));
+        Assertions.assertEquals(token, reopened.getAuthToken(token.authToken()));
+        Game stored = reopened.findGame(game.gameID());
+        Assertions.assertEquals(user1.username(), stored.whiteUsername());
+        Assertions.assertNull(stored.blackUsername());
+        Assertions.assertEquals(Game.GameState.DRAW, stored.getState());
+        Assertions.assertEquals(Fen.toFen(game.game()), Fen.toFen(stored.game()));
+        Assertions.assertTrue(reopened.getObserver(game.gameID(), user2.username()));
+        Assertions.assertEquals(0, reopened.metrics().recoveredFrames(), "A clean close left changes to replay");
+
+        // new games carry on from the old ones, and freed records are reused
+        Assertions.assertEquals(game.gameID() + 1, reopened.createGame("next").gameID());
+        reopened.deleteAuthToken(token.authToken());
+        Assertions.assertNull(reopened.getAuthToken(token.authToken()));
+        Assertions.assertNotNull(reopened.getAuthToken(reopened.createAuthToken(user2.username()).authToken()));
+        Assertions.assertEquals(1, reopened.metrics().tokens());
+        reopened.close();
+    }
+
+    @Test
+    @Order(25)
+    @DisplayName("Logged Changes Survive A Crash")
+    public void crashRecovery() throws Exception {
+        Path directory = root.resolve("running");
+        // a checkpoint size nothing here reaches, so every change is still in the log
+        MappedFileDAO files = new MappedFileDAO(directory, true, Long.MAX_VALUE);
+        files.addUser(user1);
+        files.addUser(user2);
+        Game game = files.createGame("crashed");
+
+        // the data files as they might be on the disk after a crash: none of what follows reached them
+        Path crashed = root.resolve("crashed");
+        Files.createDirectories(crashed);
+        for (String name : List.of("users.dat", "tokens.dat", "games.dat", "observers.dat")) {
+            Files.copy(directory.resolve(name), crashed.resolve(name));
+        }
+
+        AuthToken token = files.createAuthToken(user1.username());
+        game.game().makeMove(new MyMove(MyPosition.of(2, 4), MyPosition.of(4, 4), null));
+        files.writeBatch(List.of(new BatchingDAO.GameWrite(game.setState(Game.GameState.WHITE), true, List.of())));
+        files.setBlackPlayer(game.gameID(), user2.username());
+        files.addObserver(game.gameID(), user1.username());
+        files.removeObserver(game.gameID(), user1.username());
+
+        // the log as it was when the server died, part way through writing one more frame
+        Files.copy(directory.resolve("changes.log"), crashed.resolve("changes.log"), StandardCopyOption.REPLACE_EXISTING);
+        Files.write(crashed.resolve("changes.log"), new byte[] {0, 0, 1, 0, 7, 7}, StandardOpenOption.APPEND);
+        files.close();
+
+        MappedFileDAO recovered = new MappedFileDAO(crashed);
+        Assertions.assertTrue(recovered.metrics().recoveredFrames() > 0, "Nothing was replayed");
+        Assertions.assertEquals(token, recovered.getAuthToken(token.authToken()));
+        Game stored = recovered.findGame(game.gameID());
+        Assertions.assertEquals(Game.GameState.WHITE, stored.getState());
+        Assertions.assertEquals(user2.username(), stored.blackUsername());
+        Assertions.assertEquals(Fen.toFen(game.game()), Fen.toFen(stored.game()));
+        Assertions.assertFalse(recovered.getObserver(game.gameID(), user1.username()));
+        Assertions.assertEquals(0, Files.size(crashed.resolve("changes.log")), "The log wasn't emptied after recovering");
+
+        // the torn frame was dropped, so what is written now is there next time
+        Game next = recovered.createGame("after");
+        recovered.close();
+        MappedFileDAO reopened = new MappedFileDAO(crashed);
+        Assertions.assertEquals("after", reopened.findGame(next.gameID()).gameName());
+        reopened.close();
+    }
+
+    @Test
+    @Order(26)
+    @DisplayName("Checkpoints Keep The Log Small")
+    public void checkpoints() throws Exception {
+        Path directory = root.resolve("checkpoints");
+        MappedFileDAO files = new MappedFileDAO(directory, false, 16 * 1024);
+        // enough games to grow the games file several times over
+        for (int g = 0; g < 1000; g++) {
+            files.createGame("game " + g);
+        }
+        Assertions.assertTrue(files.metrics().checkpoints() > 0, "The log was never checkpointed");
+        Assertions.assertTrue(files.metrics().logBytes() <= 16 * 1024);
+        Assertions.assertEquals(1000, files.findAllGames().size());
+        files.close();
+
+        MappedFileDAO reopened = new MappedFileDAO(directory);
+        Assertions.assertEquals(1000, reopened.findAllGames().size());
+        Assertions.assertEquals("game 999", reopened.findGame(MappedFileDAO.FIRST_GAME_ID + 999).gameName());
+        reopened.close();
+    }
+
+    @Test
+    @Order(27)
+    @DisplayName("Fail storing strings that don't fit")
+    public void failLongStrings() throws Exception {
+        MappedFileDAO files = new MappedFileDAO(root.resolve("long"));
+        Assertions.assertThrows(DataAccessException.class, () -> files.addUser(new User("a".repeat(65), "p", "e")));
+        Assertions.assertThrows(DataAccessException.class, () -> files.createGame("g".repeat(65)));
+        Assertions.assertNull(files.getUser("a".repeat(65)));
+        Assertions.assertEquals(0, files.findAllGames().size());
+        // a second server on the same files is turned away
+        Assertions.assertThrows(DataAccessException.class, () -> new MappedFileDAO(root.resolve("long")));
+        files.close();
+    }
+
+    @Test
+    @Order(28)
+    @DisplayName("Batches Skip Games That Are Gone")
+    public void batchSkipsMissingGames() throws Exception {
+        MappedFileDAO files = new MappedFileDAO(root.resolve("skipped"));
+        Game kept = files.createGame("kept");
+        // an update queued for a game that is gone by the time the batch goes out
+        Game gone = new Game(kept.gameID() + 100, null, null, "gone", kept.game(), Game.GameState.DRAW);
+        Assertions.assertDoesNotThrow(() -> files.writeBatch(List.of(
+                new BatchingDAO.GameWrite(gone, true, List.of()),
+                new BatchingDAO.GameWrite(kept.setState(Game.GameState.WHITE), true, List.of()))));
+        Assertions.assertEquals(Game.GameState.WHITE, files.findGame(kept.gameID()).getState());
+        Assertions.assertNull(files.findGame(gone.gameID()));
+        Assertions.assertEquals(1, files.findAllGames().size());
+        files.close();
+    }
+}
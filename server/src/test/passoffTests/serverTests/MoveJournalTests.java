@@ -0,0 +1,129 @@
+package passoffTests.serverTests;
+
+import chess.ChessMove;
+import chess.Fen;
+import chess.GameFormat;
+import chess.MyGame;
+import dao.SQLDAO;
+import models.Game;
+import org.junit.jupiter.api.*;
+import passoffTests.KnightMoves;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks SQLDAO with moves journaled, against the MySQL server configured in dataAccess.Database
+ */
+public class MoveJournalTests {
+
+    // a snapshot every 4 half moves, so most games end up between snapshots
+    static SQLDAO database;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        database = new SQLDAO(GameFormat.FEN, 4, 4);
+    }
+
+    @BeforeEach
+    public void clear() throws Exception {
+        database.clearAll();
+    }
+
+    // Plays the moves on the game and records each one the way a GameActor does
+    private List<ChessMove> play(Game game, int count) throws Exception {
+        List<ChessMove> played = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChessMove move = KnightMoves.at(i);
+            game.game().makeMove(move);
+            database.recordMove(game, move, ((MyGame) game.game()).getPly());
+            played.add(move);
+        }
+        return played;
+    }
+
+    @Test
+    @DisplayName("Games Are Rebuilt From Snapshot And Moves")
+    public void rebuildsGame() throws Exception {
+        for (int count : new int[]{0, 1, 3, 4, 7, 10}) {
+            Game game = database.createGame("journal " + count);
+            play(game, count);
+            Game stored = database.findGame(game.gameID());
+            Assertions.assertEquals(Fen.toFen(game.game()), Fen.toFen(stored.game()),
+                    "Game with " + count + " moves wasn't rebuilt");
+        }
+    }
+
+    @Test
+    @DisplayName("Listing Games Replays Their Moves")
+    public void listsRebuiltGames() throws Exception {
+        Game first = database.createGame("first");
+        Game second = database.createGame("second");
+        play(first, 5);
+        play(second, 2);
+        for (Game stored : database.findAllGames()) {
+            Game live = (stored.gameID() == first.gameID()) ? first : second;
+            Assertions.assertEquals(Fen.toFen(live.game()), Fen.toFen(stored.game()));
+        }
+    }
+
+    @Test
+    @DisplayName("Moves Are Kept As History")
+    public void moveHistory() throws Exception {
+        Game game = database.createGame("history");
+        List<ChessMove> played = play(game, 9);
+        Assertions.assertEquals(played, database.findMoves(game.gameID()));
+        Assertions.assertTrue(database.findMoves(12345).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Recording A Move Twice Keeps One")
+    public void duplicateMove() throws Exception {
+        Game game = database.createGame("retry");
+        ChessMove move = KnightMoves.at(0);
+        game.game().makeMove(move);
+        database.recordMove(game, move, 1);
+        database.recordMove(game, move, 1);
+        Assertions.assertEquals(List.of(move), database.findMoves(game.gameID()));
+        Assertions.assertEquals(Fen.toFen(game.game()), Fen.toFen(database.findGame(game.gameID()).game()));
+    }
+
+    @Test
+    @DisplayName("A Finished Game Is Saved Straight Away")
+    public void gameOverSnapshot() throws Exception {
+        Game game = database.createGame("resigned");
+        play(game, 1);
+        Game finished = game.setState(Game.GameState.BLACK);
+        ChessMove move = KnightMoves.at(1);
+        finished.game().makeMove(move);
+        database.recordMove(finished, move, 2);
+        Assertions.assertEquals(Game.GameState.BLACK, database.findGame(game.gameID()).getState());
+    }
+
+    @Test
+    @DisplayName("JSON Games Reloaded Between Snapshots Keep Counting Moves")
+    public void jsonReload() throws Exception {
+        // JSON leaves the move counters out, so they have to come back from the row's snapshotPly
+        SQLDAO jsonDatabase = new SQLDAO(GameFormat.JSON, 4, 4);
+        Game game = jsonDatabase.createGame("json");
+        List<ChessMove> played = new ArrayList<>();
+        for (int ply = 0; ply < 6; ply++) {
+            ChessMove move = KnightMoves.at(ply);
+            game.game().makeMove(move);
+            jsonDatabase.recordMove(game, move, ((MyGame) game.game()).getPly());
+            played.add(move);
+        }
+
+        Game reloaded = jsonDatabase.findGame(game.gameID());
+        Assertions.assertEquals(6, ((MyGame) reloaded.game()).getPly(), "The reloaded game lost count of its moves");
+        Assertions.assertEquals(6, ((MyGame) jsonDatabase.findAllGames().iterator().next().game()).getPly());
+        for (int ply = 6; ply < 9; ply++) {
+            ChessMove move = KnightMoves.at(ply);
+            reloaded.game().makeMove(move);
+            jsonDatabase.recordMove(reloaded, move, ((MyGame) reloaded.game()).getPly());
+            played.add(move);
+        }
+        Assertions.assertEquals(played, jsonDatabase.findMoves(game.gameID()), "Moves after the reload overwrote earlier ones");
+        Assertions.assertEquals(Fen.toFen(reloaded.game()), Fen.toFen(jsonDatabase.findGame(game.gameID()).game()));
+    }
+}
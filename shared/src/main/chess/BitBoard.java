@@ -0,0 +1,445 @@
+package chess;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class BitBoard implements ChessBoard {
+
+    // This class is a drop-in replacement for MyBoard that stores the pieces as twelve 64-bit bitboards,
+    // one for every combination of piece type and team color, plus an occupancy mask for each team.
+    // Square numbering: square = (row-1)*8 + (col-1), so a1 is bit 0, h1 is bit 7 and h8 is bit 63.
+    // A small per-square lookup table sits next to the bitboards so getPiece never has to search them.
+    // Only the twelve piece bitboards are serialized, the occupancy masks and lookup table are rebuilt from them.
+
+    static final int PIECE_COUNT = 12;
+    private static final int WHITE_KING = 0;
+    private static final int BLACK_KING = 6;
+
+    private final long[] bitboards;         // indexed by pieceIndex(color, type)
+    private transient long whitePieces;     // every square holding a white piece
+    private transient long blackPieces;     // every square holding a black piece
+    private transient byte[] squares;       // pieceIndex + 1 of the piece on each square, 0 when empty
+    private transient int whiteKing;        // cached king squares, -1 when that king is off the board
+    private transient int blackKing;
+    private transient long zobristKey;      // Zobrist key of the pieces, kept up to date on every change (see Zobrist)
+
+    // Undo stack for makeMove/unmakeMove. Each entry is the packed move in the low 16 bits
+    // with pieceIndex + 1 of the captured piece (0 for none) above it.
+    private transient int[] undoStack;
+    private transient int undoDepth;
+
+    // Constructor
+    public BitBoard() {
+        // Just like MyBoard, a new board starts out entirely empty
+        bitboards = new long[PIECE_COUNT];
+        squares = new byte[64];
+        whiteKing = -1;
+        blackKing = -1;
+        undoStack = new int[64];
+    }
+
+    // Builds a board from the twelve bitboards of a serialized BitBoard
+    public static BitBoard fromBitboards(long[] pieceBitboards) {
+        if (pieceBitboards == null || pieceBitboards.length != PIECE_COUNT) {
+            throw new IllegalArgumentException("A BitBoard needs exactly " + PIECE_COUNT + " bitboards");
+        }
+        BitBoard newBoard = new BitBoard();
+        System.arraycopy(pieceBitboards, 0, newBoard.bitboards, 0, PIECE_COUNT);
+        newBoard.rebuildDerivedState();
+        return newBoard;
+    }
+
+    // Builds a BitBoard holding the same pieces as any other ChessBoard implementation
+    public static BitBoard copyOf(ChessBoard board) {
+        BitBoard newBoard = new BitBoard();
+        newBoard.copyFrom(board);
+        return newBoard;
+    }
+
+    // Replaces the contents of this board with the pieces on the given board
+    public void copyFrom(ChessBoard board) {
+        if (board instanceof BitBoard other) {
+            System.arraycopy(other.bitboards, 0, bitboards, 0, PIECE_COUNT);
+            System.arraycopy(other.squares, 0, squares, 0, 64);
+            whitePieces = other.whitePieces;
+            blackPieces = other.blackPieces;
+            whiteKing = other.whiteKing;
+            blackKing = other.blackKing;
+            zobristKey = other.zobristKey;
+            undoDepth = 0;
+            return;
+        }
+        clear();
+        // getBoard() is indexed [row-1][col-1] which lines up with our square numbering
+        ChessPiece[][] otherSquares = board.getBoard();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = otherSquares[row][col];
+                if (piece != null) {
+                    setSquare(row * 8 + col, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+                }
+            }
+        }
+    }
+
+
+    // returns a snapshot of the current board as a [row-1][col-1] array, changes to it do not affect this board
+    @Override
+    public ChessPiece[][] getBoard() {
+        ChessPiece[][] snapshot = new ChessPiece[8][8];
+        for (int index = 0; index < PIECE_COUNT; index++) {
+            long pieces = bitboards[index];
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                snapshot[square >>> 3][square & 7] = PieceRegistry.byIndex(index);
+                pieces &= pieces - 1;
+            }
+        }
+        return snapshot;
+    }
+
+    // Adds a chess piece to the chessboard, replacing anything already on that square
+    //     @param position where to add the piece to
+    //     @param piece    the piece to add, or null to empty the square
+    @Override
+    public void addPiece(ChessPosition position, ChessPiece piece) {
+        undoDepth = 0;      // editing squares by hand starts a new move history, older moves can't be taken back
+        int square = square(position);
+        clearSquare(square);
+        if (piece != null) {
+            setSquare(square, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
+    }
+
+    // Gets a chess piece on the chessboard
+    //     @param position The position to get the piece from
+    //     @return Either the piece at the position, or null if no piece is at that position
+    @Override
+    public ChessPiece getPiece(ChessPosition position) {
+        return pieceAt(square(position));
+    }
+
+    // Sets the board to the default starting board
+    //     (How the game of chess normally starts)
+    @Override
+    public void resetBoard() {
+        bitboards[pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)] = 0x0000000000000010L;
+        bitboards[pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN)] = 0x0000000000000008L;
+        bitboards[pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP)] = 0x0000000000000024L;
+        bitboards[pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT)] = 0x0000000000000042L;
+        bitboards[pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)] = 0x0000000000000081L;
+        bitboards[pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN)] = 0x000000000000FF00L;
+        bitboards[pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING)] = 0x1000000000000000L;
+        bitboards[pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN)] = 0x0800000000000000L;
+        bitboards[pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP)] = 0x2400000000000000L;
+        bitboards[pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT)] = 0x4200000000000000L;
+        bitboards[pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK)] = 0x8100000000000000L;
+        bitboards[pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN)] = 0x00FF000000000000L;
+        rebuildDerivedState();
+    }
+
+
+    /** Bitboard accessors for code that wants to work with whole sets of squares at once */
+
+    // the bitboard for one piece type and color
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bitboards[pieceIndex(color, type)];
+    }
+
+    // every square occupied by the given team
+    public long occupancy(ChessGame.TeamColor color) {
+        return (color == ChessGame.TeamColor.WHITE) ? whitePieces : blackPieces;
+    }
+
+    // every occupied square
+    public long occupancy() {
+        return whitePieces | blackPieces;
+    }
+
+    // The Zobrist key of the pieces on the board. Xor in Zobrist.sideToMoveKey to tell apart
+    // the same pieces with a different team to move.
+    public long zobristKey() {
+        return zobristKey;
+    }
+
+    // the square of the given team's king, or -1 if that team has no king on the board
+    public int kingSquare(ChessGame.TeamColor color) {
+        return (color == ChessGame.TeamColor.WHITE) ? whiteKing : blackKing;
+    }
+
+    // the piece on a square, or null if the square is empty
+    public ChessPiece pieceAt(int square) {
+        int index = pieceIndexAt(square);
+        return (index < 0) ? null : PieceRegistry.byIndex(index);
+    }
+
+    // the pieceIndex of the piece on a square, or -1 if the square is empty
+    int pieceIndexAt(int square) {
+        return squares[square] - 1;
+    }
+
+
+    /** Attack detection */
+
+    // Checks if any piece of the given color attacks the square. Rather than generating that team's moves
+    // this looks outward from the square: a knight a knight's jump away, a pawn on one of the two diagonals
+    // it captures from, a king next to it, or a slider with a clear ray to it. Cheapest probes go first
+    // so most calls return before reaching the slider lookups.
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+        int base = (byColor == ChessGame.TeamColor.WHITE) ? 0 : 6;
+        ChessGame.TeamColor otherColor = (byColor == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if ((StepAttacks.knightAttacks(square) & bitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0
+                || (StepAttacks.pawnAttacks(otherColor, square) & bitboards[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0
+                || (StepAttacks.kingAttacks(square) & bitboards[base + ChessPiece.PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long occupancy = whitePieces | blackPieces;
+        long queens = bitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long straightSliders = queens | bitboards[base + ChessPiece.PieceType.ROOK.ordinal()];
+        if (straightSliders != 0 && (SlidingAttacks.rookAttacks(square, occupancy) & straightSliders) != 0) {
+            return true;
+        }
+        long diagonalSliders = queens | bitboards[base + ChessPiece.PieceType.BISHOP.ordinal()];
+        return diagonalSliders != 0 && (SlidingAttacks.bishopAttacks(square, occupancy) & diagonalSliders) != 0;
+    }
+
+    // Every piece of the given color that attacks the square, with sliders blocked by the given occupancy.
+    // Passing an occupancy without the defending king lets callers see the squares behind it on a ray.
+    public long attackersOf(int square, ChessGame.TeamColor byColor, long occupancy) {
+        int base = (byColor == ChessGame.TeamColor.WHITE) ? 0 : 6;
+        // a pawn of byColor attacks this square from the squares a pawn of the other color would capture on
+        ChessGame.TeamColor otherColor = (byColor == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long attackers = StepAttacks.knightAttacks(square) & bitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()];
+        attackers |= StepAttacks.pawnAttacks(otherColor, square) & bitboards[base + ChessPiece.PieceType.PAWN.ordinal()];
+        attackers |= StepAttacks.kingAttacks(square) & bitboards[base + ChessPiece.PieceType.KING.ordinal()];
+
+        long queens = bitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long straightSliders = queens | bitboards[base + ChessPiece.PieceType.ROOK.ordinal()];
+        long diagonalSliders = queens | bitboards[base + ChessPiece.PieceType.BISHOP.ordinal()];
+        if (straightSliders != 0) {
+            attackers |= SlidingAttacks.rookAttacks(square, occupancy) & straightSliders;
+        }
+        if (diagonalSliders != 0) {
+            attackers |= SlidingAttacks.bishopAttacks(square, occupancy) & diagonalSliders;
+        }
+        return attackers;
+    }
+
+
+    /** Making and taking back moves */
+
+    // Makes a packed move (see Move) on this board and remembers what it captured, so unmakeMove can put
+    // everything back exactly. Only the squares involved are touched, and the occupancy masks, lookup table
+    // and king squares are all updated along the way. The move is not checked for legality here.
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int movingPiece = squares[from] - 1;
+        int capturedPiece = squares[to] - 1;
+
+        if (undoDepth == undoStack.length) {
+            int[] biggerStack = new int[undoStack.length * 2];
+            System.arraycopy(undoStack, 0, biggerStack, 0, undoDepth);
+            undoStack = biggerStack;
+        }
+        undoStack[undoDepth++] = (move & 0xFFFF) | ((capturedPiece + 1) << 16);
+
+        clearSquare(to);
+        clearSquare(from);
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            movingPiece = (movingPiece < 6 ? 0 : 6) + promotion.ordinal();
+        }
+        setSquare(to, movingPiece);
+    }
+
+    // Takes back the most recent move made with makeMove
+    public void unmakeMove() {
+        if (undoDepth == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        int entry = undoStack[--undoDepth];
+        int from = Move.from(entry);
+        int to = Move.to(entry);
+        int capturedPiece = (entry >>> 16) - 1;
+
+        int movedPiece = squares[to] - 1;
+        if (Move.promotion(entry) != null) {
+            // the piece on the end square was a pawn before it promoted
+            movedPiece = (movedPiece < 6 ? 0 : 6) + ChessPiece.PieceType.PAWN.ordinal();
+        }
+        clearSquare(to);
+        setSquare(from, movedPiece);
+        if (capturedPiece >= 0) {
+            setSquare(to, capturedPiece);
+        }
+    }
+
+    // how many moves unmakeMove can currently take back
+    public int undoDepth() {
+        return undoDepth;
+    }
+
+    // Drops the undo history, for callers like MyGame that play moves for good and never take them back,
+    // so the stack stays at its starting size however long the game goes on
+    public void forgetMoves() {
+        undoDepth = 0;
+    }
+
+
+    /** Helpers that let the pieces use bitboards on any ChessBoard implementation */
+
+    // every occupied square on any board, read straight from the masks when it is a BitBoard
+    static long occupancyOf(ChessBoard board) {
+        if (board instanceof BitBoard bitBoard) {
+            return bitBoard.occupancy();
+        }
+        long occupancy = 0;
+        ChessPiece[][] squares = board.getBoard();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (squares[row][col] != null) {
+                    occupancy |= 1L << (row * 8 + col);
+                }
+            }
+        }
+        return occupancy;
+    }
+
+    // the given squares minus any that hold one of the team's own pieces, on any board
+    static long withoutTeam(ChessBoard board, long targets, ChessGame.TeamColor color) {
+        if (board instanceof BitBoard bitBoard) {
+            return targets & ~bitBoard.occupancy(color);
+        }
+        // only look at the target squares rather than scanning the whole board again
+        ChessPiece[][] squares = board.getBoard();
+        long remaining = targets;
+        while (remaining != 0) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            ChessPiece piece = squares[square >>> 3][square & 7];
+            if (piece != null && piece.getTeamColor() == color) {
+                targets &= ~(1L << square);
+            }
+        }
+        return targets;
+    }
+
+    // turns a bitboard of destination squares into the moves a piece on the start position would make
+    static Set<ChessMove> movesTo(ChessPosition startPosition, long targets) {
+        Set<ChessMove> moves = new HashSet<>();
+        while (targets != 0) {
+            moves.add(new MyMove(startPosition, position(Long.numberOfTrailingZeros(targets)), null));
+            targets &= targets - 1;
+        }
+        return moves;
+    }
+
+
+    /** Square and piece index helpers */
+
+    // converts a 1-indexed row and column position into a 0-63 square
+    public static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + (position.getColumn() - 1);
+    }
+
+    // converts a 0-63 square back into a position
+    public static ChessPosition position(int square) {
+        return MyPosition.of((square >>> 3) + 1, (square & 7) + 1);
+    }
+
+    // white pieces take indices 0-5 and black pieces 6-11, in PieceType order
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return (color == ChessGame.TeamColor.WHITE ? 0 : 6) + type.ordinal();
+    }
+
+    static ChessPiece piece(int pieceIndex) {
+        return PieceRegistry.byIndex(pieceIndex);
+    }
+
+
+    /** Internal bookkeeping, every change to the bitboards goes through these */
+
+    void setSquare(int square, int pieceIndex) {
+        long bit = 1L << square;
+        squares[square] = (byte) (pieceIndex + 1);
+        bitboards[pieceIndex] |= bit;
+        zobristKey ^= Zobrist.pieceKey(pieceIndex, square);
+        if (pieceIndex == WHITE_KING || pieceIndex == BLACK_KING) {
+            updateKingSquare(pieceIndex);
+        }
+        if (pieceIndex < 6) {
+            whitePieces |= bit;
+        } else {
+            blackPieces |= bit;
+        }
+    }
+
+    void clearSquare(int square) {
+        int pieceIndex = squares[square] - 1;
+        if (pieceIndex < 0) {
+            return;
+        }
+        long mask = ~(1L << square);
+        squares[square] = 0;
+        bitboards[pieceIndex] &= mask;
+        zobristKey ^= Zobrist.pieceKey(pieceIndex, square);
+        whitePieces &= mask;
+        blackPieces &= mask;
+        if (pieceIndex == WHITE_KING || pieceIndex == BLACK_KING) {
+            updateKingSquare(pieceIndex);
+        }
+    }
+
+    // with more than one king of a color on the board (only possible in test setups) the lowest square wins
+    private void updateKingSquare(int kingIndex) {
+        long king = bitboards[kingIndex];
+        int square = (king == 0) ? -1 : Long.numberOfTrailingZeros(king);
+        if (kingIndex == WHITE_KING) {
+            whiteKing = square;
+        } else {
+            blackKing = square;
+        }
+    }
+
+    private void clear() {
+        for (int index = 0; index < PIECE_COUNT; index++) {
+            bitboards[index] = 0;
+        }
+        for (int square = 0; square < 64; square++) {
+            squares[square] = 0;
+        }
+        whitePieces = 0;
+        blackPieces = 0;
+        whiteKing = -1;
+        blackKing = -1;
+        zobristKey = 0;
+        undoDepth = 0;
+    }
+
+    private void rebuildDerivedState() {
+        whitePieces = 0;
+        blackPieces = 0;
+        zobristKey = 0;
+        for (int square = 0; square < 64; square++) {
+            squares[square] = 0;
+        }
+        for (int index = 0; index < PIECE_COUNT; index++) {
+            if (index < 6) {
+                whitePieces |= bitboards[index];
+            } else {
+                blackPieces |= bitboards[index];
+            }
+            long pieces = bitboards[index];
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                squares[square] = (byte) (index + 1);
+                zobristKey ^= Zobrist.pieceKey(index, square);
+                pieces &= pieces - 1;
+            }
+        }
+        updateKingSquare(WHITE_KING);
+        updateKingSquare(BLACK_KING);
+        undoDepth = 0;
+    }
+}
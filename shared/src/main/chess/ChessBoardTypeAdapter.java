@@ -11,7 +11,11 @@ public class ChessBoardTypeAdapter implements JsonDeserializer<ChessBoard> {
     @Override
     public ChessBoard deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
             throws JsonParseException {
-        // Assuming MyBoard is the concrete implementation of ChessBoard
+        // a serialized BitBoard only carries its twelve piece bitboards, anything else is a MyBoard
+        if (json.isJsonObject() && json.getAsJsonObject().has("bitboards")) {
+            long[] bitboards = context.deserialize(json.getAsJsonObject().get("bitboards"), long[].class);
+            return BitBoard.fromBitboards(bitboards);
+        }
         return context.deserialize(json, MyBoard.class);
     }
 }
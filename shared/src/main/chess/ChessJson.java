@@ -0,0 +1,282 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+public final class ChessJson {
+
+    // The one Gson instance for anything that contains chess types: games, boards, pieces, positions and
+    // moves, along with the messages and records that carry them. A Gson is thread safe once built, so
+    // the server, DAOs and client all share this one. Building a Gson is slow, so nobody should build
+    // their own.
+    //
+    // Chess types are read and written by the streaming adapters below. They go straight between objects
+    // and JsonReader/JsonWriter, with no JsonElement tree and no reflection. The JSON they write is the
+    // same JSON Gson wrote reflectively before, so saved games and clients running older code still read it:
+    //     game      {"teamTurn":"WHITE","chessBoard":{...}}
+    //     MyBoard   {"board":[[piece or null, ... 8 columns], ... 8 rows]}
+    //     BitBoard  {"bitboards":[12 longs in BitBoard.pieceIndex order]}
+    //     piece     {"teamColor":"WHITE","pieceType":"PAWN"}
+    //     position  {"row":1,"column":1}
+    //     move      {"startPosition":{...},"endPosition":{...},"promotionPiece":"QUEEN"}
+    // Reading hands back the shared PieceRegistry and MyPosition instances.
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeHierarchyAdapter(ChessGame.class, new GameAdapter().nullSafe())
+            .registerTypeHierarchyAdapter(ChessBoard.class, new BoardAdapter().nullSafe())
+            .registerTypeHierarchyAdapter(ChessPiece.class, new PieceAdapter().nullSafe())
+            .registerTypeHierarchyAdapter(ChessPosition.class, new PositionAdapter().nullSafe())
+            .registerTypeHierarchyAdapter(ChessMove.class, new MoveAdapter().nullSafe())
+            .create();
+
+    private ChessJson() {}
+
+    public static Gson gson() {
+        return GSON;
+    }
+
+    public static String toJson(Object object) {
+        return GSON.toJson(object);
+    }
+
+    public static <T> T fromJson(String json, Class<T> type) {
+        return GSON.fromJson(json, type);
+    }
+
+
+    /** Streaming adapters, one per chess type */
+
+    private static final class GameAdapter extends TypeAdapter<ChessGame> {
+        private final BoardAdapter boardAdapter = new BoardAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            out.beginObject();
+            if (game.getTeamTurn() != null) {
+                out.name("teamTurn").value(game.getTeamTurn().name());
+            }
+            if (game.getBoard() != null) {
+                out.name("chessBoard");
+                boardAdapter.write(out, game.getBoard());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            ChessGame.TeamColor teamTurn = null;
+            ChessBoard board = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "teamTurn" -> teamTurn = readEnum(in, ChessGame.TeamColor.class);
+                    case "chessBoard" -> board = (in.peek() == JsonToken.NULL) ? skipNull(in) : boardAdapter.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new MyGame(board, teamTurn);
+        }
+    }
+
+    private static final class BoardAdapter extends TypeAdapter<ChessBoard> {
+        private final PieceAdapter pieceAdapter = new PieceAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            out.beginObject();
+            if (board instanceof BitBoard bitBoard) {
+                out.name("bitboards").beginArray();
+                for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                    for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                        out.value(bitBoard.pieces(color, type));
+                    }
+                }
+                out.endArray();
+            } else {
+                out.name("board").beginArray();
+                for (ChessPiece[] row : board.getBoard()) {
+                    out.beginArray();
+                    for (ChessPiece piece : row) {
+                        if (piece == null) {
+                            out.nullValue();
+                        } else {
+                            pieceAdapter.write(out, piece);
+                        }
+                    }
+                    out.endArray();
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            ChessBoard board = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "bitboards" -> board = readBitBoard(in);
+                    case "board" -> board = readMyBoard(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (board == null) {
+                throw new JsonParseException("Board JSON has neither \"board\" nor \"bitboards\"");
+            }
+            return board;
+        }
+
+        private BitBoard readBitBoard(JsonReader in) throws IOException {
+            long[] bitboards = new long[BitBoard.PIECE_COUNT];
+            int index = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (index == BitBoard.PIECE_COUNT) {
+                    throw new JsonParseException("Too many bitboards, expected " + BitBoard.PIECE_COUNT);
+                }
+                bitboards[index++] = in.nextLong();
+            }
+            in.endArray();
+            return BitBoard.fromBitboards(bitboards);
+        }
+
+        private MyBoard readMyBoard(JsonReader in) throws IOException {
+            MyBoard board = new MyBoard();
+            in.beginArray();
+            for (int row = 1; in.hasNext(); row++) {
+                in.beginArray();
+                for (int col = 1; in.hasNext(); col++) {
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        board.addPiece(MyPosition.of(row, col), pieceAdapter.read(in));
+                    }
+                }
+                in.endArray();
+            }
+            in.endArray();
+            return board;
+        }
+    }
+
+    private static final class PieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            out.beginObject();
+            out.name("teamColor").value(piece.getTeamColor().name());
+            out.name("pieceType").value(piece.getPieceType().name());
+            out.endObject();
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            ChessGame.TeamColor teamColor = null;
+            ChessPiece.PieceType pieceType = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "teamColor" -> teamColor = readEnum(in, ChessGame.TeamColor.class);
+                    case "pieceType" -> pieceType = readEnum(in, ChessPiece.PieceType.class);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (teamColor == null || pieceType == null) {
+                throw new JsonParseException("Missing pieceType or teamColor in JSON");
+            }
+            return PieceRegistry.of(teamColor, pieceType);
+        }
+    }
+
+    private static final class PositionAdapter extends TypeAdapter<ChessPosition> {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            out.beginObject();
+            out.name("row").value(position.getRow());
+            out.name("column").value(position.getColumn());
+            out.endObject();
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            int row = 0;
+            int column = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "row" -> row = in.nextInt();
+                    case "column" -> column = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            try {
+                return MyPosition.of(row, column);
+            } catch (IllegalArgumentException e) {
+                throw new JsonParseException(e.getMessage());
+            }
+        }
+    }
+
+    private static final class MoveAdapter extends TypeAdapter<ChessMove> {
+        private final PositionAdapter positionAdapter = new PositionAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessMove move) throws IOException {
+            out.beginObject();
+            out.name("startPosition");
+            positionAdapter.write(out, move.getStartPosition());
+            out.name("endPosition");
+            positionAdapter.write(out, move.getEndPosition());
+            if (move.getPromotionPiece() != null) {
+                out.name("promotionPiece").value(move.getPromotionPiece().name());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessMove read(JsonReader in) throws IOException {
+            ChessPosition start = null;
+            ChessPosition end = null;
+            ChessPiece.PieceType promotion = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "startPosition" -> start = (in.peek() == JsonToken.NULL) ? skipNull(in) : positionAdapter.read(in);
+                    case "endPosition" -> end = (in.peek() == JsonToken.NULL) ? skipNull(in) : positionAdapter.read(in);
+                    case "promotionPiece" -> promotion = readEnum(in, ChessPiece.PieceType.class);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new MyMove(start, end, promotion);
+        }
+    }
+
+    private static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            return skipNull(in);
+        }
+        String name = in.nextString();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Unknown " + type.getSimpleName() + ": " + name);
+        }
+    }
+
+    private static <T> T skipNull(JsonReader in) throws IOException {
+        in.nextNull();
+        return null;
+    }
+}
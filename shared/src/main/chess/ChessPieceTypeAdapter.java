@@ -23,22 +23,11 @@ public class ChessPieceTypeAdapter implements JsonDeserializer<ChessPiece> {
         String pieceType = pieceTypeElement.getAsString();
         ChessGame.TeamColor teamColor = ChessGame.TeamColor.valueOf(teamColorElement.getAsString());
 
-        // Instantiate the correct subclass based on the piece type
-        switch (pieceType) {
-            case "PAWN":
-                return new MyPawn(teamColor);
-            case "ROOK":
-                return new MyRook(teamColor);
-            case "KNIGHT":
-                return new MyKnight(teamColor);
-            case "BISHOP":
-                return new MyBishop(teamColor);
-            case "QUEEN":
-                return new MyQueen(teamColor);
-            case "KING":
-                return new MyKing(teamColor);
-            default:
-                throw new JsonParseException("Unknown piece type: " + pieceType);
+        // Hand back the shared instance of the piece rather than creating a new one
+        try {
+            return PieceRegistry.of(teamColor, ChessPiece.PieceType.valueOf(pieceType));
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Unknown piece type: " + pieceType);
         }
     }
 }
@@ -3,6 +3,7 @@ package chess;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 
 import java.lang.reflect.Type;
@@ -11,7 +12,17 @@ public class ChessPositionTypeAdapter implements JsonDeserializer<ChessPosition>
     @Override
     public ChessPosition deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
             throws JsonParseException {
-        // Assuming MyBoard is the concrete implementation of ChessBoard
-        return context.deserialize(json, MyPosition.class);
+        // Positions are shared, so look up the existing one instead of building a new MyPosition
+        JsonObject jsonObject = json.getAsJsonObject();
+        JsonElement row = jsonObject.get("row");
+        JsonElement column = jsonObject.get("column");
+        if (row == null || column == null) {
+            throw new JsonParseException("Missing row or column in JSON");
+        }
+        try {
+            return MyPosition.of(row.getAsInt(), column.getAsInt());
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage());
+        }
     }
 }
@@ -0,0 +1,232 @@
+package chess;
+
+public final class Fen {
+
+    // Reads and writes games as FEN (Forsyth-Edwards Notation), the standard one line description of a chess
+    // position: "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b - - 0 1"
+    // The six fields are the pieces from the 8th rank down to the 1st, the side to move, castling rights,
+    // the en passant square, the halfmove clock and the fullmove number.
+    //
+    // A game is about 60 characters of FEN against a couple of kilobytes of JSON, and both directions are a
+    // single pass over the characters with no reflection, so this is what the websocket and the DAOs use
+    // when a client or the server is set up for GameFormat.FEN.
+    //
+    // This game has no castling or en passant, so those fields are always written as "-". They are still
+    // checked when reading so that FEN from other tools loads, but their values are not kept.
+
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private static final String SYMBOLS = "kqbnrpKQBNRP";     // black then white, in PieceType order
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Fen() {}
+
+
+    /** Writing */
+
+    public static String toFen(ChessGame game) {
+        if (game instanceof MyGame myGame) {
+            return toFen(game.getBoard(), game.getTeamTurn(), myGame.getHalfmoveClock(), myGame.getFullmoveNumber());
+        }
+        return toFen(game.getBoard(), game.getTeamTurn(), 0, 1);
+    }
+
+    public static String toFen(ChessBoard board, ChessGame.TeamColor teamTurn, int halfmoveClock, int fullmoveNumber) {
+        StringBuilder fen = new StringBuilder(90);
+        // a BitBoard can answer square by square, anything else hands over its array without copying
+        BitBoard bitBoard = (board instanceof BitBoard b) ? b : null;
+        ChessPiece[][] squares = (bitBoard == null) ? board.getBoard() : null;
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = (bitBoard != null) ? bitBoard.pieceAt((row - 1) * 8 + (col - 1)) : squares[row - 1][col - 1];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(symbol(piece));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(teamTurn == ChessGame.TeamColor.BLACK ? " b" : " w");
+        fen.append(" - - ").append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    public static char symbol(ChessPiece piece) {
+        int offset = (piece.getTeamColor() == ChessGame.TeamColor.WHITE) ? 6 : 0;
+        return SYMBOLS.charAt(offset + piece.getPieceType().ordinal());
+    }
+
+
+    /** Reading */
+
+    // A new game on a MyBoard, with the side to move and move counters from the FEN
+    public static MyGame parseGame(String fen) {
+        return parseGame(fen, new MyBoard());
+    }
+
+    // Same as above but on the given board, which is cleared first
+    public static MyGame parseGame(String fen, ChessBoard board) {
+        Parser parser = new Parser(fen);
+        ChessGame.TeamColor teamTurn = parser.readPosition(board);
+        MyGame game = new MyGame(board, teamTurn);
+        game.setMoveCounters(parser.halfmoveClock, parser.fullmoveNumber);
+        return game;
+    }
+
+    // Sets up the board from a FEN string and returns the side to move.
+    // Only the piece placement is required, every field after it may be left off.
+    public static ChessGame.TeamColor loadPosition(ChessBoard board, String fen) {
+        return new Parser(fen).readPosition(board);
+    }
+
+    // Tells a stored or received game apart from JSON, which always starts with '{'
+    public static boolean isFen(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c != '{';
+            }
+        }
+        return false;
+    }
+
+    // A single left to right pass over the characters, the fields are never split out into new strings
+    private static final class Parser {
+        private final String fen;
+        private int index;
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+
+        Parser(String fen) {
+            if (fen == null) {
+                throw new IllegalArgumentException("FEN is null");
+            }
+            this.fen = fen;
+        }
+
+        ChessGame.TeamColor readPosition(ChessBoard board) {
+            skipSpaces();
+            clearBoard(board);
+            readPlacement(board);
+            ChessGame.TeamColor teamTurn = ChessGame.TeamColor.WHITE;
+            if (skipSpaces()) {
+                char side = fen.charAt(index++);
+                if (side == 'b') {
+                    teamTurn = ChessGame.TeamColor.BLACK;
+                } else if (side != 'w') {
+                    throw error("Side to move must be 'w' or 'b'");
+                }
+                if (index < fen.length() && !Character.isWhitespace(fen.charAt(index))) {
+                    throw error("Side to move must be 'w' or 'b'");
+                }
+            }
+            if (skipSpaces()) {
+                readField("KQkq-", "Bad castling rights");
+            }
+            if (skipSpaces()) {
+                readField("abcdefgh12345678-", "Bad en passant square");
+            }
+            if (skipSpaces()) {
+                halfmoveClock = readNumber();
+            }
+            if (skipSpaces()) {
+                fullmoveNumber = Math.max(1, readNumber());
+            }
+            if (skipSpaces()) {
+                throw error("Unexpected text after the move counters");
+            }
+            return teamTurn;
+        }
+
+        private void readPlacement(ChessBoard board) {
+            int row = 8;    // FEN lists the 8th rank first
+            int col = 1;
+            while (index < fen.length() && !Character.isWhitespace(fen.charAt(index))) {
+                char c = fen.charAt(index++);
+                if (c == '/') {
+                    if (col != 9) {
+                        throw error("Rank " + row + " does not have 8 squares");
+                    }
+                    if (--row < 1) {
+                        throw error("More than 8 ranks");
+                    }
+                    col = 1;
+                } else if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                    if (col > 9) {
+                        throw error("Rank " + row + " has more than 8 squares");
+                    }
+                } else {
+                    int symbol = SYMBOLS.indexOf(c);
+                    if (symbol < 0) {
+                        throw error("Unknown piece '" + c + "'");
+                    }
+                    if (col > 8) {
+                        throw error("Rank " + row + " has more than 8 squares");
+                    }
+                    ChessGame.TeamColor color = (symbol >= 6) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                    board.addPiece(MyPosition.of(row, col++), PieceRegistry.of(color, TYPES[symbol % 6]));
+                }
+            }
+            if (row != 1 || col != 9) {
+                throw error("Expected 8 ranks of 8 squares");
+            }
+        }
+
+        private void readField(String allowed, String message) {
+            int start = index;
+            while (index < fen.length() && !Character.isWhitespace(fen.charAt(index))) {
+                if (allowed.indexOf(fen.charAt(index++)) < 0) {
+                    throw error(message);
+                }
+            }
+            if (index == start) {
+                throw error(message);
+            }
+        }
+
+        private int readNumber() {
+            int value = 0;
+            int start = index;
+            while (index < fen.length() && !Character.isWhitespace(fen.charAt(index))) {
+                char c = fen.charAt(index++);
+                if (c < '0' || c > '9' || index - start > 9) {
+                    throw error("Bad move counter");
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        // moves past any spaces and reports whether there is another field
+        private boolean skipSpaces() {
+            while (index < fen.length() && Character.isWhitespace(fen.charAt(index))) {
+                index++;
+            }
+            return index < fen.length();
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " in FEN: " + fen);
+        }
+
+        private static void clearBoard(ChessBoard board) {
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    board.addPiece(MyPosition.of(row, col), null);
+                }
+            }
+        }
+    }
+}
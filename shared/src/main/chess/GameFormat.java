@@ -0,0 +1,33 @@
+package chess;
+
+public enum GameFormat {
+
+    // How a ChessGame is written when it leaves the process, over the websocket or into the database.
+    // JSON is the original format that every client and saved game understands (see ChessJson),
+    // FEN is the compact one line format (see Fen) that clients and DAOs can opt into.
+    // PACKED is 39 bytes of binary (see PackedGame), so it is only for storage, never for the websocket.
+
+    JSON,
+    FEN,
+    PACKED;
+
+    public boolean isBinary() {
+        return this == PACKED;
+    }
+
+    // The text form of a game, for JSON and FEN only
+    public String encode(ChessGame game) {
+        if (isBinary()) {
+            throw new UnsupportedOperationException(this + " games are bytes, use PackedGame.encode");
+        }
+        return (this == FEN && game != null) ? Fen.toFen(game) : ChessJson.toJson(game);
+    }
+
+    // Reads a game written in either text format, whichever one this is
+    public static ChessGame decode(String text) {
+        if (text == null || !Fen.isFen(text) || text.equals("null")) {
+            return ChessJson.fromJson(text, ChessGame.class);
+        }
+        return Fen.parseGame(text);
+    }
+}
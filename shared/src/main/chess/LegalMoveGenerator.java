@@ -0,0 +1,142 @@
+package chess;
+
+public final class LegalMoveGenerator {
+
+    // Generates only legal moves, so nothing has to be made on the board and tested for check afterwards.
+    // Each call works out two things about the position once:
+    //   - the check mask: every square a non-king move may land on. With no check that is the whole board,
+    //     with one checker it is the checker plus the squares between it and the king, and under double
+    //     check it is empty because only the king can move.
+    //   - the pinned pieces: pieces that are the only thing between their king and an enemy slider.
+    //     A pinned piece may only move along the line through its king.
+    // King moves are kept when the destination isn't attacked with the king lifted off the board, so the
+    // king can't step backwards along the ray of a slider that is checking it.
+    // A board with no king for the team has nothing to protect, so every pseudo-legal move is legal there.
+
+    private static final long[][] BETWEEN = new long[64][64];    // squares strictly between two aligned squares
+    private static final long[][] LINE = new long[64][64];       // the full line through two aligned squares
+
+    static {
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = (1L << a) | (1L << b);
+                if ((SlidingAttacks.rookAttacks(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = SlidingAttacks.rookAttacks(a, 1L << b) & SlidingAttacks.rookAttacks(b, 1L << a);
+                    LINE[a][b] = (SlidingAttacks.rookAttacks(a, 0L) & SlidingAttacks.rookAttacks(b, 0L)) | ends;
+                } else if ((SlidingAttacks.bishopAttacks(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = SlidingAttacks.bishopAttacks(a, 1L << b) & SlidingAttacks.bishopAttacks(b, 1L << a);
+                    LINE[a][b] = (SlidingAttacks.bishopAttacks(a, 0L) & SlidingAttacks.bishopAttacks(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    private LegalMoveGenerator() {}
+
+    // appends every legal move for the given team
+    public static void generateLegalMoves(BitBoard board, ChessGame.TeamColor color, MoveList moves) {
+        int kingSquare = board.kingSquare(color);
+        long checkMask = checkMask(board, color, kingSquare);
+        long pinned = pinnedPieces(board, color, kingSquare);
+        long pieces = board.occupancy(color);
+        if (checkMask == 0) {
+            pieces = 1L << kingSquare;     // double check, only the king can move
+        }
+        while (pieces != 0) {
+            appendLegalMoves(board, Long.numberOfTrailingZeros(pieces), color, kingSquare, checkMask, pinned, moves);
+            pieces &= pieces - 1;
+        }
+    }
+
+    // appends the legal moves of the piece on one square, nothing if the square is empty
+    public static void generateLegalMoves(BitBoard board, int square, MoveList moves) {
+        ChessPiece piece = board.pieceAt(square);
+        if (piece == null) {
+            return;
+        }
+        ChessGame.TeamColor color = piece.getTeamColor();
+        int kingSquare = board.kingSquare(color);
+        appendLegalMoves(board, square, color, kingSquare,
+                checkMask(board, color, kingSquare), pinnedPieces(board, color, kingSquare), moves);
+    }
+
+    // generates the piece's pseudo-legal moves and then compacts away the ones the check mask, a pin,
+    // or an attacked destination square for the king rules out
+    private static void appendLegalMoves(BitBoard board, int square, ChessGame.TeamColor color, int kingSquare,
+                                         long checkMask, long pinned, MoveList moves) {
+        int start = moves.size();
+        MoveGenerator.generateMoves(board, square, moves);
+        int kept = start;
+
+        if (square == kingSquare) {
+            ChessGame.TeamColor enemy = opponent(color);
+            long withoutKing = board.occupancy() & ~(1L << kingSquare);
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (board.attackersOf(Move.to(move), enemy, withoutKing) == 0) {
+                    moves.set(kept++, move);
+                }
+            }
+        } else {
+            long allowed = checkMask;
+            if ((pinned & (1L << square)) != 0) {
+                allowed &= LINE[kingSquare][square];
+            }
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if ((allowed & (1L << Move.to(move))) != 0) {
+                    moves.set(kept++, move);
+                }
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    // where non-king moves may land: everywhere when not in check, the checker and the squares
+    // between it and the king under a single check, and nowhere under double check
+    private static long checkMask(BitBoard board, ChessGame.TeamColor color, int kingSquare) {
+        if (kingSquare < 0) {
+            return ~0L;
+        }
+        long checkers = board.attackersOf(kingSquare, opponent(color), board.occupancy());
+        if (checkers == 0) {
+            return ~0L;
+        }
+        if ((checkers & (checkers - 1)) != 0) {
+            return 0L;
+        }
+        return checkers | BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+    }
+
+    // Looks outward from the king through only the enemy's pieces to find every slider lined up with it.
+    // If exactly one piece stands between such a slider and the king, and it belongs to the king's team, it is pinned.
+    private static long pinnedPieces(BitBoard board, ChessGame.TeamColor color, int kingSquare) {
+        if (kingSquare < 0) {
+            return 0L;
+        }
+        ChessGame.TeamColor enemy = opponent(color);
+        long enemies = board.occupancy(enemy);
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (SlidingAttacks.rookAttacks(kingSquare, enemies) & (queens | board.pieces(enemy, ChessPiece.PieceType.ROOK)))
+                | (SlidingAttacks.bishopAttacks(kingSquare, enemies) & (queens | board.pieces(enemy, ChessPiece.PieceType.BISHOP)));
+
+        long own = board.occupancy(color);
+        long occupied = board.occupancy();
+        long pinned = 0;
+        while (snipers != 0) {
+            long blockers = BETWEEN[kingSquare][Long.numberOfTrailingZeros(snipers)] & occupied;
+            snipers &= snipers - 1;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
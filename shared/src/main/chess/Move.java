@@ -0,0 +1,108 @@
+package chess;
+
+public final class Move {
+
+    // Moves packed into a single int so move generation never has to allocate.
+    //     bits 0-5    start square (0-63, same numbering as BitBoard)
+    //     bits 6-11   end square
+    //     bits 12-14  promotion piece, 0 for none or PieceType.ordinal() + 1
+    //     bit 15      set when the move captures a piece
+    // Everything fits in the low 16 bits. Two moves are the same move if they match outside the flag bits,
+    // which is how moves coming in from the API (that don't know about captures) are looked up.
+
+    public static final int NONE = 0;
+    public static final int CAPTURE = 1 << 15;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int MOVE_MASK = 0x7FFF;    // everything except the flags
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {}
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = (promotion == null) ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promotionBits << 12) | flags;
+    }
+
+    // packs any ChessMove implementation, the capture flag is left clear
+    public static int encode(ChessMove move) {
+        return encode(BitBoard.square(move.getStartPosition()), BitBoard.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & SQUARE_MASK;
+    }
+
+    // the promotion piece, or null if the move is not a promotion
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotionBits = (move >>> 12) & 0x7;
+        return (promotionBits == 0) ? null : TYPES[promotionBits - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean sameMove(int first, int second) {
+        return (first & MOVE_MASK) == (second & MOVE_MASK);
+    }
+
+    // coordinate notation such as "e2e4" or "a7a8q", used for perft divide output, logging and MOVE messages
+    public static String toText(int move) {
+        StringBuilder text = new StringBuilder(5);
+        appendSquare(text, from(move));
+        appendSquare(text, to(move));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            text.append(switch (promotion) {
+                case QUEEN -> 'q';
+                case ROOK -> 'r';
+                case BISHOP -> 'b';
+                default -> 'n';
+            });
+        }
+        return text.toString();
+    }
+
+    // reads coordinate notation back into a packed move, the capture flag is left clear
+    public static int fromText(String text) {
+        if (text == null || (text.length() != 4 && text.length() != 5)) {
+            throw new IllegalArgumentException("Expected a move like e2e4 or a7a8q, got " + text);
+        }
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            promotion = switch (text.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Bad promotion piece in move " + text);
+            };
+        }
+        return encode(parseSquare(text, 0), parseSquare(text, 2), promotion, 0);
+    }
+
+    private static int parseSquare(String text, int index) {
+        int col = text.charAt(index) - 'a';
+        int row = text.charAt(index + 1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            throw new IllegalArgumentException("Bad square in move " + text);
+        }
+        return row * 8 + col;
+    }
+
+    private static void appendSquare(StringBuilder text, int square) {
+        text.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+
+    // builds the API object for a packed move, only done when a move has to leave the chess package
+    public static ChessMove toChessMove(int move) {
+        return new MyMove(BitBoard.position(from(move)), BitBoard.position(to(move)), promotion(move));
+    }
+}
@@ -0,0 +1,100 @@
+package chess;
+
+public final class MoveGenerator {
+
+    // Generates pseudo-legal moves straight off a BitBoard into a caller-owned MoveList.
+    // "Pseudo-legal" means the same thing as ChessPiece.pieceMoves: pieces can't move through or onto
+    // their own team, but nothing here checks whether the move leaves the king in danger.
+    // Nothing in this class allocates, so it can be called as often as needed on a busy server.
+
+    private static final long RANK_1 = 0x00000000000000FFL;
+    private static final long RANK_8 = 0xFF00000000000000L;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private MoveGenerator() {}
+
+    // appends every pseudo-legal move for the given team
+    public static void generateMoves(BitBoard board, ChessGame.TeamColor color, MoveList moves) {
+        long pieces = board.occupancy(color);
+        while (pieces != 0) {
+            generateMoves(board, Long.numberOfTrailingZeros(pieces), moves);
+            pieces &= pieces - 1;
+        }
+    }
+
+    // appends the pseudo-legal moves of the piece on one square, nothing if the square is empty
+    public static void generateMoves(BitBoard board, int square, MoveList moves) {
+        int pieceIndex = board.pieceIndexAt(square);
+        if (pieceIndex < 0) {
+            return;
+        }
+        ChessPiece piece = BitBoard.piece(pieceIndex);
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long own = board.occupancy(color);
+        long occupied = board.occupancy();
+
+        long targets;
+        switch (piece.getPieceType()) {
+            case PAWN -> {
+                addPawnMoves(board, square, color, moves);
+                return;
+            }
+            case KNIGHT -> targets = StepAttacks.knightAttacks(square);
+            case KING -> targets = StepAttacks.kingAttacks(square);
+            case BISHOP -> targets = SlidingAttacks.bishopAttacks(square, occupied);
+            case ROOK -> targets = SlidingAttacks.rookAttacks(square, occupied);
+            default -> targets = SlidingAttacks.queenAttacks(square, occupied);
+        }
+        addMoves(square, targets & ~own, occupied, moves);
+    }
+
+    private static void addMoves(int from, long targets, long occupied, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = ((occupied & (1L << to)) != 0) ? Move.CAPTURE : 0;
+            moves.add(Move.encode(from, to, null, flags));
+        }
+    }
+
+    // Pawns push one square forward onto an empty square, two from their starting row if both squares
+    // are empty, and capture diagonally forward. Reaching the last row produces one move per promotion piece.
+    private static void addPawnMoves(BitBoard board, int from, ChessGame.TeamColor color, MoveList moves) {
+        long occupied = board.occupancy();
+        long enemies = board.occupancy(color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        int forward = (color == ChessGame.TeamColor.WHITE) ? 8 : -8;
+        int startRow = (color == ChessGame.TeamColor.WHITE) ? 1 : 6;
+
+        int oneStep = from + forward;
+        if (oneStep >= 0 && oneStep < 64 && (occupied & (1L << oneStep)) == 0) {
+            addPawnMove(from, oneStep, 0, moves);
+            int twoSteps = oneStep + forward;
+            if ((from >>> 3) == startRow && (occupied & (1L << twoSteps)) == 0) {
+                moves.add(Move.encode(from, twoSteps, null, 0));
+            }
+        }
+
+        long captures = StepAttacks.pawnAttacks(color, from) & enemies;
+        while (captures != 0) {
+            int to = Long.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            addPawnMove(from, to, Move.CAPTURE, moves);
+        }
+    }
+
+    private static void addPawnMove(int from, int to, int flags, MoveList moves) {
+        if (((RANK_1 | RANK_8) & (1L << to)) != 0) {
+            for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                moves.add(Move.encode(from, to, promotion, flags));
+            }
+        } else {
+            moves.add(Move.encode(from, to, null, flags));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+public class MoveList {
+
+    // A reusable buffer of packed moves (see Move). Move generation appends to it and callers clear it
+    // between uses, so generating moves costs no allocation once the buffer exists.
+    // 256 slots is more than enough for any legal chess position, the most moves one has is 218, but a board
+    // set up by hand can hold more pieces than a real game, so the buffer doubles if it ever fills.
+
+    public static final int CAPACITY = 256;
+
+    private int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // drops everything from the given index on, used after compacting the moves worth keeping to the front
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    // the index of a move matching the given one (ignoring flags), or -1
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (Move.sameMove(moves[i], move)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Materializes the buffer as ChessMove objects, only meant for the public API boundary
+    public Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> chessMoves = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(Move.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+}
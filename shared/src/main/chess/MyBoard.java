@@ -9,6 +9,11 @@ public class MyBoard implements ChessBoard {
     // Create a 2D array to represent the chessboard
     private final ChessPiece[][] board;
 
+    // Zobrist key of the pieces (see Zobrist), computed the first time it is asked for and then kept up to
+    // date by addPiece, so the key of a game being played costs a couple of xors per move
+    private transient long zobristKey;
+    private transient boolean keyValid;
+
     // Constructor
     public MyBoard() {
         // Initialize the board in the constructor
@@ -33,6 +38,10 @@ public class MyBoard implements ChessBoard {
         // Add the piece to the specified position on the board
         int row = position.getRow();
         int col = position.getColumn();
+        if (keyValid) {
+            int square = (row - 1) * 8 + (col - 1);
+            zobristKey ^= Zobrist.pieceKey(board[row-1][col-1], square) ^ Zobrist.pieceKey(piece, square);
+        }
         board[row-1][col-1] = piece;        // included the -1 in the array because the indices go from 0-7
     }
 
@@ -51,10 +60,21 @@ public class MyBoard implements ChessBoard {
 
 
 
+    // The Zobrist key of the pieces on the board, without the side to move
+    public long zobristKey() {
+        if (!keyValid) {
+            zobristKey = Zobrist.piecesKey(board);
+            keyValid = true;
+        }
+        return zobristKey;
+    }
+
+
     // Sets the board to the default starting board
     //     (How the game of chess normally starts)
     @Override
     public void resetBoard() {
+        keyValid = false;   // worked out again the next time it is asked for
         // Clear the board
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
@@ -62,32 +82,32 @@ public class MyBoard implements ChessBoard {
             }
         }
 
-        // Set up the pieces for the starting position
+        // Set up the pieces for the starting position, using the shared piece instances
 
         // White pieces (bottom two rows)
         for (int col = 0; col < 8; col++) {
-            board[1][col] = new MyPawn(ChessGame.TeamColor.WHITE);
+            board[1][col] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         }
-        board[0][0] = new MyRook(ChessGame.TeamColor.WHITE);
-        board[0][1] = new MyKnight(ChessGame.TeamColor.WHITE);
-        board[0][2] = new MyBishop(ChessGame.TeamColor.WHITE);
-        board[0][3] = new MyQueen(ChessGame.TeamColor.WHITE);
-        board[0][4] = new MyKing(ChessGame.TeamColor.WHITE);
-        board[0][5] = new MyBishop(ChessGame.TeamColor.WHITE);
-        board[0][6] = new MyKnight(ChessGame.TeamColor.WHITE);
-        board[0][7] = new MyRook(ChessGame.TeamColor.WHITE);
+        board[0][0] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        board[0][1] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        board[0][2] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+        board[0][3] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+        board[0][4] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        board[0][5] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+        board[0][6] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        board[0][7] = PieceRegistry.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
 
         // Black pieces (top two rows)
         for (int col = 0; col < 8; col++) {
-            board[6][col] = new MyPawn(ChessGame.TeamColor.BLACK);
+            board[6][col] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
         }
-        board[7][0] = new MyRook(ChessGame.TeamColor.BLACK);
-        board[7][1] = new MyKnight(ChessGame.TeamColor.BLACK);
-        board[7][2] = new MyBishop(ChessGame.TeamColor.BLACK);
-        board[7][3] = new MyQueen(ChessGame.TeamColor.BLACK);
-        board[7][4] = new MyKing(ChessGame.TeamColor.BLACK);
-        board[7][5] = new MyBishop(ChessGame.TeamColor.BLACK);
-        board[7][6] = new MyKnight(ChessGame.TeamColor.BLACK);
-        board[7][7] = new MyRook(ChessGame.TeamColor.BLACK);
+        board[7][0] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        board[7][1] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        board[7][2] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        board[7][3] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        board[7][4] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        board[7][5] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        board[7][6] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        board[7][7] = PieceRegistry.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
     }
 }
@@ -1,21 +1,56 @@
 package chess;
 
 import java.util.Collection;
-import java.util.HashSet;
 
 public class MyGame implements ChessGame {
 
     private TeamColor teamTurn;
     private ChessBoard chessBoard;
 
+    // FEN move counters: moves since the last capture or pawn move, and the number of the current move
+    // (starting at 1 and going up after each Black move). They are only carried by FEN, not by JSON.
+    private transient int halfmoveClock = 0;
+    private transient int fullmoveNumber = 1;
+
+    // Scratch space for move generation. Moves are generated as packed ints (see Move) into this
+    // reusable buffer and only turned into ChessMove objects when validMoves hands them back,
+    // so checking a move doesn't churn through hundreds of short-lived objects.
+    private final transient BitBoard analysisBoard = new BitBoard();
+    private final transient MoveList candidateMoves = new MoveList();
+
     public MyGame() {
         this.initialize();
     }
 
+    // Lets each game pick its board implementation, e.g. new MyGame(new BitBoard())
+    // The given board is reset to the standard starting position.
+    // This is the only place the choice is made: the DAOs create games with new MyGame(), and PackedGame
+    // and Fen load them onto a MyBoard, so every game the server plays is on a MyBoard. Games loaded from
+    // JSON keep the board they were saved with.
+    public MyGame(ChessBoard board) {
+        teamTurn = TeamColor.WHITE;
+        chessBoard = board;
+        chessBoard.resetBoard();
+    }
+
+    // Rebuilds a game from a saved position, the board is used as it is rather than reset.
+    // A missing board or turn falls back to what a new game would have.
+    public MyGame(ChessBoard board, TeamColor teamTurn) {
+        if (board == null) {
+            this.initialize();
+        } else {
+            chessBoard = board;
+        }
+        this.teamTurn = (teamTurn == null) ? TeamColor.WHITE : teamTurn;
+    }
+
     @Override
     public void initialize() {
         teamTurn = TeamColor.WHITE;    // initialize to white because white team starts the game
-        chessBoard = new MyBoard();
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        // keep using whichever board implementation this game was created with
+        chessBoard = (chessBoard instanceof BitBoard) ? new BitBoard() : new MyBoard();
         chessBoard.resetBoard();
     }
 
@@ -41,30 +76,10 @@ public class MyGame implements ChessGame {
         if (myPiece == null) {
             return null;
         }
-        // create collection of potential moves. Need to verify that each don't endanger the King
-        Collection<ChessMove> potentialMoves = myPiece.pieceMoves(chessBoard,startPosition);
-
-        // Find the position of the king of the current team
-        TeamColor currentTeam = myPiece.getTeamColor();
-
-        // Create a new list to put all the valid moves into
-        Collection<ChessMove> validMoves = new HashSet<>();
-
-        for (ChessMove move : potentialMoves) {
-            // Temporarily make the move
-            ChessPiece originalPiece = chessBoard.getPiece(move.getEndPosition());
-            chessBoard.addPiece(move.getEndPosition(), myPiece);
-            chessBoard.addPiece(move.getStartPosition(), null);
-
-            // Check if the king is still in check after the move
-            if (!isInCheck(currentTeam)) {
-                validMoves.add(move); // Move is valid if it doesn't leave the king in check
-            }
-            // Undo the move
-            chessBoard.addPiece(move.getStartPosition(), myPiece);
-            chessBoard.addPiece(move.getEndPosition(), originalPiece);
-        }
-        return validMoves;
+        // the legal generator already leaves out moves that would endanger the King
+        candidateMoves.clear();
+        LegalMoveGenerator.generateLegalMoves(analysisView(), BitBoard.square(startPosition), candidateMoves);
+        return candidateMoves.toChessMoves();
     }
 
     // Receives a given move and executes it, provided it is a legal move.
@@ -76,182 +91,89 @@ public class MyGame implements ChessGame {
     public void makeMove(ChessMove move) throws InvalidMoveException {
         // get the piece that will make the move
         ChessPiece myPiece = chessBoard.getPiece(move.getStartPosition());
-        ChessPiece promoPiece = new MyPawn(myPiece.getTeamColor());
-
-        // get the promotion piece for this move
-        ChessPiece.PieceType promotion = move.getPromotionPiece();
-        if (promotion == ChessPiece.PieceType.QUEEN) {
-            promoPiece = new MyQueen(myPiece.getTeamColor());
-        }
-        if (promotion == ChessPiece.PieceType.ROOK) {
-            promoPiece = new MyRook(myPiece.getTeamColor());
-        }
-        if (promotion == ChessPiece.PieceType.BISHOP) {
-            promoPiece = new MyBishop(myPiece.getTeamColor());
-        }
-        if (promotion == ChessPiece.PieceType.KNIGHT) {
-            promoPiece = new MyKnight(myPiece.getTeamColor());
-        }
-
+        if (myPiece == null) { throw new InvalidMoveException("No piece at start position"); }
         if (myPiece.getTeamColor() != teamTurn) { throw new InvalidMoveException("Wrong turn"); }
 
-        // Calculate valid moves for the piece
-        Collection<ChessMove> validMoves = myPiece.pieceMoves(chessBoard, move.getStartPosition());
-
-        // Check if the given move is in the list of valid moves
-        if (!validMoves.contains(move)) {
-            throw new InvalidMoveException("Invalid move");
+        // Check if the given move is one of the legal moves the piece can make
+        BitBoard board = analysisView();
+        int requestedMove = Move.encode(move);
+        candidateMoves.clear();
+        LegalMoveGenerator.generateLegalMoves(board, Move.from(requestedMove), candidateMoves);
+        int index = candidateMoves.indexOf(requestedMove);
+        if (index < 0) {
+            // tell apart a move the piece can't make at all from one that would leave the king in check
+            candidateMoves.clear();
+            MoveGenerator.generateMoves(board, Move.from(requestedMove), candidateMoves);
+            throw new InvalidMoveException(candidateMoves.indexOf(requestedMove) < 0 ? "Invalid move" : "Move puts king in check");
         }
 
-        // Make the move on the chessboard
-        chessBoard.addPiece(move.getEndPosition(), myPiece);
-        chessBoard.addPiece(move.getStartPosition(), null);
-
-        // Check if the move puts the moving team's king in check
-        if (isInCheck(teamTurn)) {
-            // Undo the move
-            chessBoard.addPiece(move.getStartPosition(), myPiece);
-            chessBoard.addPiece(move.getEndPosition(), null);
-            throw new InvalidMoveException("Move puts king in check");
-        }
+        advanceMoveCounters(myPiece.getPieceType() == ChessPiece.PieceType.PAWN || Move.isCapture(candidateMoves.get(index)));
 
-        // Check for pawn promotion
-        if (myPiece.getPieceType() == ChessPiece.PieceType.PAWN && isPromotionRow(move.getEndPosition())) {
-            // Replace the promoted pawn with the selected promotion piece
-            chessBoard.addPiece(move.getEndPosition(), promoPiece);
+        // Make the move on the chessboard, replacing a promoted pawn with the selected promotion piece
+        if (chessBoard instanceof BitBoard bitBoard) {
+            bitBoard.makeMove(candidateMoves.get(index));
+            bitBoard.forgetMoves();     // a game's moves are never taken back
+            teamTurn = opponent(teamTurn);
+            return;
         }
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        ChessPiece movedPiece = (promotion == null) ? myPiece : PieceRegistry.of(teamTurn, promotion);
+        chessBoard.addPiece(move.getEndPosition(), movedPiece);
+        chessBoard.addPiece(move.getStartPosition(), null);
 
         // Switch the team's turn
-        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-    }
-
-    // helper function for makeMove
-    // Check if the given position is in the promotion row for the current team
-    private boolean isPromotionRow(ChessPosition position) {
-        // Assuming white pawns promote on row 8 and black pawns promote on row 1
-        return (teamTurn == TeamColor.WHITE && position.getRow() == 8)
-                || (teamTurn == TeamColor.BLACK && position.getRow() == 1);
-    }
-
-
-    // Helper function to find the position of the king of the specified team
-    private ChessPosition findKingPosition(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new MyPosition(row, col);
-                ChessPiece piece = chessBoard.getPiece(currentPosition);
-
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING &&
-                        piece.getTeamColor() == teamColor) {
-                    return currentPosition; // Found the king
-                }
-            }
-        }
-        return null; // King not found
+        teamTurn = opponent(teamTurn);
     }
 
     // Determines if the given team is in check
     // Returns true if the specified team’s King could be captured by an opposing piece.
     @Override
     public boolean isInCheck(TeamColor teamColor) {
-        // Find the position of the king of the specified team
-        ChessPosition kingPosition = findKingPosition(teamColor);
-
-        // Iterate through the pieces of the opposing team
-        TeamColor opposingTeam = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new MyPosition(row, col);
-                ChessPiece piece = chessBoard.getPiece(currentPosition);
-
-                if (piece != null && piece.getTeamColor() == opposingTeam) {
-                    // Calculate valid moves for the opposing piece
-                    Collection<ChessMove> validMoves = piece.pieceMoves(chessBoard, currentPosition);
-
-                    // Check if any valid move of the opposing piece captures the king
-                    for (ChessMove move : validMoves) {
-                        if (move.getEndPosition().equals(kingPosition)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false; // King is not in check
+        return kingInCheck(analysisView(), teamColor);
     }
 
     // Determines if the given team is in checkmate
     // Returns true if the given team has no way to protect their king from being captured.
     @Override
     public boolean isInCheckmate(TeamColor teamColor) {
-        // first verify that the team is in check before seeing if it's checkmate
-        if (!isInCheck(teamColor)) { return false; }
-
-        // Find the position of the king of the specified team
-        ChessPosition kingPosition = findKingPosition(teamColor);
-
-        if (kingPosition == null) {
-            // Handle the case where the king is not found (possibly indicating an error)
-            return false;
-        }
-        // Iterate through all the pieces of the team that is in check
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new MyPosition(row, col);
-                ChessPiece piece = chessBoard.getPiece(currentPosition);
-
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    // Calculate valid moves for the team's piece
-                    Collection<ChessMove> validMoves = piece.pieceMoves(chessBoard, currentPosition);
-
-                    // Check if any valid move of the team's piece can get the king out of check
-                    for (ChessMove move : validMoves) {
-                        // Temporarily make the move
-                        ChessPiece originalPiece = chessBoard.getPiece(move.getEndPosition());
-                        chessBoard.addPiece(move.getEndPosition(), piece);
-                        chessBoard.addPiece(move.getStartPosition(), null);
-
-                        // Check if the king is still in check after the move
-                        boolean stillInCheck = isInCheck(teamColor);
-
-                        // Undo the move
-                        chessBoard.addPiece(move.getStartPosition(), piece);
-                        chessBoard.addPiece(move.getEndPosition(), originalPiece);
-
-                        if (!stillInCheck) {
-                            return false; // There's at least one move that gets the king out of check
-                        }
-                    }
-                }
-            }
-        }
-        return true; // No legal moves can get the king out of check, it's checkmate
+        BitBoard board = analysisView();
+        return !hasLegalMove(board, teamColor) && kingInCheck(board, teamColor);
     }
 
 
-    // Determines if the given team is in stalemate, which here is defined as having no valid moves
-    // Returns true if the given team has no legal moves, and it is currently that team’s turn.
+    // Determines if the given team is in stalemate
+    // Returns true if the given team has no legal moves, is not in check, and it is currently that team’s turn.
     @Override
     public boolean isInStalemate(TeamColor teamColor) {
         if (teamColor != teamTurn) { return false; }
-        // iterate through every piece of the given team and check if there's any valid moves
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new MyPosition(row, col);
-                ChessPiece piece = chessBoard.getPiece(currentPosition);
-
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    // Calculate valid moves for the team's piece
-                    Collection<ChessMove> validMoves = validMoves(currentPosition);
-
-                    // If there are any valid moves for the team, it's not in stalemate
-                    if (!validMoves.isEmpty()) {
-                        return false; // There's at least one valid move
-                    }
-                }
-            }
-        }
-        return true;
+        BitBoard board = analysisView();
+        return !hasLegalMove(board, teamColor) && !kingInCheck(board, teamColor);
+    }
+
+    // A 64-bit Zobrist key identifying the current position, the pieces and whose turn it is.
+    // Equal positions always have equal keys. BitBoard and MyBoard keep their key up to date as moves are
+    // made, other boards have theirs computed when asked.
+    public long zobristKey() {
+        return Zobrist.keyOf(chessBoard, teamTurn);
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    // How many half moves have been played, 0 at the start and 1 once white has moved
+    public int getPly() {
+        return (fullmoveNumber - 1) * 2 + ((teamTurn == TeamColor.BLACK) ? 1 : 0);
+    }
+
+    // Used when a game is loaded from FEN
+    public void setMoveCounters(int halfmoveClock, int fullmoveNumber) {
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
     }
 
     // Sets this game's chessboard with a given board
@@ -265,4 +187,52 @@ public class MyGame implements ChessGame {
     public ChessBoard getBoard() {
         return chessBoard;
     }
+
+
+    /** Helpers for move validation, all of these work on packed moves and bitboards */
+
+    // The board that move generation runs on: the game's own board when it is a BitBoard,
+    // otherwise the scratch BitBoard refreshed from whatever board this game is using
+    private BitBoard analysisView() {
+        if (chessBoard instanceof BitBoard bitBoard) {
+            return bitBoard;
+        }
+        analysisBoard.copyFrom(chessBoard);
+        return analysisBoard;
+    }
+
+    // Checks if the team has at least one legal move, a piece at a time so it can stop at the first one found
+    private boolean hasLegalMove(BitBoard board, TeamColor teamColor) {
+        long pieces = board.occupancy(teamColor);
+        while (pieces != 0) {
+            candidateMoves.clear();
+            LegalMoveGenerator.generateLegalMoves(board, Long.numberOfTrailingZeros(pieces), candidateMoves);
+            if (!candidateMoves.isEmpty()) {
+                return true;
+            }
+            pieces &= pieces - 1;
+        }
+        return false;
+    }
+
+    // Checks if any opposing piece attacks the king, looking outward from the cached king square
+    private boolean kingInCheck(BitBoard board, TeamColor teamColor) {
+        int kingSquare = board.kingSquare(teamColor);
+        if (kingSquare < 0) {
+            return false;   // no king on the board, so it can't be in check
+        }
+        return board.isSquareAttacked(kingSquare, opponent(teamColor));
+    }
+
+    // Called before the move is played, while teamTurn is still the side making it
+    private void advanceMoveCounters(boolean resetsClock) {
+        halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+    }
+
+    private static TeamColor opponent(TeamColor teamColor) {
+        return (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    }
 }
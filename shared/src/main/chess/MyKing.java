@@ -51,7 +51,7 @@ public class MyKing implements ChessPiece {
 
             // Check if the new position is within the bounds of the chessboard
             if (newRow >= 1 && newRow <= 8 && newCol >= 1 && newCol <= 8) {
-                ChessPosition newPosition = new MyPosition(newRow, newCol);
+                ChessPosition newPosition = MyPosition.of(newRow, newCol);
                 ChessPiece targetPiece = board.getPiece(newPosition);
 
                 // Check if the target position is either empty or contains an opponent's piece
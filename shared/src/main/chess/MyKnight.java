@@ -51,7 +51,7 @@ public class MyKnight implements ChessPiece {
 
             // Check if the new position is within the bounds of the chessboard
             if (newRow >= 1 && newRow <= 8 && newCol >= 1 && newCol <= 8) {
-                ChessPosition newPosition = new MyPosition(newRow, newCol);
+                ChessPosition newPosition = MyPosition.of(newRow, newCol);
                 ChessPiece targetPiece = board.getPiece(newPosition);
 
                 // If the target position is empty or contains an opponent's piece, it's a valid move
@@ -48,7 +48,7 @@ public class MyPawn implements ChessPiece {
         int newRow = myRow + forwardOffset;
         int newCol = myCol;
         if (newRow >= 1 && newRow <= 8) {
-            ChessPosition newPosition = new MyPosition(newRow, newCol);
+            ChessPosition newPosition = MyPosition.of(newRow, newCol);
             ChessPiece targetPiece = board.getPiece(newPosition);
 
             // If the target position is empty, it's a valid move
@@ -69,7 +69,7 @@ public class MyPawn implements ChessPiece {
                 if ((teamColor == ChessGame.TeamColor.WHITE && myRow == 2) ||
                         (teamColor == ChessGame.TeamColor.BLACK && myRow == 7)) {
                     newRow = myRow + 2 * forwardOffset;
-                    newPosition = new MyPosition(newRow, newCol);
+                    newPosition = MyPosition.of(newRow, newCol);
                     targetPiece = board.getPiece(newPosition);
 
                     // If the two-square forward position is empty, it's a valid move
@@ -86,7 +86,7 @@ public class MyPawn implements ChessPiece {
             if (captureCol >= 1 && captureCol <= 8) {
                 newRow = myRow + captureOffset;
                 newCol = captureCol;
-                ChessPosition newPosition = new MyPosition(newRow, newCol);
+                ChessPosition newPosition = MyPosition.of(newRow, newCol);
                 ChessPiece targetPiece = board.getPiece(newPosition);
 
                 // If the target position contains an opponent's piece, it's a valid capture move
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 public class MyPosition implements ChessPosition {
 
     // This represents a location on the chessboard.
@@ -9,8 +7,27 @@ public class MyPosition implements ChessPosition {
     // (1,1) corresponds to the bottom left corner (which in chess notation is denoted a1).
     // (8,8) corresponds to the top right corner (h8 in chess notation).
 
-    private int row;
-    private int column;
+    private final int row;
+    private final int column;
+
+    // Positions never change once created, so the 64 squares are built once and shared through of()
+    private static final MyPosition[] POSITIONS = new MyPosition[64];
+
+    static {
+        for (int row = 1; row <= 8; row++) {
+            for (int column = 1; column <= 8; column++) {
+                POSITIONS[(row - 1) * 8 + (column - 1)] = new MyPosition(row, column);
+            }
+        }
+    }
+
+    // Returns the shared position for the square, prefer this over the constructor
+    public static MyPosition of(int row, int column) {
+        if (row < 1 || row > 8 || column < 1 || column > 8) {
+            throw new IllegalArgumentException("Invalid row or column value for a chess position");
+        }
+        return POSITIONS[(row - 1) * 8 + (column - 1)];
+    }
 
     public MyPosition(int row,int column) {
         // Validate that row and column values are within the chessboard bounds (1 to 8)
@@ -44,6 +61,6 @@ public class MyPosition implements ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, column);
+        return 31 * (31 + row) + column;    // same value as Objects.hash(row, column) without the varargs array
     }
 }
@@ -1,8 +1,6 @@
 package chess;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 
 public class MyRook implements ChessPiece {
 
@@ -36,42 +34,11 @@ public class MyRook implements ChessPiece {
     // as well as a couple special moves that can be implemented for extra credit.
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Set<ChessMove> validMoves = new HashSet<>();
-        int myRow = myPosition.getRow();
-        int myCol = myPosition.getColumn();
+        // The squares a rook attacks come straight out of the precomputed sliding attack tables,
+        // which already stop each ray at the first piece in the way (see SlidingAttacks).
+        long attacks = SlidingAttacks.rookAttacks(BitBoard.square(myPosition), BitBoard.occupancyOf(board));
 
-        // Define the possible move offsets for a rook (horizontal and vertical directions)
-        int[] rowOffsets = {-1, 1, 0, 0};
-        int[] colOffsets = {0, 0, -1, 1};
-
-        // Check each possible move direction
-        for (int i = 0; i < 4; i++) {
-            for (int step = 1; step <= 7; step++) {
-                int newRow = myRow + step * rowOffsets[i];
-                int newCol = myCol + step * colOffsets[i];
-
-                // Check if the new position is within the bounds of the chessboard
-                if (newRow >= 1 && newRow <= 8 && newCol >= 1 && newCol <= 8) {
-                    ChessPosition newPosition = new MyPosition(newRow, newCol);
-                    ChessPiece targetPiece = board.getPiece(newPosition);
-
-                    // If the target position is empty, it's a valid move
-                    if (targetPiece == null) {
-                        validMoves.add(new MyMove(myPosition, newPosition, null));
-                    } else {
-                        // If the target position contains an opponent's piece, it's a valid capture move
-                        if (targetPiece.getTeamColor() != teamColor) {
-                            validMoves.add(new MyMove(myPosition, newPosition, null));
-                        }
-                        break; // Stop searching in this direction if a piece is encountered
-                    }
-                } else {
-                    // Stop searching in this direction if it's out of bounds
-                    break;
-                }
-            }
-        }
-
-        return validMoves;
+        // Capturing an opponent's piece is fine, landing on one of our own pieces is not
+        return BitBoard.movesTo(myPosition, BitBoard.withoutTeam(board, attacks, teamColor));
     }
 }
@@ -0,0 +1,132 @@
+package chess;
+
+import java.util.Arrays;
+
+public final class PackedGame {
+
+    // A game packed into 39 bytes for storage: a 7 byte header followed by the board at 4 bits per square.
+    //     byte 0      format version, currently 1
+    //     byte 1      bit 0 set when Black is to move, bits 4-7 castling rights KQkq (always 0 here)
+    //     byte 2      en passant square, 0xFF for none (always none here)
+    //     bytes 3-4   halfmove clock, unsigned big endian
+    //     bytes 5-6   fullmove number, unsigned big endian
+    //     bytes 7-38  the 64 squares in BitBoard square order, two to a byte with the lower square in
+    //                 the low nibble. 0 is an empty square, otherwise BitBoard.pieceIndex + 1.
+    //
+    // Encoding writes straight into the caller's array and decoding reads straight out of it, so a game can
+    // be saved and restored without creating anything but the board it is restored onto.
+
+    public static final int SIZE = 39;
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 7;
+    private static final int NO_SQUARE = 0xFF;
+    private static final int MAX_COUNTER = 0xFFFF;
+
+    private PackedGame() {}
+
+
+    /** Encoding */
+
+    public static byte[] encode(ChessGame game) {
+        byte[] packed = new byte[SIZE];
+        encode(game, packed, 0);
+        return packed;
+    }
+
+    // Writes SIZE bytes into target starting at offset
+    public static void encode(ChessGame game, byte[] target, int offset) {
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (game instanceof MyGame myGame) {
+            halfmoveClock = myGame.getHalfmoveClock();
+            fullmoveNumber = myGame.getFullmoveNumber();
+        }
+        target[offset] = (byte) VERSION;
+        target[offset + 1] = (byte) (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0);
+        target[offset + 2] = (byte) NO_SQUARE;
+        writeCounter(target, offset + 3, halfmoveClock);
+        writeCounter(target, offset + 5, fullmoveNumber);
+
+        int boardStart = offset + HEADER_SIZE;
+        Arrays.fill(target, boardStart, boardStart + 32, (byte) 0);
+        ChessBoard board = game.getBoard();
+        if (board instanceof BitBoard bitBoard) {
+            // walk the 12 bitboards rather than the 64 squares
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                    int code = BitBoard.pieceIndex(color, type) + 1;
+                    long pieces = bitBoard.pieces(color, type);
+                    while (pieces != 0) {
+                        setNibble(target, boardStart, Long.numberOfTrailingZeros(pieces), code);
+                        pieces &= pieces - 1;
+                    }
+                }
+            }
+        } else {
+            ChessPiece[][] squares = board.getBoard();
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    ChessPiece piece = squares[row][col];
+                    if (piece != null) {
+                        setNibble(target, boardStart, row * 8 + col, BitBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType()) + 1);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /** Decoding */
+
+    // A new game on a MyBoard
+    public static MyGame decode(byte[] packed) {
+        return decode(packed, 0, new MyBoard());
+    }
+
+    // Reads SIZE bytes from source starting at offset onto the given board, which is cleared first
+    public static MyGame decode(byte[] source, int offset, ChessBoard board) {
+        if (source.length - offset < SIZE) {
+            throw new IllegalArgumentException("A packed game is " + SIZE + " bytes, got " + (source.length - offset));
+        }
+        if (source[offset] != VERSION) {
+            throw new IllegalArgumentException("Unknown packed game version " + source[offset]);
+        }
+        int boardStart = offset + HEADER_SIZE;
+        for (int square = 0; square < 64; square++) {
+            int code = (source[boardStart + (square >> 1)] >> ((square & 1) << 2)) & 0xF;
+            if (code > BitBoard.PIECE_COUNT) {
+                throw new IllegalArgumentException("Bad piece code " + code + " on square " + square);
+            }
+            board.addPiece(BitBoard.position(square), (code == 0) ? null : PieceRegistry.byIndex(code - 1));
+        }
+        ChessGame.TeamColor teamTurn = ((source[offset + 1] & 1) != 0) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        MyGame game = new MyGame(board, teamTurn);
+        game.setMoveCounters(readCounter(source, offset + 3), Math.max(1, readCounter(source, offset + 5)));
+        return game;
+    }
+
+    // A separate copy of the game on the same kind of board, for changing or saving it while the original
+    // carries on being played
+    public static MyGame copy(ChessGame game) {
+        ChessBoard board = (game.getBoard() instanceof BitBoard) ? new BitBoard() : new MyBoard();
+        return decode(encode(game), 0, board);
+    }
+
+
+    /** Helpers */
+
+    private static void setNibble(byte[] target, int boardStart, int square, int code) {
+        target[boardStart + (square >> 1)] |= (byte) (code << ((square & 1) << 2));
+    }
+
+    private static void writeCounter(byte[] target, int index, int value) {
+        int clamped = Math.min(Math.max(value, 0), MAX_COUNTER);
+        target[index] = (byte) (clamped >>> 8);
+        target[index + 1] = (byte) clamped;
+    }
+
+    private static int readCounter(byte[] source, int index) {
+        return ((source[index] & 0xFF) << 8) | (source[index + 1] & 0xFF);
+    }
+}
@@ -0,0 +1,137 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public final class ParallelPerft {
+
+    // Runs perft across the cores of a ForkJoinPool. The tree is split into one task per move for the first
+    // splitPlies plies (1 splits only at the root), and below that each task walks its subtree alone with
+    // make/unmake. Every task works on its own copy of the board, so threads never share a board.
+    //
+    // An optional PerftCache can be shared by all the threads. Positions are looked up by their Zobrist key,
+    // so a key collision could in theory give a wrong count; leave the cache out when the count itself
+    // is what is being checked.
+
+    // subtrees this shallow finish faster than it takes to hand them to another thread
+    private static final int MIN_SPLIT_DEPTH = 3;
+    // the cache isn't worth probing for the last ply, which is only a move count
+    private static final int MIN_CACHE_DEPTH = 2;
+
+    private ParallelPerft() {}
+
+    // counts the leaf nodes below the position using the given number of threads, cache may be null
+    public static long perft(BitBoard board, ChessGame.TeamColor turn, int depth, int parallelism, int splitPlies, PerftCache cache) {
+        if (depth <= 0) {
+            return 1;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new PerftTask(BitBoard.copyOf(board), turn, depth, splitPlies, cache));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // A subtree to count. Tasks that still have plies left to split fork one child task per move,
+    // everything else is counted on the current thread.
+    // ForkJoinTask is Serializable, but these tasks only ever live inside one pool run and are never serialized.
+    @SuppressWarnings("serial")
+    private static final class PerftTask extends RecursiveTask<Long> {
+        private final BitBoard board;
+        private final ChessGame.TeamColor turn;
+        private final int depth;
+        private final int splitPlies;
+        private final PerftCache cache;
+
+        PerftTask(BitBoard board, ChessGame.TeamColor turn, int depth, int splitPlies, PerftCache cache) {
+            this.board = board;
+            this.turn = turn;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+            this.cache = cache;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitPlies <= 0 || depth < MIN_SPLIT_DEPTH) {
+                return perft(board, turn, depth, newMoveLists(depth), 0, cache);
+            }
+            long key = 0;
+            if (cache != null) {
+                key = positionKey(board, turn);
+                long cached = cache.probe(key, depth);
+                if (cached >= 0) {
+                    return cached;
+                }
+            }
+
+            MoveList moves = new MoveList();
+            LegalMoveGenerator.generateLegalMoves(board, turn, moves);
+            List<PerftTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                BitBoard childBoard = BitBoard.copyOf(board);
+                childBoard.makeMove(moves.get(i));
+                children.add(new PerftTask(childBoard, opponent(turn), depth - 1, splitPlies - 1, cache));
+            }
+            long nodes = 0;
+            for (PerftTask child : invokeAll(children)) {
+                nodes += child.join();
+            }
+            if (cache != null) {
+                cache.store(key, depth, nodes);
+            }
+            return nodes;
+        }
+    }
+
+    // the same walk as Perft, with cache lookups for the deeper plies
+    private static long perft(BitBoard board, ChessGame.TeamColor turn, int depth, MoveList[] moveLists, int ply, PerftCache cache) {
+        long key = 0;
+        boolean useCache = cache != null && depth >= MIN_CACHE_DEPTH;
+        if (useCache) {
+            key = positionKey(board, turn);
+            long cached = cache.probe(key, depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        LegalMoveGenerator.generateLegalMoves(board, turn, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        ChessGame.TeamColor nextTurn = opponent(turn);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += perft(board, nextTurn, depth - 1, moveLists, ply + 1, cache);
+            board.unmakeMove();
+        }
+        if (useCache) {
+            cache.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    // the board keeps its Zobrist key up to date as moves are made, so this is just two loads and a xor
+    private static long positionKey(BitBoard board, ChessGame.TeamColor turn) {
+        return board.zobristKey() ^ Zobrist.sideToMoveKey(turn);
+    }
+
+    private static MoveList[] newMoveLists(int depth) {
+        MoveList[] moveLists = new MoveList[depth];
+        for (int ply = 0; ply < depth; ply++) {
+            moveLists[ply] = new MoveList();
+        }
+        return moveLists;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,209 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public final class Perft {
+
+    // Perft ("performance test") counts the leaf nodes of the move tree to a fixed depth. The counts for
+    // well known positions have been published, so matching them is a strong check that move generation
+    // is right, and the time it takes is a direct measure of move generation speed.
+    //
+    // There are two ways to walk the tree:
+    //   - through the public ChessGame API (validMoves and makeMove), which works with any ChessGame and
+    //     any ChessBoard, so different board implementations can be compared on equal terms
+    //   - straight on a BitBoard with the legal move generator and makeMove/unmakeMove, which is as fast
+    //     as the chess package can go
+    // Divide reports the count below each root move separately, which narrows a wrong total down to the
+    // move whose subtree is off.
+    //
+    // This game doesn't implement castling or en passant, so the reference positions below are ones where
+    // neither can happen within the listed depths.
+
+    public static final List<ReferencePosition> REFERENCE_POSITIONS = List.of(
+            new ReferencePosition("Start position",
+                    "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+                    20, 400, 8902, 197281),
+            new ReferencePosition("Rook endgame",
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191),
+            new ReferencePosition("Promotions",
+                    "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+                    24, 496, 9483, 182838, 3605103),
+            new ReferencePosition("Castled middlegame",
+                    "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594)
+    );
+
+    // a position in FEN along with its published node counts, expectedNodes[0] being depth 1
+    public static final class ReferencePosition {
+        public final String name;
+        public final String fen;
+        private final long[] expectedNodes;
+
+        public ReferencePosition(String name, String fen, long... expectedNodes) {
+            this.name = name;
+            this.fen = fen;
+            this.expectedNodes = expectedNodes;
+        }
+
+        // the deepest depth with a published count
+        public int maxDepth() {
+            return expectedNodes.length;
+        }
+
+        public long expectedNodes(int depth) {
+            return expectedNodes[depth - 1];
+        }
+    }
+
+    private Perft() {}
+
+
+    /** Walking a BitBoard directly */
+
+    // counts the leaf nodes below the position, the board is left as it was found
+    public static long perft(BitBoard board, ChessGame.TeamColor turn, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(board, turn, depth, newMoveLists(depth), 0);
+    }
+
+    // the node count below each root move, in generation order
+    public static Map<String, Long> divide(BitBoard board, ChessGame.TeamColor turn, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+        MoveList[] moveLists = newMoveLists(depth);
+        MoveList moves = moveLists[0];
+        moves.clear();
+        LegalMoveGenerator.generateLegalMoves(board, turn, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            long nodes = (depth == 1) ? 1 : perft(board, opponent(turn), depth - 1, moveLists, 1);
+            board.unmakeMove();
+            counts.put(Move.toText(move), nodes);
+        }
+        return counts;
+    }
+
+    // Each ply gets its own move buffer so nothing is allocated while walking the tree.
+    // At the last ply the moves only need counting, not making.
+    private static long perft(BitBoard board, ChessGame.TeamColor turn, int depth, MoveList[] moveLists, int ply) {
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        LegalMoveGenerator.generateLegalMoves(board, turn, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        ChessGame.TeamColor nextTurn = opponent(turn);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += perft(board, nextTurn, depth - 1, moveLists, ply + 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private static MoveList[] newMoveLists(int depth) {
+        MoveList[] moveLists = new MoveList[depth];
+        for (int ply = 0; ply < depth; ply++) {
+            moveLists[ply] = new MoveList();
+        }
+        return moveLists;
+    }
+
+
+    /** Walking any ChessGame through the public API */
+
+    // Counts the leaf nodes below the game's current position. Child positions are set up on boards
+    // from boardFactory, one reused game per ply, so the game passed in is never modified.
+    public static long perft(ChessGame game, int depth, Supplier<ChessBoard> boardFactory) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(game, depth, newGames(depth, boardFactory), 0);
+    }
+
+    // the node count below each root move, keyed by the move in coordinate notation
+    public static Map<String, Long> divide(ChessGame game, int depth, Supplier<ChessBoard> boardFactory) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+        ChessGame[] games = newGames(depth, boardFactory);
+        for (ChessMove move : legalMoves(game)) {
+            ChessGame child = games[0];
+            playFrom(game, child, move);
+            long nodes = (depth == 1) ? 1 : perft(child, depth - 1, games, 1);
+            counts.put(Move.toText(Move.encode(move)), nodes);
+        }
+        return counts;
+    }
+
+    private static long perft(ChessGame game, int depth, ChessGame[] games, int ply) {
+        List<ChessMove> moves = legalMoves(game);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        ChessGame child = games[ply];
+        for (ChessMove move : moves) {
+            playFrom(game, child, move);
+            nodes += perft(child, depth - 1, games, ply + 1);
+        }
+        return nodes;
+    }
+
+    // every legal move for the team whose turn it is
+    private static List<ChessMove> legalMoves(ChessGame game) {
+        List<ChessMove> moves = new ArrayList<>();
+        ChessPiece[][] squares = game.getBoard().getBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = squares[row - 1][col - 1];
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    moves.addAll(game.validMoves(MyPosition.of(row, col)));
+                }
+            }
+        }
+        return moves;
+    }
+
+    // copies the parent's position into the child game and plays the move there
+    private static void playFrom(ChessGame parent, ChessGame child, ChessMove move) {
+        ChessPiece[][] squares = parent.getBoard().getBoard();
+        ChessBoard board = child.getBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                board.addPiece(MyPosition.of(row, col), squares[row - 1][col - 1]);
+            }
+        }
+        child.setTeamTurn(parent.getTeamTurn());
+        try {
+            child.makeMove(move);
+        } catch (InvalidMoveException e) {
+            // validMoves just said this move was legal, so the game disagrees with itself
+            throw new IllegalStateException("validMoves returned a move that makeMove rejected: " + Move.toText(Move.encode(move)), e);
+        }
+    }
+
+    private static ChessGame[] newGames(int depth, Supplier<ChessBoard> boardFactory) {
+        ChessGame[] games = new ChessGame[depth];
+        for (int ply = 0; ply < depth; ply++) {
+            games[ply] = new MyGame(boardFactory.get());
+        }
+        return games;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,45 @@
+package chess;
+
+public final class PerftCache {
+
+    // A transposition cache for perft: remembers how many nodes were found below a position at a given depth,
+    // so a position reached by a different move order doesn't have to be walked again.
+    //
+    // Many threads read and write the table at once without locking. Each slot stores the key xor-ed with
+    // its data next to the data itself. A slot that another thread was halfway through writing won't
+    // xor back to the key being looked up, so a torn entry reads as a miss instead of a wrong count.
+    // Slots are simply overwritten when two positions land on the same one.
+
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    private final long[] keys;
+    private final long[] data;      // node count in the high bits, depth in the low DEPTH_BITS
+    private final int indexMask;
+
+    // sizeMegabytes is rounded down to a power of two number of slots, 16 bytes each
+    public PerftCache(int sizeMegabytes) {
+        long slots = Long.highestOneBit(Math.max(1L, (long) sizeMegabytes * 1024 * 1024 / 16));
+        int size = (int) Math.min(slots, 1 << 30);
+        keys = new long[size];
+        data = new long[size];
+        indexMask = size - 1;
+    }
+
+    // the node count stored for the position at this depth, or -1 if there isn't one
+    public long probe(long key, int depth) {
+        int index = (int) key & indexMask;
+        long entry = data[index];
+        if ((keys[index] ^ entry) != key || (entry & DEPTH_MASK) != depth) {
+            return -1;
+        }
+        return entry >>> DEPTH_BITS;
+    }
+
+    public void store(long key, int depth, long nodes) {
+        int index = (int) key & indexMask;
+        long entry = (nodes << DEPTH_BITS) | depth;
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+}
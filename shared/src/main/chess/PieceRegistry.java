@@ -0,0 +1,37 @@
+package chess;
+
+public final class PieceRegistry {
+
+    // One shared instance of each of the 12 pieces (6 types in 2 colors). The piece classes only hold a final
+    // color and type, so one instance can stand on any number of squares on any number of boards at once.
+    // Setting up a board, promoting a pawn or loading a game from JSON all hand out these instances
+    // instead of creating new ones.
+    // They are stored in BitBoard.pieceIndex order: white king, queen, bishop, knight, rook, pawn, then black.
+
+    private static final ChessPiece[] PIECES = {
+            new MyKing(ChessGame.TeamColor.WHITE),
+            new MyQueen(ChessGame.TeamColor.WHITE),
+            new MyBishop(ChessGame.TeamColor.WHITE),
+            new MyKnight(ChessGame.TeamColor.WHITE),
+            new MyRook(ChessGame.TeamColor.WHITE),
+            new MyPawn(ChessGame.TeamColor.WHITE),
+            new MyKing(ChessGame.TeamColor.BLACK),
+            new MyQueen(ChessGame.TeamColor.BLACK),
+            new MyBishop(ChessGame.TeamColor.BLACK),
+            new MyKnight(ChessGame.TeamColor.BLACK),
+            new MyRook(ChessGame.TeamColor.BLACK),
+            new MyPawn(ChessGame.TeamColor.BLACK)
+    };
+
+    private PieceRegistry() {}
+
+    // the shared piece of the given color and type
+    public static ChessPiece of(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return PIECES[(color == ChessGame.TeamColor.WHITE ? 0 : 6) + type.ordinal()];
+    }
+
+    // the shared piece for a BitBoard piece index
+    static ChessPiece byIndex(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+}
@@ -0,0 +1,206 @@
+package chess;
+
+public final class SlidingAttacks {
+
+    // Precomputed attack tables for the sliding pieces (rook, bishop and queen) using magic bitboards.
+    // For every square we keep a mask of the squares that can block the slider. Multiplying the blockers
+    // on the board (occupancy & mask) by that square's magic number and shifting leaves a small index that
+    // is unique for every blocker pattern that matters, so the attacked squares become one array lookup.
+    //
+    // The magic numbers below were found ahead of time with a random search (see findMagic), so loading
+    // the class only has to fill in the tables. If a magic ever stops producing a clean table the class
+    // falls back to searching for a new one, so a bad constant can cost startup time but never correctness.
+    // Squares use the same numbering as BitBoard: a1 is bit 0 and h8 is bit 63.
+
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0000800080204001L, 0x1000804000802001L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0008040088020130L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0000800400800200L, 0x9281800100808200L, 0x8004048102000854L,
+            0x4420802040008006L, 0x0880500020004002L, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x1023012082044112L, 0x00804080200A0012L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x1010220204082A00L, 0x80E0020202002804L, 0x2008480104200020L, 0x000220920280002DL,
+            0x32040421000B0284L, 0x1002080404000400L, 0x0004160892080040L, 0x2203024206204201L,
+            0x0002404264010200L, 0x1120908408428124L, 0xB100424403002280L, 0x240008060440C288L,
+            0x2040040420490400L, 0x0100620210040022L, 0x0400084104202028L, 0x0010050080908820L,
+            0x0C90A04490824802L, 0x000200A008210130L, 0x0C08001000204010L, 0x0008000186014480L,
+            0x0601044820080021L, 0x0002000101013100L, 0x1400A08108080204L, 0x0250401104485410L,
+            0x4820240810142843L, 0x0009142A20182200L, 0x0848140048440020L, 0x2020120000400440L,
+            0x0108840200802003L, 0x0009070082009492L, 0x020C0C0038424245L, 0xCA44005808210410L,
+            0x8011212000500404L, 0x2028840510101008L, 0x0004042A00041400L, 0x0624020080980080L,
+            0x1820410040840040L, 0x2201004202050100L, 0x402A088A24040224L, 0x0242061040002400L,
+            0x90020202400821A0L, 0x00C9009004E01002L, 0x58C2060202023100L, 0x0000012214040800L,
+            0x0210846810100200L, 0x0004208081010200L, 0x01A4108404442100L, 0x8054082C80280106L,
+            0x0004144904104208L, 0x00324C0A11104000L, 0x1000020231040100L, 0x2080001042020004L,
+            0x0544021020288104L, 0x1103501408083020L, 0x4010451004960002L, 0x003010091C44902CL,
+            0x0102402884202000L, 0x0480804C00841086L, 0x04602C8602210400L, 0x0000004000420200L,
+            0x0040000020442C18L, 0x4483804089094100L, 0x80000B0248020400L, 0x0045010808008680L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // state for the xorshift generator used by the magic search
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            ROOK_MASKS[square] = blockerMask(square, ROOK_DIRECTIONS);
+            BISHOP_MASKS[square] = blockerMask(square, BISHOP_DIRECTIONS);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            ROOK_ATTACKS[square] = new long[1 << Long.bitCount(ROOK_MASKS[square])];
+            BISHOP_ATTACKS[square] = new long[1 << Long.bitCount(BISHOP_MASKS[square])];
+            if (!fillTable(square, ROOK_MASKS[square], ROOK_MAGICS[square], ROOK_SHIFTS[square], ROOK_DIRECTIONS, ROOK_ATTACKS[square])) {
+                ROOK_MAGICS[square] = findMagic(square, ROOK_MASKS[square], ROOK_SHIFTS[square], ROOK_DIRECTIONS, ROOK_ATTACKS[square]);
+            }
+            if (!fillTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square], BISHOP_SHIFTS[square], BISHOP_DIRECTIONS, BISHOP_ATTACKS[square])) {
+                BISHOP_MAGICS[square] = findMagic(square, BISHOP_MASKS[square], BISHOP_SHIFTS[square], BISHOP_DIRECTIONS, BISHOP_ATTACKS[square]);
+            }
+        }
+    }
+
+    private SlidingAttacks() {}
+
+
+    /** Table lookups */
+
+    // every square a rook on the given square attacks, stopping at (and including) the first piece on each ray
+    public static long rookAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    // every square a bishop on the given square attacks, stopping at (and including) the first piece on each ray
+    public static long bishopAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    // a queen attacks everything a rook and a bishop on the same square would
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+
+    /** Table construction, only used by the static initializer */
+
+    // Squares that can block a slider on the given square. The last square of each ray is left out
+    // because a piece there can't hide anything behind it, which keeps the tables small.
+    private static long blockerMask(int square, int[][] directions) {
+        long mask = 0;
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (r + direction[0] >= 0 && r + direction[0] <= 7 && c + direction[1] >= 0 && c + direction[1] <= 7) {
+                mask |= 1L << (r * 8 + c);
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    // Walks every ray one square at a time, this is the slow version the tables are filled from
+    private static long slowAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (r >= 0 && r <= 7 && c >= 0 && c <= 7) {
+                long bit = 1L << (r * 8 + c);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;  // the ray stops at the first piece it hits
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // Fills one square's table using a known magic, returning false if two blocker
+    // patterns that need different answers land on the same slot
+    private static boolean fillTable(int square, long mask, long magic, int shift, int[][] directions, long[] attackTable) {
+        boolean[] filled = new boolean[attackTable.length];
+        long blockers = 0;
+        do {
+            int index = (int) ((blockers * magic) >>> shift);
+            long attacks = slowAttacks(square, blockers, directions);
+            if (filled[index] && attackTable[index] != attacks) {
+                return false;
+            }
+            filled[index] = true;
+            attackTable[index] = attacks;
+            blockers = (blockers - mask) & mask;  // next subset of the mask (carry-rippler trick)
+        } while (blockers != 0);
+        return true;
+    }
+
+    // Tries random sparse numbers until one maps every blocker pattern to a slot without a
+    // conflicting collision, then leaves the filled-in table behind in attackTable
+    private static long findMagic(int square, long mask, int shift, int[][] directions, long[] attackTable) {
+        int patterns = 1 << Long.bitCount(mask);
+        long[] blockers = new long[patterns];
+        long[] attacks = new long[patterns];
+        // enumerate every subset of the mask with the carry-rippler trick
+        long subset = 0;
+        for (int i = 0; i < patterns; i++) {
+            blockers[i] = subset;
+            attacks[i] = slowAttacks(square, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+
+        int[] usedBy = new int[patterns];   // which attempt last wrote each slot, so the table never needs clearing
+        for (int attempt = 1; ; attempt++) {
+            long magic = nextRandom() & nextRandom() & nextRandom();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;   // numbers that don't spread the mask into the top bits rarely work
+            }
+            boolean works = true;
+            for (int i = 0; i < patterns && works; i++) {
+                int index = (int) ((blockers[i] * magic) >>> shift);
+                if (usedBy[index] != attempt) {
+                    usedBy[index] = attempt;
+                    attackTable[index] = attacks[i];
+                } else if (attackTable[index] != attacks[i]) {
+                    works = false;
+                }
+            }
+            if (works) {
+                return magic;
+            }
+        }
+    }
+
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
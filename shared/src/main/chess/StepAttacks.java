@@ -0,0 +1,54 @@
+package chess;
+
+public final class StepAttacks {
+
+    // Precomputed attack tables for the pieces that step rather than slide: knights, kings and pawn captures.
+    // Each entry is a bitboard of the squares a piece on that square attacks, so a lookup replaces
+    // walking a list of offsets and bounds-checking every one of them.
+    // Squares use the same numbering as BitBoard: a1 is bit 0 and h8 is bit 63.
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[] WHITE_PAWN_ATTACKS = new long[64];
+    private static final long[] BLACK_PAWN_ATTACKS = new long[64];
+
+    static {
+        int[][] knightOffsets = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+        int[][] kingOffsets = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = fromOffsets(square, knightOffsets);
+            KING_ATTACKS[square] = fromOffsets(square, kingOffsets);
+            WHITE_PAWN_ATTACKS[square] = fromOffsets(square, new int[][]{{1, -1}, {1, 1}});
+            BLACK_PAWN_ATTACKS[square] = fromOffsets(square, new int[][]{{-1, -1}, {-1, 1}});
+        }
+    }
+
+    private StepAttacks() {}
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    // the two diagonal squares a pawn of the given color captures on
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return (color == ChessGame.TeamColor.WHITE) ? WHITE_PAWN_ATTACKS[square] : BLACK_PAWN_ATTACKS[square];
+    }
+
+    private static long fromOffsets(int square, int[][] offsets) {
+        long attacks = 0;
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] offset : offsets) {
+            int newRow = row + offset[0];
+            int newCol = col + offset[1];
+            if (newRow >= 0 && newRow <= 7 && newCol >= 0 && newCol <= 7) {
+                attacks |= 1L << (newRow * 8 + newCol);
+            }
+        }
+        return attacks;
+    }
+}
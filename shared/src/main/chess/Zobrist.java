@@ -0,0 +1,70 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+public final class Zobrist {
+
+    // Zobrist hashing gives every (piece, square) pair and the side to move its own random 64-bit number.
+    // A position's key is all the numbers for what is on the board xor-ed together, so making a move only
+    // needs a few xors: out with the piece on its old square, in on its new one, out with anything captured.
+    // Two different positions share a key with a chance of about 1 in 2^64.
+    //
+    // The numbers come from a fixed seed, so a position has the same key on every run and every server,
+    // which lets keys be stored and compared later. Changing the seed changes every key.
+    // This game has no castling or en passant, so there are no keys for them.
+
+    private static final long SEED = 0x5A0B1F7C3D2E4A69L;
+
+    private static final long[][] PIECE_SQUARE_KEYS = new long[BitBoard.PIECE_COUNT][64];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int pieceIndex = 0; pieceIndex < BitBoard.PIECE_COUNT; pieceIndex++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE_KEYS[pieceIndex][square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    // the key for one piece (see BitBoard.pieceIndex) standing on one square
+    static long pieceKey(int pieceIndex, int square) {
+        return PIECE_SQUARE_KEYS[pieceIndex][square];
+    }
+
+    // the key for a piece standing on a square, 0 for an empty square
+    static long pieceKey(ChessPiece piece, int square) {
+        return (piece == null) ? 0L : PIECE_SQUARE_KEYS[BitBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    // xor-ed into a board's key when it is black's turn, white to move adds nothing
+    public static long sideToMoveKey(ChessGame.TeamColor turn) {
+        return (turn == ChessGame.TeamColor.BLACK) ? BLACK_TO_MOVE_KEY : 0L;
+    }
+
+    // The key of a position. BitBoard and MyBoard keep their key up to date as they change, any other board
+    // has its key computed from scratch.
+    public static long keyOf(ChessBoard board, ChessGame.TeamColor turn) {
+        if (board instanceof BitBoard bitBoard) {
+            return bitBoard.zobristKey() ^ sideToMoveKey(turn);
+        }
+        if (board instanceof MyBoard myBoard) {
+            return myBoard.zobristKey() ^ sideToMoveKey(turn);
+        }
+        return piecesKey(board.getBoard()) ^ sideToMoveKey(turn);
+    }
+
+    // Computes the key of the pieces from scratch, squares indexed [row-1][col-1] like ChessBoard.getBoard
+    static long piecesKey(ChessPiece[][] squares) {
+        long key = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                key ^= pieceKey(squares[row][col], row * 8 + col);
+            }
+        }
+        return key;
+    }
+}
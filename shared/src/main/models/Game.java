@@ -1,13 +1,13 @@
 package models;
 
 import chess.ChessGame;
+import chess.PackedGame;
 
 /**
  * simple record class used for carrying data
  */
-public record Game(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+public record Game(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game, GameState state) {
 
-    private static GameState state;
     public enum GameState {
         WHITE,
         BLACK,
@@ -15,20 +15,31 @@ public record Game(int gameID, String whiteUsername, String blackUsername, Strin
         UNDECIDED
     }
 
+    // A game nobody has won yet
+    public Game(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+        this(gameID, whiteUsername, blackUsername, gameName, game, GameState.UNDECIDED);
+    }
+
     public Game setWhite(String whiteName) {
-        return new Game(gameID, whiteName, blackUsername, gameName, game);
+        return new Game(gameID, whiteName, blackUsername, gameName, game, state);
     }
 
     public Game setBlack(String blackName) {
-        return new Game(gameID, whiteUsername, blackName, gameName, game);
+        return new Game(gameID, whiteUsername, blackName, gameName, game, state);
     }
 
     public boolean isGameOver() {
         return state != GameState.UNDECIDED;
     }
 
-    public void setState(GameState newState) {
-        state = newState;
+    // Each game has its own state, so like setWhite this hands back a new Game
+    public Game setState(GameState newState) {
+        return new Game(gameID, whiteUsername, blackUsername, gameName, game, newState);
+    }
+
+    // A copy with a ChessGame of its own, which doesn't change when moves are played on this one
+    public Game copy() {
+        return new Game(gameID, whiteUsername, blackUsername, gameName, (game == null) ? null : PackedGame.copy(game), state);
     }
 
     public GameState getState() {
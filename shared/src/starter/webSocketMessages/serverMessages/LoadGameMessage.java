@@ -1,17 +1,51 @@
 package webSocketMessages.serverMessages;
 
+import chess.Fen;
 import models.Game;
 
 // This is an example. Adapt it based on your actual game state needs.
 public class LoadGameMessage extends ServerMessage {
     private final Game game;
+    // Set instead of game.game when the client asked for GameFormat.FEN, the rest of game is still filled in
+    private final String fen;
+    // Set for clients that take MOVE messages, the sequence number of the last move played in this game
+    private Long sequence;
 
     public LoadGameMessage(Game game) {
         super(ServerMessageType.LOAD_GAME);
         this.game = game;
+        this.fen = null;
     }
 
+    private LoadGameMessage(Game game, String fen) {
+        super(ServerMessageType.LOAD_GAME);
+        this.game = game;
+        this.fen = fen;
+    }
+
+    // A LOAD_GAME carrying the chess game as FEN rather than as JSON
+    public static LoadGameMessage withFen(Game game) {
+        Game withoutBoard = new Game(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), null, game.state());
+        return new LoadGameMessage(withoutBoard, Fen.toFen(game.game()));
+    }
+
+    // The game as sent, with the chess game rebuilt from the FEN if that is how it came
     public Game getGame() {
-        return game;
+        if (fen == null || game == null) {
+            return game;
+        }
+        return new Game(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), Fen.parseGame(fen), game.state());
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
     }
 }
@@ -0,0 +1,58 @@
+package webSocketMessages.serverMessages;
+
+import chess.ChessMove;
+import chess.Move;
+import models.Game;
+
+// Sent after each move instead of a full LOAD_GAME, to clients that asked for it when joining.
+// The client plays the move on its own copy of the game, then checks the sequence number and position
+// hash against its copy. If either is off it sends a RESYNC command to get a LOAD_GAME.
+public class MoveMessage extends ServerMessage {
+    private final int gameID;
+    private final String move;          // coordinate notation, e.g. "e2e4", a fraction the size of a ChessMove in JSON
+    private final String username;      // who made the move
+    private final long sequence;        // 1 for the first move sent for this game, then counting up
+    private final long positionHash;    // Zobrist key of the position after the move
+    private final Game.GameState gameState;
+    private final boolean check;        // whether the side now to move is in check
+
+    public MoveMessage(int gameID, ChessMove move, String username, long sequence, long positionHash,
+                       Game.GameState gameState, boolean check) {
+        super(ServerMessageType.MOVE);
+        this.gameID = gameID;
+        this.move = Move.toText(Move.encode(move));
+        this.username = username;
+        this.sequence = sequence;
+        this.positionHash = positionHash;
+        this.gameState = gameState;
+        this.check = check;
+    }
+
+    public int getGameID() {
+        return gameID;
+    }
+
+    public ChessMove getMove() {
+        return Move.toChessMove(Move.fromText(move));
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    public Game.GameState getGameState() {
+        return gameState;
+    }
+
+    public boolean isCheck() {
+        return check;
+    }
+}
@@ -0,0 +1,19 @@
+package webSocketMessages.userCommands;
+
+// Sent by a client whose copy of the game no longer matches the server's, the server answers with a LOAD_GAME
+public class ResyncCommand extends UserGameCommand {
+    private int gameID;
+    public ResyncCommand(String authToken, int gameId) {
+        super(authToken);
+        this.gameID = gameId;
+        this.commandType = CommandType.RESYNC;
+    }
+
+    public int getGameId() {
+        return gameID;
+    }
+
+    public void setGameId(int gameId) {
+        this.gameID = gameId;
+    }
+}
@@ -1,5 +1,6 @@
 package webSocketMessages.userCommands;
 
+import chess.GameFormat;
 import models.AuthToken;
 
 import java.util.Objects;
@@ -25,17 +26,42 @@ public class UserGameCommand {
         JOIN_OBSERVER,
         MAKE_MOVE,
         LEAVE,
-        RESIGN
+        RESIGN,
+        RESYNC
     }
 
     protected CommandType commandType;
 
     private final String authToken;
 
+    // Optional, the format this client wants games sent to it in. Only looked at when joining a game,
+    // a client that leaves it out (null) keeps getting full JSON games.
+    private GameFormat gameFormat;
+
+    // Optional, true when this client can apply MOVE messages itself. Only looked at when joining a game,
+    // a client that leaves it out gets a full LOAD_GAME and a NOTIFICATION after every move.
+    private Boolean moveMessages;
+
     public String getAuthString() {
         return authToken;
     }
 
+    public GameFormat getGameFormat() {
+        return gameFormat;
+    }
+
+    public void setGameFormat(GameFormat gameFormat) {
+        this.gameFormat = gameFormat;
+    }
+
+    public boolean wantsMoveMessages() {
+        return Boolean.TRUE.equals(moveMessages);
+    }
+
+    public void setMoveMessages(Boolean moveMessages) {
+        this.moveMessages = moveMessages;
+    }
+
     public CommandType getCommandType() {
         return this.commandType;
     }